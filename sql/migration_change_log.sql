@@ -0,0 +1,12 @@
+USE pharmacie_db;
+
+-- Cross-terminal cache coherence: the DAOs append (entity, entity_id) here in
+-- the same transaction as each product write; every client polls
+-- WHERE version > ? and refreshes the rows it caches.
+CREATE TABLE IF NOT EXISTS change_log (
+    version BIGINT AUTO_INCREMENT PRIMARY KEY,
+    entity VARCHAR(30) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    changed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_change_log_date (changed_at)
+) ENGINE=InnoDB;
@@ -0,0 +1,5 @@
+USE pharmacie_db;
+
+-- Client purchase history: WHERE client_id = ? ORDER BY date_vente DESC, id DESC.
+-- Also usable by the client_id foreign key.
+ALTER TABLE vente ADD INDEX idx_vente_client_date (client_id, date_vente);
@@ -0,0 +1,6 @@
+USE pharmacie_db;
+
+-- Keyset pagination orders sales and orders by (date, id).
+-- InnoDB secondary indexes carry the primary key, so (date) covers (date, id).
+ALTER TABLE vente ADD INDEX idx_vente_date (date_vente);
+ALTER TABLE commande ADD INDEX idx_commande_date (date_creation);
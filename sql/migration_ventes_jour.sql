@@ -0,0 +1,31 @@
+USE pharmacie_db;
+
+-- Purchase price at the time of sale, so a line leaves the rollup with the
+-- margin it added even after the product's prix_achat changed. Existing
+-- lines take the current price, the best known.
+ALTER TABLE ligne_vente ADD COLUMN prix_achat DECIMAL(10, 2) NULL COMMENT 'Purchase price at time of sale'
+    AFTER prix_unitaire;
+UPDATE ligne_vente lv JOIN produit p ON lv.produit_id = p.id SET lv.prix_achat = p.prix_achat;
+
+-- Daily per-product sales rollup, kept up to date by the application on
+-- every sale save/delete. Dashboards read it instead of scanning ligne_vente.
+CREATE TABLE IF NOT EXISTS ventes_jour (
+    jour DATE NOT NULL,
+    produit_id BIGINT NOT NULL,
+    quantite INT NOT NULL DEFAULT 0,
+    chiffre_affaires DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    marge DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (jour, produit_id),
+    INDEX idx_ventes_jour_produit (produit_id, jour),
+    FOREIGN KEY (produit_id) REFERENCES produit(id) ON DELETE CASCADE
+) ENGINE=InnoDB;
+
+-- Backfill from the existing history (same as pharmacie.util.RebuildVentesJour)
+DELETE FROM ventes_jour;
+INSERT INTO ventes_jour (jour, produit_id, quantite, chiffre_affaires, marge)
+SELECT DATE(v.date_vente), lv.produit_id, SUM(lv.quantite),
+       SUM(lv.quantite * lv.prix_unitaire),
+       SUM(lv.quantite * (lv.prix_unitaire - COALESCE(lv.prix_achat, 0)))
+FROM ligne_vente lv
+JOIN vente v ON lv.vente_id = v.id
+GROUP BY DATE(v.date_vente), lv.produit_id;
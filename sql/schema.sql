@@ -3,6 +3,8 @@ USE pharmacie_db;
 -- Disable foreign key checks to allow dropping tables if they exist
 SET foreign_key_checks = 0;
 
+DROP TABLE IF EXISTS change_log;
+DROP TABLE IF EXISTS ventes_jour;
 DROP TABLE IF EXISTS ligne_vente;
 DROP TABLE IF EXISTS vente;
 DROP TABLE IF EXISTS ligne_commande;
@@ -63,7 +65,8 @@ CREATE TABLE commande (
     fournisseur_id BIGINT NOT NULL,
     date_creation TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     statut ENUM('EN_ATTENTE', 'RECUE', 'ANNULEE') NOT NULL DEFAULT 'EN_ATTENTE',
-    FOREIGN KEY (fournisseur_id) REFERENCES fournisseur(id) ON DELETE RESTRICT
+    FOREIGN KEY (fournisseur_id) REFERENCES fournisseur(id) ON DELETE RESTRICT,
+    INDEX idx_commande_date (date_creation)
 ) ENGINE=InnoDB;
 
 -- Table: Ligne_Commande
@@ -84,7 +87,9 @@ CREATE TABLE vente (
     utilisateur_id BIGINT,
     total DECIMAL(12, 2) NOT NULL DEFAULT 0.00,
     FOREIGN KEY (client_id) REFERENCES client(id) ON DELETE SET NULL,
-    FOREIGN KEY (utilisateur_id) REFERENCES utilisateur(id) ON DELETE SET NULL
+    FOREIGN KEY (utilisateur_id) REFERENCES utilisateur(id) ON DELETE SET NULL,
+    INDEX idx_vente_date (date_vente),
+    INDEX idx_vente_client_date (client_id, date_vente)
 ) ENGINE=InnoDB;
 
 -- Table: Ligne_Vente
@@ -94,11 +99,37 @@ CREATE TABLE ligne_vente (
     produit_id BIGINT NOT NULL,
     quantite INT NOT NULL CHECK (quantite > 0),
     prix_unitaire DECIMAL(10, 2) NOT NULL COMMENT 'Price at time of sale',
+    prix_achat DECIMAL(10, 2) NULL COMMENT 'Purchase price at time of sale',
     sous_total DECIMAL(12, 2) GENERATED ALWAYS AS (quantite * prix_unitaire) STORED,
     FOREIGN KEY (vente_id) REFERENCES vente(id) ON DELETE CASCADE,
     FOREIGN KEY (produit_id) REFERENCES produit(id) ON DELETE RESTRICT
 ) ENGINE=InnoDB;
 
+-- Table: Ventes_Jour
+-- Daily per-product rollup of ligne_vente, maintained by MySQLVenteDAO in
+-- the same transaction as each sale (rebuild: pharmacie.util.RebuildVentesJour).
+CREATE TABLE ventes_jour (
+    jour DATE NOT NULL,
+    produit_id BIGINT NOT NULL,
+    quantite INT NOT NULL DEFAULT 0,
+    chiffre_affaires DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    marge DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (jour, produit_id),
+    INDEX idx_ventes_jour_produit (produit_id, jour),
+    FOREIGN KEY (produit_id) REFERENCES produit(id) ON DELETE CASCADE
+) ENGINE=InnoDB;
+
+-- Table: Change_Log
+-- One row per changed entity, written in the transaction of the change.
+-- Each client polls it to refresh its caches (see ChangeLogPoller).
+CREATE TABLE change_log (
+    version BIGINT AUTO_INCREMENT PRIMARY KEY,
+    entity VARCHAR(30) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    changed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_change_log_date (changed_at)
+) ENGINE=InnoDB;
+
 -- Initial Seed Data
 
 -- Admin User (Password: admin123 -> SHA256 hashed usually, simply text for now as placeholder, app must hash)
@@ -2,6 +2,10 @@ package pharmacie.app;
 
 import javafx.application.Application;
 import javafx.stage.Stage;
+import pharmacie.config.DBConnection;
+import pharmacie.controller.BackgroundTasks;
+import pharmacie.dao.mysql.MySQLDAOFactory;
+import pharmacie.service.ReportService;
 import pharmacie.view.LoginView;
 import pharmacie.view.SceneManager;
 
@@ -18,6 +22,14 @@ public class PharmacieApp extends Application {
         SceneManager.getInstance().switchScene("Login", loginParams.getScene());
     }
 
+    @Override
+    public void stop() {
+        BackgroundTasks.shutdown();
+        ReportService.shutdown();
+        MySQLDAOFactory.shutdown();
+        DBConnection.shutdown();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -0,0 +1,300 @@
+package pharmacie.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded JDBC connection pool used behind {@link DBConnection}.
+ * Connections handed out are proxies: calling close() returns the physical
+ * connection to the pool instead of closing the socket.
+ */
+public class ConnectionPool {
+    // A connection returned less than this long ago is not pinged again on borrow
+    private static final long ALIVE_BYPASS_MS = 500;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int maxSize;
+    private final int minIdle;
+    private final long idleTimeoutMs;
+    private final long borrowTimeoutMs;
+    private final long leakThresholdMs;
+    private final int validationTimeoutSec;
+
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, String username, String password, int maxSize, int minIdle,
+            long idleTimeoutMs, long borrowTimeoutMs, long leakThresholdMs, int validationTimeoutSec) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("La taille maximale du pool doit être positive.");
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minIdle = Math.max(0, Math.min(minIdle, maxSize));
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.leakThresholdMs = leakThresholdMs;
+        this.validationTimeoutSec = validationTimeoutSec;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMs, leakThresholdMs > 0 ? leakThresholdMs : idleTimeoutMs) / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting at most borrowTimeoutMs when the pool is
+     * exhausted. The caller must close() it to give it back.
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Le pool de connexions est fermé.");
+        }
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Aucune connexion disponible après " + borrowTimeoutMs + " ms (pool: "
+                        + maxSize + ", empruntées: " + borrowed.size() + ").");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompu en attente d'une connexion.", e);
+        }
+
+        try {
+            PooledConnection pc;
+            while ((pc = pollIdle()) != null) {
+                if (isUsable(pc)) {
+                    break;
+                }
+                closeQuietly(pc.physical);
+            }
+            if (pc == null) {
+                pc = new PooledConnection(DriverManager.getConnection(url, username, password));
+            }
+            pc.borrowedAt = System.currentTimeMillis();
+            pc.borrowStack = leakThresholdMs > 0 ? new Throwable("Connexion empruntée ici") : null;
+            pc.leakReported = false;
+            pc.broken = false;
+            borrowed.add(pc);
+            return pc.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private synchronized PooledConnection pollIdle() {
+        // LIFO keeps the hottest connections in use and lets the tail age out
+        return idle.pollFirst();
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        if (System.currentTimeMillis() - pc.lastReturned < ALIVE_BYPASS_MS) {
+            return true;
+        }
+        try {
+            return pc.physical.isValid(validationTimeoutSec);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledConnection pc) {
+        if (!borrowed.remove(pc)) {
+            return;
+        }
+        try {
+            boolean reusable = !closed && !pc.broken && !pc.physical.isClosed();
+            if (reusable) {
+                try {
+                    if (!pc.physical.getAutoCommit()) {
+                        // Never hand out a connection with a half-done transaction
+                        pc.physical.rollback();
+                        pc.physical.setAutoCommit(true);
+                    }
+                    pc.physical.clearWarnings();
+                } catch (SQLException e) {
+                    reusable = false;
+                }
+            }
+            if (reusable) {
+                pc.lastReturned = System.currentTimeMillis();
+                pc.borrowStack = null;
+                synchronized (this) {
+                    idle.addFirst(pc);
+                }
+            } else {
+                closeQuietly(pc.physical);
+            }
+        } catch (SQLException e) {
+            closeQuietly(pc.physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        // 1. Idle eviction, keeping at least minIdle warm connections
+        synchronized (this) {
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && idle.size() > minIdle) {
+                PooledConnection pc = it.next();
+                if (now - pc.lastReturned > idleTimeoutMs) {
+                    it.remove();
+                    closeQuietly(pc.physical);
+                }
+            }
+        }
+
+        // 2. Leak detection
+        if (leakThresholdMs > 0) {
+            for (PooledConnection pc : borrowed) {
+                if (!pc.leakReported && now - pc.borrowedAt > leakThresholdMs) {
+                    pc.leakReported = true;
+                    System.err.println("ALERT: connexion empruntée depuis " + (now - pc.borrowedAt)
+                            + " ms sans être rendue (fuite probable).");
+                    if (pc.borrowStack != null) {
+                        pc.borrowStack.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes idle connections immediately; borrowed ones are closed as soon as
+     * their holder returns them.
+     */
+    public void shutdown() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        housekeeper.shutdownNow();
+        synchronized (this) {
+            for (PooledConnection pc : idle) {
+                closeQuietly(pc.physical);
+            }
+            idle.clear();
+        }
+        if (!borrowed.isEmpty()) {
+            System.out.println("Pool fermé avec " + borrowed.size() + " connexion(s) encore empruntée(s).");
+        }
+    }
+
+    public int getActiveCount() {
+        return borrowed.size();
+    }
+
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private static void closeQuietly(Connection c) {
+        try {
+            c.close();
+        } catch (SQLException e) {
+            // Connection already dead, nothing to do
+        }
+    }
+
+    private final class PooledConnection {
+        private final Connection physical;
+        private volatile long borrowedAt;
+        private volatile long lastReturned;
+        private volatile Throwable borrowStack;
+        private volatile boolean leakReported;
+        private volatile boolean broken;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        private Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, new Handle(this));
+        }
+    }
+
+    /**
+     * One handle per borrow, so a connection closed twice or used after close
+     * cannot touch a physical connection already lent to someone else.
+     */
+    private final class Handle implements InvocationHandler {
+        private final PooledConnection pc;
+        private boolean handleClosed;
+
+        private Handle(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!handleClosed) {
+                        handleClosed = true;
+                        release(pc);
+                    }
+                    return null;
+                case "isClosed":
+                    return handleClosed || pc.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pc.physical + "]";
+                default:
+                    break;
+            }
+            if (handleClosed) {
+                throw new SQLException("Connexion déjà rendue au pool.");
+            }
+            try {
+                return method.invoke(pc.physical, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException) {
+                    String state = ((SQLException) cause).getSQLState();
+                    // SQLState class 08 = connection exception, do not recycle
+                    if (state != null && state.startsWith("08")) {
+                        pc.broken = true;
+                    }
+                }
+                throw cause;
+            }
+        }
+    }
+}
@@ -3,23 +3,26 @@ package pharmacie.config;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Properties;
 
 /**
  * Singleton class to manage database connections.
- * Reads configuration from db.properties.
+ * Reads configuration from db.properties and serves connections from a
+ * {@link ConnectionPool}.
  */
 public class DBConnection {
     private static DBConnection instance;
     private String url;
     private String username;
     private String password;
+    private ConnectionPool pool;
+    private long changeLogPollIntervalMs;
+    private int changeLogRetentionHours;
 
     private DBConnection() {
+        Properties prop = new Properties();
         try (InputStream input = getClass().getClassLoader().getResourceAsStream("pharmacie/config/db.properties")) {
-            Properties prop = new Properties();
             if (input == null) {
                 // Fallback or error if using file system path structures differently in IDE vs
                 // CLI
@@ -32,19 +35,43 @@ public class DBConnection {
                 // or use absolute path?
                 // Let's try standard approach. If it fails, I'll fix.
                 System.out.println("Warning: db.properties not found in classpath, using defaults.");
-                this.url = "jdbc:mysql://localhost:3306/pharmacie_db?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true";
+                this.url = "jdbc:mysql://localhost:3306/pharmacie_db?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true";
                 this.username = "pharmacie_user";
                 this.password = "pharmacie_pass";
-                return;
+            } else {
+                prop.load(input);
+                this.url = prop.getProperty("db.url");
+                this.username = prop.getProperty("db.user");
+                this.password = prop.getProperty("db.password");
             }
-            prop.load(input);
-            this.url = prop.getProperty("db.url");
-            this.username = prop.getProperty("db.user");
-            this.password = prop.getProperty("db.password");
         } catch (IOException ex) {
             ex.printStackTrace();
             throw new RuntimeException("Error loading database properties", ex);
         }
+
+        this.pool = new ConnectionPool(url, username, password,
+                intProperty(prop, "db.pool.maxSize", 10),
+                intProperty(prop, "db.pool.minIdle", 2),
+                longProperty(prop, "db.pool.idleTimeoutMs", 300_000),
+                longProperty(prop, "db.pool.borrowTimeoutMs", 10_000),
+                longProperty(prop, "db.pool.leakDetectionThresholdMs", 60_000),
+                intProperty(prop, "db.pool.validationTimeoutSec", 2));
+
+        this.changeLogPollIntervalMs = longProperty(prop, "db.changelog.pollIntervalMs", 500);
+        this.changeLogRetentionHours = intProperty(prop, "db.changelog.retentionHours", 24);
+
+        // Close sockets cleanly for entry points that never call shutdown()
+        Runtime.getRuntime().addShutdownHook(new Thread(pool::shutdown, "db-pool-shutdown"));
+    }
+
+    private static int intProperty(Properties prop, String key, int defaultValue) {
+        String value = prop.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static long longProperty(Properties prop, String key, long defaultValue) {
+        String value = prop.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Long.parseLong(value.trim());
     }
 
     public static synchronized DBConnection getInstance() {
@@ -54,7 +81,35 @@ public class DBConnection {
         return instance;
     }
 
+    /**
+     * Borrows a pooled connection. Closing it returns it to the pool.
+     */
     public Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(url, username, password);
+        return pool.getConnection();
+    }
+
+    public ConnectionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * How often each client polls change_log for other terminals' writes;
+     * 0 disables polling (single terminal).
+     */
+    public long getChangeLogPollIntervalMs() {
+        return changeLogPollIntervalMs;
+    }
+
+    public int getChangeLogRetentionHours() {
+        return changeLogRetentionHours;
+    }
+
+    /**
+     * Releases the pool if it was ever created. Called on application exit.
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.pool.shutdown();
+        }
     }
 }
@@ -0,0 +1,151 @@
+package pharmacie.controller;
+
+import javafx.concurrent.Task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Runs the DAO calls of a controller as javafx.concurrent.Task on a small
+ * pool shared by every controller, so a slow query no longer freezes the
+ * window. Success and error handlers run on the FX thread; errors that
+ * have no handler of their own are shown through the controller's alert.
+ *
+ * Tasks are named by a key: load() replaces a pending task of the same
+ * key (the latest refresh wins), submit() refuses a second one while the
+ * first runs (a double click does not save twice). Methods are called on
+ * the FX thread.
+ */
+public class BackgroundTasks {
+    // A few queries at a time, whatever the number of open screens; writes
+    // are queued, never rejected
+    private static final int WORKERS = 4;
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private final BiConsumer<String, String> alert;
+    private final Map<String, Task<?>> running = new HashMap<>();
+    private final Set<String> loadKeys = new HashSet<>();
+
+    /**
+     * @param alert the controller's showAlert(title, content)
+     */
+    public BackgroundTasks(BiConsumer<String, String> alert) {
+        this.alert = alert;
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(WORKERS, WORKERS, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "ui-worker-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Reads data in the background, cancelling the previous task of the
+     * same key. Errors are shown as "Erreur de chargement".
+     */
+    public <T> Task<T> load(String key, Callable<T> work, Consumer<T> onSuccess) {
+        cancel(key);
+        loadKeys.add(key);
+        return start(key, wrap(work), onSuccess, e -> {
+            e.printStackTrace();
+            alert.accept("Erreur de chargement", "Impossible de charger les données: " + message(e));
+        });
+    }
+
+    /**
+     * Runs a write in the background, or does nothing and returns null if
+     * the previous task of the same key is still running.
+     */
+    public <T> Task<T> submit(String key, Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        return submit(key, wrap(work), onSuccess, onError);
+    }
+
+    /**
+     * Same as above for a task built by the caller, e.g. one that reports
+     * its progress with updateProgress().
+     */
+    public <T> Task<T> submit(String key, Task<T> task, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        if (isRunning(key))
+            return null;
+        return start(key, task, onSuccess, onError);
+    }
+
+    public boolean isRunning(String key) {
+        return running.containsKey(key);
+    }
+
+    /**
+     * Cancels the task of the given key, if any; its handlers will not run.
+     */
+    public void cancel(String key) {
+        Task<?> previous = running.remove(key);
+        if (previous != null)
+            previous.cancel(true);
+    }
+
+    /**
+     * Cancels every read started with load(), e.g. when the user leaves the
+     * screen. Writes are left to finish, so their outcome is still
+     * reported.
+     */
+    public void cancelLoads() {
+        for (String key : new ArrayList<>(loadKeys)) {
+            cancel(key);
+        }
+    }
+
+    private <T> Task<T> start(String key, Task<T> task, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        running.put(key, task);
+        task.setOnSucceeded(e -> {
+            running.remove(key, task);
+            if (onSuccess != null)
+                onSuccess.accept(task.getValue());
+        });
+        task.setOnFailed(e -> {
+            running.remove(key, task);
+            onError.accept(task.getException());
+        });
+        task.setOnCancelled(e -> running.remove(key, task));
+        EXECUTOR.execute(task);
+        return task;
+    }
+
+    private static <T> Task<T> wrap(Callable<T> work) {
+        return new Task<T>() {
+            @Override
+            protected T call() throws Exception {
+                return work.call();
+            }
+        };
+    }
+
+    /**
+     * The exception message, or its type when it has none.
+     */
+    static String message(Throwable e) {
+        return e.getMessage() != null ? e.getMessage() : e.toString();
+    }
+
+    /**
+     * Stops the workers. Running tasks are interrupted.
+     */
+    public static void shutdown() {
+        EXECUTOR.shutdownNow();
+    }
+}
@@ -1,30 +1,37 @@
 package pharmacie.controller;
 
-import javafx.collections.FXCollections;
 import javafx.scene.control.Alert;
 import javafx.scene.control.TableView;
 import pharmacie.dao.interfaces.ClientDAO;
 import pharmacie.dao.interfaces.DAOFactory;
+import pharmacie.dao.interfaces.Page;
 import pharmacie.dao.interfaces.VenteDAO;
 import pharmacie.model.Client;
 import pharmacie.model.Vente;
 import pharmacie.view.ClientView;
+import pharmacie.view.ListDiff;
+import pharmacie.view.model.ClientRow;
 
-import java.util.List;
+import java.util.function.Consumer;
 
 public class ClientController {
+    private static final int HISTORY_PAGE_SIZE = 100;
+
     private ClientView view;
     private ClientDAO clientDAO;
     private VenteDAO venteDAO;
+    private BackgroundTasks tasks;
 
     public ClientController(ClientView view) {
         this.view = view;
         this.clientDAO = DAOFactory.getFactory(DAOFactory.Type.MYSQL).getClientDAO();
         this.venteDAO = DAOFactory.getFactory(DAOFactory.Type.MYSQL).getVenteDAO();
+        this.tasks = new BackgroundTasks(this::showAlert);
     }
 
-    public void loadClients(TableView<Client> table) {
-        table.setItems(FXCollections.observableArrayList(clientDAO.findAll()));
+    public void loadClients(TableView<ClientRow> table) {
+        tasks.load("clients", clientDAO::findAll,
+                list -> ListDiff.updateRows(table, list, Client::getId, ClientRow::new));
     }
 
     public void addClient(String nom, String prenom, String email, String tel, String secruite) {
@@ -40,31 +47,38 @@ public class ClientController {
         c.setTelephone(tel);
         c.setCarteVitale(secruite);
 
-        try {
+        tasks.submit("save", () -> {
             clientDAO.save(c);
+            return c;
+        }, saved -> {
             view.refreshTable();
             showAlert("Succès", "Client ajouté.");
-        } catch (Exception e) {
+        }, e -> {
             e.printStackTrace();
             showAlert("Erreur", "Erreur lors de l'ajout: " + e.getMessage());
+        });
+    }
+
+    /**
+     * Loads one page of the client's purchases, most recent first, and hands
+     * it to {@code onLoaded} on the FX thread. Pass the cursor of the
+     * previous page (or null) to continue; selecting another client cancels
+     * the page still loading.
+     */
+    public void loadClientHistory(Client c, String cursor, Consumer<Page<Vente>> onLoaded) {
+        if (c == null || c.getId() == null) {
+            tasks.cancel("history");
+            onLoaded.accept(Page.empty());
+            return;
         }
+        tasks.load("history", () -> venteDAO.findByClient(c.getId(), cursor, HISTORY_PAGE_SIZE), onLoaded);
     }
 
-    public List<Vente> getClientHistory(Client c) {
-        if (c == null)
-            return FXCollections.emptyObservableList();
-        // Assuming VenteDAO has a findByClient method or we filter all
-        // For simplicity/speed if DAO misses it, let's just filter list manually or add
-        // method locally if feasible.
-        // Checking VenteDAO... It's an interface.
-        // Let's rely on filtering findAll() for now or specific method if exists.
-        // Actually MySQLVenteDAO might not have specific findByClient exposed in
-        // interface.
-        // We will fetch all and filter for this prototype to avoid big DAO refactor.
-        List<Vente> all = venteDAO.findAll();
-        return all.stream()
-                .filter(v -> v.getClient() != null && v.getClient().getId().equals(c.getId()))
-                .toList();
+    /**
+     * Stops the loads still running for this screen.
+     */
+    public void cancelPending() {
+        tasks.cancelLoads();
     }
 
     private void showAlert(String title, String content) {
@@ -1,17 +1,21 @@
 package pharmacie.controller;
 
+import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.layout.VBox;
 import pharmacie.model.Utilisateur;
 import pharmacie.view.LoginView;
 import pharmacie.view.MainDashboardView;
 import pharmacie.view.ProductView;
+import pharmacie.view.ReportView;
 import pharmacie.view.SceneManager;
 import pharmacie.view.UserManagementView;
 
 public class MainDashboardController {
     private MainDashboardView view;
     private Utilisateur user;
+    // Cancels the pending work of the screen currently shown
+    private Runnable leaveCurrent;
 
     public MainDashboardController(MainDashboardView view, Utilisateur user) {
         this.view = view;
@@ -21,54 +25,73 @@ public class MainDashboardController {
     public void showProducts() {
         // Switch center content to Product Management View
         ProductView productView = new ProductView();
-        view.setCenterContent(productView.getView());
+        show(productView.getView(), productView::cancelPending);
     }
 
     public void showSales() {
         pharmacie.view.SaleView saleView = new pharmacie.view.SaleView(user);
-        view.setCenterContent(saleView.getView());
+        show(saleView.getView(), saleView::cancelPending);
     }
 
     public void showOrders() {
         pharmacie.view.OrderView orderView = new pharmacie.view.OrderView();
-        view.setCenterContent(orderView.getView());
+        show(orderView.getView(), orderView::cancelPending);
     }
 
     public void showSuppliers() {
         if (user.getRole() != pharmacie.model.Role.ADMIN) {
-            view.setCenterContent(new VBox(new Label("Accès refusé.")));
+            show(new VBox(new Label("Accès refusé.")));
             return;
         }
         pharmacie.view.SupplierView supplierView = new pharmacie.view.SupplierView();
-        view.setCenterContent(supplierView.getView());
+        show(supplierView.getView(), supplierView::cancelPending);
     }
 
     public void showClients() {
         pharmacie.view.ClientView clientView = new pharmacie.view.ClientView();
-        view.setCenterContent(clientView.getView());
+        show(clientView.getView(), clientView::cancelPending);
     }
 
     public void showReports() {
         if (user.getRole() != pharmacie.model.Role.ADMIN) {
-            view.setCenterContent(new VBox(new Label("Accès refusé: Administrateur requis.")));
+            show(new VBox(new Label("Accès refusé: Administrateur requis.")));
             return;
         }
 
-        pharmacie.view.ReportView reportView = new pharmacie.view.ReportView();
-        view.setCenterContent(reportView.getView());
+        ReportView reports = new ReportView();
+        show(reports.getView(), reports::cancelPending);
     }
 
     public void showUsers() {
         if (user.getRole() != pharmacie.model.Role.ADMIN) {
-            view.setCenterContent(new VBox(new Label("Accès refusé: Administrateur requis.")));
+            show(new VBox(new Label("Accès refusé: Administrateur requis.")));
             return;
         }
         UserManagementView userView = new UserManagementView(user);
-        view.setCenterContent(userView.getView());
+        show(userView.getView());
     }
 
     public void logout() {
+        leaveCurrent();
         LoginView login = new LoginView();
         SceneManager.getInstance().switchScene("Login", login.getScene());
     }
+
+    private void show(Node content) {
+        show(content, null);
+    }
+
+    private void show(Node content, Runnable onLeave) {
+        leaveCurrent();
+        view.setCenterContent(content);
+        leaveCurrent = onLeave;
+    }
+
+    private void leaveCurrent() {
+        // Loads and reports still running for a screen nobody looks at any more
+        if (leaveCurrent != null) {
+            leaveCurrent.run();
+            leaveCurrent = null;
+        }
+    }
 }
@@ -3,6 +3,7 @@ package pharmacie.controller;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.control.Alert;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.TableView;
 import pharmacie.dao.interfaces.CommandeDAO;
 import pharmacie.dao.interfaces.DAOFactory;
@@ -12,11 +13,15 @@ import pharmacie.model.Commande;
 import pharmacie.model.Fournisseur;
 import pharmacie.model.LigneCommande;
 import pharmacie.model.Produit;
+import pharmacie.service.ReportService;
+import pharmacie.service.StockService;
+import pharmacie.view.ListDiff;
 import pharmacie.view.OrderView;
+import pharmacie.view.model.CommandeRow;
+import pharmacie.view.model.ProduitRow;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.List;
 
 public class OrderController {
     private OrderView view;
@@ -24,6 +29,7 @@ public class OrderController {
     private FournisseurDAO fournisseurDAO;
     private ProduitDAO produitDAO;
     private ObservableList<LigneCommande> orderItems;
+    private BackgroundTasks tasks;
 
     public OrderController(OrderView view) {
         this.view = view;
@@ -31,14 +37,21 @@ public class OrderController {
         this.fournisseurDAO = DAOFactory.getFactory(DAOFactory.Type.MYSQL).getFournisseurDAO();
         this.produitDAO = DAOFactory.getFactory(DAOFactory.Type.MYSQL).getProduitDAO();
         this.orderItems = FXCollections.observableArrayList();
+        this.tasks = new BackgroundTasks(this::showAlert);
     }
 
-    public List<Fournisseur> getAllSuppliers() {
-        return fournisseurDAO.findAll();
+    public void loadSuppliers(ComboBox<Fournisseur> combo) {
+        tasks.load("fournisseurs", fournisseurDAO::findAll, list -> combo.getItems().setAll(list));
     }
 
-    public void loadProducts(TableView<Produit> table) {
-        table.setItems(FXCollections.observableArrayList(produitDAO.findAll()));
+    public void loadProducts(TableView<ProduitRow> table) {
+        tasks.load("produits", produitDAO::findAll,
+                list -> ListDiff.updateRows(table, list, Produit::getId, ProduitRow::new));
+    }
+
+    public void loadOrderHistory(TableView<CommandeRow> table) {
+        tasks.load("historique", commandeDAO::findAll,
+                list -> ListDiff.updateRows(table, list, Commande::getId, CommandeRow::new));
     }
 
     public ObservableList<LigneCommande> getOrderItems() {
@@ -76,20 +89,35 @@ public class OrderController {
         cmd.setStatut(pharmacie.model.StatutCommande.EN_ATTENTE);
         cmd.setLignes(new ArrayList<>(orderItems));
 
-        try {
+        tasks.submit("save", () -> {
             commandeDAO.save(cmd);
+            ReportService.ordersChanged();
+            return cmd;
+        }, saved -> {
             orderItems.clear();
             view.clearSelection(); // Reset UI selection
             view.refreshTables();
             showAlert("Succès", "Commande créée avec succès !");
-        } catch (Exception e) {
+        }, e -> {
             e.printStackTrace();
             showAlert("Erreur", "Impossible de créer la commande.");
-        }
+        });
     }
 
-    public List<Commande> getOrderHistory() {
-        return commandeDAO.findAll();
+    /**
+     * Product created from the order screen, with the default threshold.
+     */
+    public void createProduct(Produit p) {
+        tasks.submit("save", () -> {
+            new StockService().saveProduit(p);
+            return p;
+        }, saved -> {
+            view.refreshTables();
+            showAlert("Succès", "Produit créé.");
+        }, e -> {
+            e.printStackTrace();
+            showAlert("Erreur", "Erreur: " + e.getMessage());
+        });
     }
 
     public void receiveOrder(Commande c) {
@@ -100,17 +128,14 @@ public class OrderController {
             return;
         }
 
-        try {
-            // Update stock
-            for (LigneCommande line : c.getLignes()) {
-                Produit p = line.getProduit();
-                p.setStockActuel(p.getStockActuel() + line.getQuantite());
-                produitDAO.save(p);
+        tasks.submit("save", () -> {
+            // Status and stock in one transaction, the stock incremented in
+            // place so sales made meanwhile on other terminals are kept
+            if (!commandeDAO.receive(c.getId())) {
+                throw new IllegalStateException("Commande déjà reçue ou annulée sur un autre poste.");
             }
-
-            // Update status
             c.setStatut(pharmacie.model.StatutCommande.RECUE);
-            commandeDAO.save(c); // Update status in DB
+            ReportService.ordersChanged();
 
             // Update Supplier Performance Score
             Fournisseur f = c.getFournisseur();
@@ -118,13 +143,15 @@ public class OrderController {
                 int currentNote = f.getNotePerformance();
                 f.setNotePerformance(Math.min(100, currentNote + 5));
                 fournisseurDAO.save(f);
+                ReportService.suppliersChanged();
             }
 
+            // Check for low stock alerts
+            return produitDAO.findLowStock();
+        }, lowStock -> {
             view.refreshTables();
             showAlert("Succès", "Commande réceptionnée. Stock mis à jour.");
 
-            // Check for low stock alerts
-            List<Produit> lowStock = produitDAO.findLowStock();
             if (!lowStock.isEmpty()) {
                 StringBuilder sb = new StringBuilder("Note : Les produits suivants restent sous le seuil minimal :\n");
                 for (Produit p : lowStock) {
@@ -132,10 +159,10 @@ public class OrderController {
                 }
                 showAlert("Stock toujours Bas", sb.toString());
             }
-        } catch (Exception e) {
+        }, e -> {
             e.printStackTrace();
-            showAlert("Erreur", "Erreur lors de la réception.");
-        }
+            showAlert("Erreur", "Erreur lors de la réception: " + e.getMessage());
+        });
     }
 
     public void cancelOrder(Commande c) {
@@ -146,26 +173,39 @@ public class OrderController {
             return;
         }
 
-        try {
+        tasks.submit("save", () -> {
             c.setStatut(pharmacie.model.StatutCommande.ANNULEE);
             commandeDAO.save(c);
+            ReportService.ordersChanged();
+            return c;
+        }, saved -> {
             view.refreshTables();
             showAlert("Succès", "Commande annulée.");
-        } catch (Exception e) {
+        }, e -> {
             e.printStackTrace();
             showAlert("Erreur", "Erreur lors de l'annulation.");
-        }
+        });
     }
 
     public void updateOrder(Commande c) {
-        try {
+        tasks.submit("save", () -> {
             commandeDAO.save(c);
+            ReportService.ordersChanged();
+            return c;
+        }, saved -> {
             view.refreshTables();
             showAlert("Succès", "Commande mise à jour.");
-        } catch (Exception e) {
+        }, e -> {
             e.printStackTrace();
             showAlert("Erreur", "Erreur lors de la mise à jour: " + e.getMessage());
-        }
+        });
+    }
+
+    /**
+     * Stops the loads still running for this screen.
+     */
+    public void cancelPending() {
+        tasks.cancelLoads();
     }
 
     private void showAlert(String title, String content) {
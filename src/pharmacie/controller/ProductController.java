@@ -1,47 +1,47 @@
 package pharmacie.controller;
 
-import javafx.collections.FXCollections;
 import javafx.scene.control.TableView;
 import pharmacie.model.Produit;
 import pharmacie.service.StockService;
+import pharmacie.view.ListDiff;
 import pharmacie.view.ProductView;
-
-import java.util.List;
+import pharmacie.view.model.ProduitRow;
 
 public class ProductController {
     private ProductView view;
     private StockService stockService;
+    private BackgroundTasks tasks;
 
     public ProductController(ProductView view) {
         this.view = view;
         this.stockService = new StockService();
+        this.tasks = new BackgroundTasks(this::showAlert);
     }
 
-    public void loadData(TableView<Produit> table) {
-        List<Produit> products = stockService.getAllProduits();
-        table.setItems(FXCollections.observableArrayList(products));
+    public void loadData(TableView<ProduitRow> table) {
+        tasks.load("produits", stockService::getAllProduits,
+                products -> ListDiff.updateRows(table, products, Produit::getId, ProduitRow::new));
     }
 
     public void addProduct(Produit p) {
-        try {
-            stockService.saveProduit(p);
-            loadData(view.getTable());
-            showAlert("Succès", "Produit ajouté avec succès !");
-        } catch (Exception e) {
-            e.printStackTrace();
-            showAlert("Erreur", "Erreur lors de l'ajout du produit: " + e.getMessage());
-        }
+        save(p, "Produit ajouté avec succès !", "Erreur lors de l'ajout du produit: ");
     }
 
     public void updateProduct(Produit p) {
-        try {
+        save(p, "Produit mis à jour avec succès !", "Erreur lors de la mise à jour: ");
+    }
+
+    private void save(Produit p, String success, String failure) {
+        tasks.submit("save", () -> {
             stockService.saveProduit(p);
+            return p;
+        }, saved -> {
             loadData(view.getTable());
-            showAlert("Succès", "Produit mis à jour avec succès !");
-        } catch (Exception e) {
+            showAlert("Succès", success);
+        }, e -> {
             e.printStackTrace();
-            showAlert("Erreur", "Erreur lors de la mise à jour: " + e.getMessage());
-        }
+            showAlert("Erreur", failure + e.getMessage());
+        });
     }
 
     public void deleteProduct(Produit p) {
@@ -58,11 +58,13 @@ public class ProductController {
                 "Attention: Cette action est irréversible et peut échouer si le produit est lié à des ventes ou commandes.");
 
         if (confirm.showAndWait().get() == javafx.scene.control.ButtonType.OK) {
-            try {
+            tasks.submit("save", () -> {
                 stockService.deleteProduit(p.getId());
+                return p;
+            }, deleted -> {
                 loadData(view.getTable());
                 showAlert("Succès", "Produit supprimé ainsi que son historique.");
-            } catch (Exception e) {
+            }, e -> {
                 String msg = e.getMessage();
                 // Check if it's our specific stock error or a generic constraint error
                 if (msg != null && msg.contains("unités en stock")) {
@@ -74,10 +76,17 @@ public class ProductController {
                     e.printStackTrace();
                     showAlert("Erreur Inattendue", "Détail : " + (msg != null ? msg : e.toString()));
                 }
-            }
+            });
         }
     }
 
+    /**
+     * Stops the loads still running for this screen.
+     */
+    public void cancelPending() {
+        tasks.cancelLoads();
+    }
+
     private void showAlert(String title, String content) {
         javafx.scene.control.Alert alert = new javafx.scene.control.Alert(
                 javafx.scene.control.Alert.AlertType.INFORMATION);
@@ -6,23 +6,46 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.TableView;
 import pharmacie.dao.interfaces.ClientDAO;
 import pharmacie.dao.interfaces.DAOFactory;
+import pharmacie.dao.interfaces.Page;
 import pharmacie.dao.interfaces.ProduitDAO;
+import pharmacie.dao.interfaces.SortOrder;
 import pharmacie.dao.interfaces.VenteDAO;
+import pharmacie.exception.StockInsuffisantException;
 import pharmacie.model.*;
+import pharmacie.service.ProductSearchIndex;
+import pharmacie.service.ReportService;
+import pharmacie.view.ListDiff;
 import pharmacie.view.SaleView;
+import pharmacie.view.model.LigneVenteRow;
+import pharmacie.view.model.ProduitRow;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 public class SaleController {
+    private static final int HISTORY_PAGE_SIZE = 100;
+    private static final int SEARCH_LIMIT = 100;
+
     private SaleView view;
     private ProduitDAO produitDAO;
     private VenteDAO venteDAO;
     private ClientDAO clientDAO;
-    private ObservableList<LigneVente> cartItems;
+    private ObservableList<LigneVenteRow> cartItems;
+    private ProductSearchIndex searchIndex;
+    // Last catalog loaded, and the search applied to it
+    private ObservableList<ProduitRow> catalog = FXCollections.observableArrayList();
+    private Map<Long, ProduitRow> catalogById = new HashMap<>();
+    private Map<String, ProduitRow> catalogByCode = new HashMap<>();
+    private long scanCount;
+    private String searchQuery = "";
     private Utilisateur currentUser;
+    private BackgroundTasks tasks;
 
     public SaleController(SaleView view, Utilisateur user) {
         this.view = view;
@@ -31,47 +54,140 @@ public class SaleController {
         this.venteDAO = DAOFactory.getFactory(DAOFactory.Type.MYSQL).getVenteDAO();
         this.clientDAO = DAOFactory.getFactory(DAOFactory.Type.MYSQL).getClientDAO();
         this.cartItems = FXCollections.observableArrayList();
+        this.searchIndex = ProductSearchIndex.getInstance(produitDAO);
+        this.tasks = new BackgroundTasks(this::showAlert);
+    }
+
+    public void loadProducts(TableView<ProduitRow> table) {
+        tasks.load("produits", () -> {
+            List<Produit> products = produitDAO.findAll();
+            searchIndex.ensureLoaded();
+            return products;
+        }, products -> {
+            // Rows shown by a search are catalog rows too, updated in place
+            if (table.getItems() == catalog) {
+                ListDiff.updateRows(table, products, Produit::getId, ProduitRow::new);
+            } else {
+                ListDiff.updateRows(catalog, products, Produit::getId, ProduitRow::new);
+            }
+            catalogById = new HashMap<>();
+            catalogByCode = new HashMap<>();
+            for (ProduitRow row : catalog) {
+                Produit p = row.getModel();
+                catalogById.put(p.getId(), row);
+                if (p.getCodeBarre() != null && !p.getCodeBarre().isEmpty())
+                    catalogByCode.put(p.getCodeBarre(), row);
+            }
+            filterProducts(table, searchQuery);
+        });
+    }
+
+    /**
+     * Shows the best matches of {@code query} from the catalog loaded last,
+     * or the whole catalog for a blank query. Fast enough to run on every
+     * keystroke.
+     */
+    public void filterProducts(TableView<ProduitRow> table, String query) {
+        searchQuery = query == null ? "" : query.trim();
+        if (searchQuery.isEmpty() || !searchIndex.isLoaded()) {
+            if (table.getItems() != catalog)
+                table.setItems(catalog);
+            return;
+        }
+        List<ProduitRow> matches = new ArrayList<>();
+        for (Long id : searchIndex.search(searchQuery, SEARCH_LIMIT)) {
+            // Products created since the catalog was loaded show up after the next refresh
+            ProduitRow row = catalogById.get(id);
+            if (row != null)
+                matches.add(row);
+        }
+        table.setItems(FXCollections.observableArrayList(matches));
+    }
+
+    /**
+     * Saves the client, then calls {@code onSaved} on the FX thread (the
+     * client has its id by then).
+     */
+    public void saveClient(Client c, Runnable onSaved) {
+        tasks.submit("client", () -> {
+            clientDAO.save(c);
+            return c;
+        }, saved -> onSaved.run(), e -> {
+            e.printStackTrace();
+            showAlert("Erreur", "Erreur: " + e.getMessage());
+        });
     }
 
-    public void loadProducts(TableView<Produit> table) {
-        List<Produit> products = produitDAO.findAll();
-        table.setItems(FXCollections.observableArrayList(products));
+    public void loadClients(Consumer<List<Client>> onLoaded) {
+        tasks.load("clients", clientDAO::findAll, onLoaded);
     }
 
-    public void saveClient(Client c) {
-        clientDAO.save(c);
+    /**
+     * Loads one page of the sales history, most recent first, without the
+     * lines. Pass the cursor of the previous page (or null for the first);
+     * loading the first page again cancels a page still loading.
+     */
+    public void loadHistoryPage(String cursor, Consumer<Page<Vente>> onLoaded) {
+        if (cursor != null && isHistoryLoading())
+            return;
+        tasks.load("historique", () -> venteDAO.findHeaders(cursor, HISTORY_PAGE_SIZE, SortOrder.DESC), onLoaded);
     }
 
-    public List<Client> getAllClients() {
-        return clientDAO.findAll();
+    public boolean isHistoryLoading() {
+        return tasks.isRunning("historique");
     }
 
-    public void loadSalesHistory(TableView<Vente> table) {
-        List<Vente> sales = venteDAO.findAll();
-        table.setItems(FXCollections.observableArrayList(sales));
+    /**
+     * Loads the lines of a sale listed by loadHistoryPage() into it, then
+     * calls {@code onLoaded}. Lines already loaded are not read again.
+     */
+    public void loadSaleLines(Vente v, Runnable onLoaded) {
+        if (!v.getLignes().isEmpty()) {
+            onLoaded.run();
+            return;
+        }
+        tasks.load("lignes", () -> venteDAO.findById(v.getId()).map(Vente::getLignes).orElse(List.of()),
+                lignes -> {
+                    v.setLignes(new ArrayList<>(lignes));
+                    onLoaded.run();
+                });
     }
 
-    public ObservableList<LigneVente> getCartItems() {
+    public ObservableList<LigneVenteRow> getCartItems() {
         return cartItems;
     }
 
     public void addToCart(Produit product, int quantity) {
+        addToCart(product, quantity, this::showAlert);
+    }
+
+    /**
+     * Adds the product, or reports why not through {@code report(title,
+     * content)} and returns false.
+     */
+    private boolean addToCart(Produit product, int quantity, BiConsumer<String, String> report) {
+        if (tasks.isRunning("vente")) {
+            report.accept("Vente en cours", "Attendez la fin de l'enregistrement de la vente.");
+            return false;
+        }
         if (product.getStockActuel() < quantity) {
-            showAlert("Stock Insuffisant", "Pas assez de stock pour ce produit.");
-            return;
+            report.accept("Stock Insuffisant", "Pas assez de stock pour " + product.getNom() + ".");
+            return false;
         }
 
         // Check if already in cart
-        for (LigneVente item : cartItems) {
+        for (LigneVenteRow row : cartItems) {
+            LigneVente item = row.getModel();
             if (item.getProduit().getId().equals(product.getId())) {
                 if (product.getStockActuel() < item.getQuantite() + quantity) {
-                    showAlert("Stock Insuffisant", "Pas assez de stock cumulé.");
-                    return;
+                    report.accept("Stock Insuffisant", "Pas assez de stock cumulé pour " + product.getNom() + ".");
+                    return false;
                 }
                 item.setQuantite(item.getQuantite() + quantity);
                 item.setSousTotal(product.getPrixVente().multiply(BigDecimal.valueOf(item.getQuantite())));
+                row.refresh();
                 view.refreshCart();
-                return;
+                return true;
             }
         }
 
@@ -81,11 +197,54 @@ public class SaleController {
         newLine.setPrixUnitaire(product.getPrixVente());
         newLine.setSousTotal(product.getPrixVente().multiply(BigDecimal.valueOf(quantity)));
 
-        cartItems.add(newLine);
+        cartItems.add(new LigneVenteRow(newLine));
         view.refreshCart();
+        return true;
+    }
+
+    /**
+     * One unit of the product with this barcode, as typed by a keyboard
+     * scanner. Codes of the loaded catalog are resolved in memory; an
+     * unknown code is looked up in the background (product added since the
+     * catalog was loaded) and remembered. Scanning a product again adds
+     * one more unit to its line.
+     *
+     * Problems are shown in red next to the scan field rather than
+     * in a dialog: a dialog would take the focus and swallow the next scan.
+     */
+    public void scan(String code) {
+        String codeBarre = code == null ? "" : code.trim();
+        if (codeBarre.isEmpty())
+            return;
+        ProduitRow known = catalogByCode.get(codeBarre);
+        if (known != null) {
+            scanned(known.getModel(), codeBarre);
+            return;
+        }
+        // One task per scan, so quick scans of other codes are not dropped
+        tasks.submit("scan-" + (++scanCount), () -> produitDAO.findByCodeBarre(codeBarre), found -> {
+            if (found.isEmpty()) {
+                view.showScanError("Code inconnu : aucun produit avec le code barre " + codeBarre + ".");
+                return;
+            }
+            ProduitRow row = catalogByCode.computeIfAbsent(codeBarre, c -> new ProduitRow(found.get()));
+            catalogById.putIfAbsent(row.getModel().getId(), row);
+            scanned(row.getModel(), codeBarre);
+        }, e -> {
+            e.printStackTrace();
+            view.showScanError("Erreur lors de la lecture du code barre " + codeBarre + " : " + e.getMessage());
+        });
+    }
+
+    private void scanned(Produit p, String codeBarre) {
+        if (addToCart(p, 1, (title, content) -> view.showScanError(title + " : " + content))) {
+            view.showScanStatus(p.getNom() + " (" + codeBarre + ")");
+        }
     }
 
     public void checkout(Client client) {
+        if (tasks.isRunning("vente"))
+            return;
         if (cartItems.isEmpty()) {
             showAlert("Panier vide", "Ajoutez des produits avant de valider.");
             return;
@@ -95,7 +254,11 @@ public class SaleController {
         vente.setDateVente(LocalDateTime.now());
         vente.setUtilisateur(currentUser);
         vente.setClient(client);
-        vente.setLignes(new ArrayList<>(cartItems));
+        List<LigneVente> lignes = new ArrayList<>();
+        for (LigneVenteRow row : cartItems) {
+            lignes.add(row.getModel());
+        }
+        vente.setLignes(lignes);
         vente.calculerTotal();
 
         // Save Vente (DAO should handle saving lines and updating stock ideally,
@@ -103,16 +266,26 @@ public class SaleController {
         // For this project, assuming DAO handles complexity or we do it sequentially.
         // Let's do it transactionally ideally, but for now sequentially.
 
-        try {
+        tasks.submit("vente", () -> {
             venteDAO.save(vente);
+            ReportService.salesChanged();
 
+            // Check for low stock alerts
+            return produitDAO.findLowStock();
+        }, lowStock -> {
             cartItems.clear();
             view.refreshCart();
+            // The stock taken shows at once; the reload adds other tills' changes
+            for (LigneVente l : vente.getLignes()) {
+                ProduitRow row = catalogById.get(l.getProduit().getId());
+                if (row != null) {
+                    row.getModel().setStockActuel(row.getModel().getStockActuel() - l.getQuantite());
+                    row.refresh();
+                }
+            }
             view.refreshProductList(); // Reload stock in table
             showAlert("Succès", "Vente enregistrée avec succès !");
 
-            // Check for low stock alerts
-            List<Produit> lowStock = produitDAO.findLowStock();
             if (!lowStock.isEmpty()) {
                 StringBuilder sb = new StringBuilder(
                         "Attention ! Les produits suivants ont atteint le seuil minimal :\n");
@@ -121,10 +294,23 @@ public class SaleController {
                 }
                 showAlert("Alerte Stock Bas", sb.toString());
             }
-        } catch (Exception e) {
+        }, e -> {
+            if (e.getCause() instanceof StockInsuffisantException) {
+                // Another till sold the last units since the catalog was loaded
+                view.refreshProductList();
+                showAlert("Stock Insuffisant", e.getCause().getMessage());
+                return;
+            }
             e.printStackTrace();
             showAlert("Erreur", "Erreur lors de l'enregistrement de la vente.");
-        }
+        });
+    }
+
+    /**
+     * Stops the loads still running for this screen.
+     */
+    public void cancelPending() {
+        tasks.cancelLoads();
     }
 
     private void showAlert(String title, String content) {
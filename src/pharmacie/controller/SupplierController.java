@@ -1,27 +1,29 @@
 package pharmacie.controller;
 
-import javafx.collections.FXCollections;
 import javafx.scene.control.Alert;
 import javafx.scene.control.TableView;
 import pharmacie.dao.interfaces.DAOFactory;
 import pharmacie.dao.interfaces.FournisseurDAO;
 import pharmacie.model.Fournisseur;
+import pharmacie.service.ReportService;
+import pharmacie.view.ListDiff;
 import pharmacie.view.SupplierView;
-
-import java.util.List;
+import pharmacie.view.model.FournisseurRow;
 
 public class SupplierController {
     private SupplierView view;
     private FournisseurDAO fournisseurDAO;
+    private BackgroundTasks tasks;
 
     public SupplierController(SupplierView view) {
         this.view = view;
         this.fournisseurDAO = DAOFactory.getFactory(DAOFactory.Type.MYSQL).getFournisseurDAO();
+        this.tasks = new BackgroundTasks(this::showAlert);
     }
 
-    public void loadData(TableView<Fournisseur> table) {
-        List<Fournisseur> list = fournisseurDAO.findAll();
-        table.setItems(FXCollections.observableArrayList(list));
+    public void loadData(TableView<FournisseurRow> table) {
+        tasks.load("fournisseurs", fournisseurDAO::findAll,
+                list -> ListDiff.updateRows(table, list, Fournisseur::getId, FournisseurRow::new));
     }
 
     public void addSupplier(String nom, String email, String phone, String address) {
@@ -38,14 +40,17 @@ public class SupplierController {
         // Default note
         f.setNotePerformance(0);
 
-        try {
+        tasks.submit("save", () -> {
             fournisseurDAO.save(f);
+            ReportService.suppliersChanged();
+            return f;
+        }, saved -> {
             view.refreshTable();
             showAlert("Succès", "Fournisseur ajouté avec succès.");
-        } catch (Exception e) {
+        }, e -> {
             e.printStackTrace();
             showAlert("Erreur", "Impossible d'ajouter le fournisseur: " + e.getMessage());
-        }
+        });
     }
 
     public void deleteSupplier(Fournisseur f) {
@@ -60,11 +65,14 @@ public class SupplierController {
         confirm.setContentText("Cette action est irréversible.");
 
         if (confirm.showAndWait().get() == javafx.scene.control.ButtonType.OK) {
-            try {
+            tasks.submit("save", () -> {
                 fournisseurDAO.delete(f.getId());
+                ReportService.suppliersChanged();
+                return f;
+            }, deleted -> {
                 view.refreshTable();
                 showAlert("Succès", "Fournisseur supprimé.");
-            } catch (Exception e) {
+            }, e -> {
                 // Check if it's an integrity violation (MySQL error code 1451 or 23000)
                 // Since generic Exception catches it, we check the message or cause
                 String msg = e.getMessage();
@@ -76,10 +84,17 @@ public class SupplierController {
                     e.printStackTrace();
                     showAlert("Erreur", "Erreur lors de la suppression: " + e.getMessage());
                 }
-            }
+            });
         }
     }
 
+    /**
+     * Stops the loads still running for this screen.
+     */
+    public void cancelPending() {
+        tasks.cancelLoads();
+    }
+
     private void showAlert(String title, String content) {
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
         alert.setTitle(title);
@@ -0,0 +1,356 @@
+package pharmacie.dao.cache;
+
+import pharmacie.dao.interfaces.KeysetCursor;
+import pharmacie.dao.interfaces.Page;
+import pharmacie.dao.interfaces.ProductListener;
+import pharmacie.dao.interfaces.ProduitDAO;
+import pharmacie.dao.interfaces.SortOrder;
+import pharmacie.dao.interfaces.StockListener;
+import pharmacie.model.Produit;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Read-through cache of the whole product catalog in front of another
+ * ProduitDAO. The catalog is loaded once, then findAll, findById,
+ * findByCodeBarre, findLowStock and findPage are served from memory with an
+ * id index and a barcode index. Writes go to the underlying DAO first and
+ * then refresh the cached copies; checkout stock changes arrive through
+ * {@link StockListener}. Every change of a cached product, whatever its
+ * origin (local write, change_log refresh), is passed on to the
+ * ProductListeners.
+ *
+ * Callers always get copies, so editing a returned product does not change
+ * the cache until save() is called. The catalog is loaded with loadAll(),
+ * so a failed load is thrown to the reader and tried again by the next
+ * one, instead of being kept as an empty catalog.
+ */
+public class CachingProduitDAO implements ProduitDAO, StockListener {
+    private final ProduitDAO delegate;
+    private final ConcurrentSkipListMap<Long, Produit> byId = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, Long> idByCode = new ConcurrentHashMap<>();
+    private final List<ProductListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean loaded;
+
+    public CachingProduitDAO(ProduitDAO delegate) {
+        this.delegate = delegate;
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            load();
+        }
+    }
+
+    private synchronized void load() {
+        if (loaded)
+            return;
+        putAll(delegate.loadAll());
+        loaded = true;
+    }
+
+    /**
+     * Drops the whole catalog; the next read reloads it.
+     */
+    public synchronized void invalidateAll() {
+        List<Long> ids = new ArrayList<>(byId.keySet());
+        loaded = false;
+        byId.clear();
+        idByCode.clear();
+        fireRemoved(ids);
+    }
+
+    /**
+     * Re-reads one product from the underlying DAO (or forgets it if it no
+     * longer exists).
+     */
+    public synchronized void refresh(Long id) {
+        if (id == null)
+            return;
+        Optional<Produit> fresh = delegate.findById(id);
+        if (fresh.isPresent()) {
+            put(fresh.get());
+        } else {
+            evict(id);
+        }
+    }
+
+    /**
+     * Re-reads the given products with one batched query, typically ids
+     * reported changed by another terminal, and forgets those that no
+     * longer exist. Nothing to do before the catalog is first loaded.
+     *
+     * The read runs under the lock, like refresh(), so two reads of one row
+     * are stored in the order they were made and an older row never
+     * replaces a newer one.
+     */
+    public synchronized void refreshAll(Collection<Long> ids) {
+        if (!loaded || ids.isEmpty())
+            return;
+        Set<Long> missing = new HashSet<>(ids);
+        missing.remove(null);
+        List<Produit> fresh = delegate.findByIds(missing);
+        for (Produit p : fresh) {
+            missing.remove(p.getId());
+        }
+        putAll(fresh);
+        for (Long id : missing) {
+            evict(id);
+        }
+    }
+
+    private void put(Produit p) {
+        putAll(Collections.singletonList(p));
+    }
+
+    /**
+     * Stores copies of the products and tells the listeners once for all.
+     */
+    private void putAll(List<Produit> produits) {
+        if (produits.isEmpty())
+            return;
+        List<Produit> saved = new ArrayList<>(produits.size());
+        for (Produit p : produits) {
+            saved.add(copy(store(p)));
+        }
+        fireSaved(saved);
+    }
+
+    private Produit store(Produit p) {
+        Produit stored = copy(p);
+        Produit previous = byId.put(stored.getId(), stored);
+        if (previous != null && previous.getCodeBarre() != null
+                && !previous.getCodeBarre().equals(stored.getCodeBarre())) {
+            idByCode.remove(previous.getCodeBarre(), previous.getId());
+        }
+        if (stored.getCodeBarre() != null && !stored.getCodeBarre().isEmpty()) {
+            idByCode.put(stored.getCodeBarre(), stored.getId());
+        }
+        return stored;
+    }
+
+    private void fireSaved(List<Produit> saved) {
+        for (ProductListener listener : listeners) {
+            try {
+                listener.productsSaved(saved);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void evict(Long id) {
+        Produit previous = byId.remove(id);
+        if (previous != null && previous.getCodeBarre() != null) {
+            idByCode.remove(previous.getCodeBarre(), id);
+        }
+        if (previous != null)
+            fireRemoved(Collections.singletonList(id));
+    }
+
+    private void fireRemoved(Collection<Long> ids) {
+        if (ids.isEmpty())
+            return;
+        for (ProductListener listener : listeners) {
+            try {
+                listener.productsRemoved(ids);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    public Optional<Produit> findById(Long id) {
+        if (id == null)
+            return Optional.empty();
+        ensureLoaded();
+        Produit p = byId.get(id);
+        if (p == null) {
+            // Maybe created by another client since the catalog was loaded
+            refresh(id);
+            p = byId.get(id);
+        }
+        return Optional.ofNullable(copy(p));
+    }
+
+    @Override
+    public List<Produit> findAll() {
+        ensureLoaded();
+        List<Produit> list = new ArrayList<>(byId.size());
+        for (Produit p : byId.values()) {
+            list.add(copy(p));
+        }
+        return list;
+    }
+
+    @Override
+    public Page<Produit> findPage(String cursor, int limit, SortOrder sort) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("La taille de page doit être positive.");
+        }
+        ensureLoaded();
+        KeysetCursor after = cursor == null ? null : KeysetCursor.decode(cursor, sort);
+        NavigableSet<Long> ids = sort == SortOrder.DESC ? byId.descendingKeySet() : byId.navigableKeySet();
+        if (after != null) {
+            ids = ids.tailSet(after.getId(), false);
+        }
+        List<Produit> items = new ArrayList<>();
+        Long lastId = null;
+        for (Long id : ids) {
+            Produit p = byId.get(id);
+            if (p == null)
+                continue;
+            if (items.size() == limit) {
+                return new Page<>(items, new KeysetCursor(sort, null, lastId).encode());
+            }
+            items.add(copy(p));
+            lastId = id;
+        }
+        return new Page<>(items, null);
+    }
+
+    @Override
+    public Optional<Produit> findByCodeBarre(String codeBarre) {
+        if (codeBarre == null)
+            return Optional.empty();
+        ensureLoaded();
+        Long id = idByCode.get(codeBarre);
+        if (id != null) {
+            return findById(id);
+        }
+        // Unknown barcode: ask the database once, it may be a product added elsewhere
+        Optional<Produit> found = delegate.findByCodeBarre(codeBarre);
+        found.ifPresent(this::putSynchronized);
+        return found;
+    }
+
+    @Override
+    public List<Produit> loadAll() {
+        return findAll();
+    }
+
+    @Override
+    public List<Produit> findByIds(Collection<Long> ids) {
+        ensureLoaded();
+        List<Produit> list = new ArrayList<>();
+        List<Long> unknown = new ArrayList<>();
+        for (Long id : new HashSet<>(ids)) {
+            Produit p = id == null ? null : byId.get(id);
+            if (p != null) {
+                list.add(copy(p));
+            } else if (id != null) {
+                unknown.add(id);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            // Maybe created by another client since the catalog was loaded
+            List<Produit> found = delegate.findByIds(unknown);
+            synchronized (this) {
+                putAll(found);
+            }
+            list.addAll(found);
+        }
+        return list;
+    }
+
+    @Override
+    public List<Produit> findLowStock() {
+        ensureLoaded();
+        List<Produit> list = new ArrayList<>();
+        for (Produit p : byId.values()) {
+            if (p.getStockActuel() < p.getSeuilMin()) {
+                list.add(copy(p));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void save(Produit entity) {
+        delegate.save(entity);
+        // The MySQL DAO logs and swallows update errors, so re-read instead of
+        // trusting the entity
+        refresh(entity.getId());
+    }
+
+    @Override
+    public void delete(Long id) {
+        try {
+            delegate.delete(id);
+        } finally {
+            refresh(id);
+        }
+    }
+
+    @Override
+    public void saveAll(Collection<Produit> entities) {
+        try {
+            delegate.saveAll(entities);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                for (Produit p : entities) {
+                    if (p.getId() != null)
+                        evict(p.getId());
+                }
+            }
+            throw e;
+        }
+        synchronized (this) {
+            putAll(new ArrayList<>(entities));
+        }
+    }
+
+    @Override
+    public void deleteAll(Collection<Long> ids) {
+        delegate.deleteAll(ids);
+        synchronized (this) {
+            for (Long id : ids) {
+                evict(id);
+            }
+        }
+    }
+
+    /**
+     * Re-reads the products whose stock a checkout or an order receipt has
+     * just committed. Storing the committed rows, rather than adding the
+     * quantities to the cached copies, keeps the stock right whichever of
+     * this and the change_log refresh of the same rows runs first.
+     */
+    @Override
+    public void stockChanged(Set<Long> produitIds) {
+        refreshAll(produitIds);
+    }
+
+    /**
+     * Listens to this cache only: it already passes on the writes of the
+     * underlying DAO.
+     */
+    @Override
+    public void addProductListener(ProductListener listener) {
+        listeners.add(listener);
+    }
+
+    private synchronized void putSynchronized(Produit p) {
+        put(p);
+    }
+
+    private static Produit copy(Produit p) {
+        if (p == null)
+            return null;
+        Produit c = new Produit(p.getId(), p.getNom(), p.getPrixAchat(), p.getPrixVente(), p.getStockActuel(),
+                p.getSeuilMin(), p.getCodeBarre());
+        c.setDescription(p.getDescription());
+        return c;
+    }
+}
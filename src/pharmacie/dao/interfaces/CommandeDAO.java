@@ -2,8 +2,27 @@ package pharmacie.dao.interfaces;
 
 import pharmacie.model.Commande;
 import pharmacie.model.StatutCommande;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface CommandeDAO extends GenericDAO<Commande, Long> {
     List<Commande> findByStatut(StatutCommande statut);
+
+    /**
+     * Marks the order received and adds the quantities of its stored lines
+     * to the stock of their products, in one transaction. The stock is
+     * incremented in place (stock_actuel + quantite), so what other terminals
+     * sold meanwhile is kept. Returns false, changing nothing, if the order
+     * does not exist or is no longer pending (received or cancelled, maybe
+     * on another terminal).
+     */
+    boolean receive(Long commandeId);
+
+    /**
+     * Spending per supplier, summed by the database over the order lines at
+     * the products' current purchase price, biggest first. Every filter is
+     * optional (null): order status, and creation date range.
+     */
+    List<ExpenditureAggregate> aggregateExpenditure(StatutCommande statut, LocalDateTime start, LocalDateTime end);
 }
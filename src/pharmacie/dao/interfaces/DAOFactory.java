@@ -22,6 +22,9 @@ public abstract class DAOFactory {
         if (type == Type.MYSQL) {
             return new pharmacie.dao.mysql.MySQLDAOFactory();
         }
+        if (type == Type.MEMORY) {
+            return pharmacie.dao.memory.MemoryDAOFactory.getInstance();
+        }
         return null; // Handle other types
     }
 }
@@ -0,0 +1,37 @@
+package pharmacie.dao.interfaces;
+
+import java.math.BigDecimal;
+
+/**
+ * Purchase spending with one supplier: sum of quantite * prix_achat over
+ * the lines of its orders, and the number of orders.
+ */
+public class ExpenditureAggregate {
+    private final Long fournisseurId;
+    private final String fournisseurNom;
+    private final BigDecimal total;
+    private final long nombreCommandes;
+
+    public ExpenditureAggregate(Long fournisseurId, String fournisseurNom, BigDecimal total, long nombreCommandes) {
+        this.fournisseurId = fournisseurId;
+        this.fournisseurNom = fournisseurNom;
+        this.total = total;
+        this.nombreCommandes = nombreCommandes;
+    }
+
+    public Long getFournisseurId() {
+        return fournisseurId;
+    }
+
+    public String getFournisseurNom() {
+        return fournisseurNom;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public long getNombreCommandes() {
+        return nombreCommandes;
+    }
+}
@@ -1,5 +1,6 @@
 package pharmacie.dao.interfaces;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +15,14 @@ public interface GenericDAO<T, ID> {
 
     List<T> findAll();
 
+    /**
+     * Keyset pagination: returns at most {@code limit} entities after the
+     * position encoded in {@code cursor} (null for the first page). Each DAO
+     * pages on its natural key (creation date then id for sales and orders,
+     * id otherwise), so the cost of a page does not depend on its position.
+     */
+    Page<T> findPage(String cursor, int limit, SortOrder sort);
+
     /**
      * Saves the entity. If it's new (ID is null or 0), inserts it. Otherwise
      * updates it.
@@ -21,4 +30,17 @@ public interface GenericDAO<T, ID> {
     void save(T entity);
 
     void delete(ID id);
+
+    /**
+     * Saves all entities in one transaction with batched statements. New
+     * entities are inserted with multi-row INSERTs and get their generated
+     * id back, existing ones are updated.
+     */
+    void saveAll(Collection<T> entities);
+
+    /**
+     * Deletes all given ids in one transaction, applying the same rules as
+     * {@link #delete(Object)}.
+     */
+    void deleteAll(Collection<ID> ids);
 }
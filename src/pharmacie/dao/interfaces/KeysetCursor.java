@@ -0,0 +1,58 @@
+package pharmacie.dao.interfaces;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a page: its sort date (if the listing is
+ * ordered by date) and its id. Encoded as an opaque URL-safe string that
+ * DAO implementations hand out as {@link Page#getNextCursor()}.
+ */
+public final class KeysetCursor {
+    private final SortOrder sort;
+    private final LocalDateTime date;
+    private final long id;
+
+    public KeysetCursor(SortOrder sort, LocalDateTime date, long id) {
+        this.sort = sort;
+        this.date = date;
+        this.id = id;
+    }
+
+    public SortOrder getSort() {
+        return sort;
+    }
+
+    /**
+     * Sort date of the last row, or null when the listing is ordered by id.
+     */
+    public LocalDateTime getDate() {
+        return date;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = sort.name() + "|" + (date == null ? "" : date.toString()) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor, SortOrder expected) {
+        KeysetCursor decoded;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            LocalDateTime date = parts[1].isEmpty() ? null : LocalDateTime.parse(parts[1]);
+            decoded = new KeysetCursor(SortOrder.valueOf(parts[0]), date, Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide: " + cursor, e);
+        }
+        if (decoded.sort != expected) {
+            throw new IllegalArgumentException("Curseur créé pour un autre ordre de tri.");
+        }
+        return decoded;
+    }
+}
@@ -0,0 +1,22 @@
+package pharmacie.dao.interfaces;
+
+import pharmacie.model.Produit;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Told about the products written or removed through a ProduitDAO of this
+ * process (and, behind the catalog cache, about those changed by other
+ * terminals), so in-memory indexes can follow the catalog without
+ * reloading it. Stock changed by checkouts and order receipts is reported
+ * by the catalog cache only.
+ */
+public interface ProductListener {
+    /**
+     * Called after commit with copies of the stored products.
+     */
+    void productsSaved(List<Produit> produits);
+
+    void productsRemoved(Collection<Long> ids);
+}
@@ -1,6 +1,7 @@
 package pharmacie.dao.interfaces;
 
 import pharmacie.model.Produit;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -8,4 +9,24 @@ public interface ProduitDAO extends GenericDAO<Produit, Long> {
     Optional<Produit> findByCodeBarre(String codeBarre);
 
     List<Produit> findLowStock();
+
+    /**
+     * The products of the given ids that still exist, read in as few queries
+     * as possible. Unlike findById, a read error is thrown rather than
+     * reported as "not found".
+     */
+    List<Produit> findByIds(Collection<Long> ids);
+
+    /**
+     * Every product, like findAll(), except that a read error is thrown
+     * rather than returned as an empty catalog. For caches, which would
+     * otherwise keep that empty catalog.
+     */
+    List<Produit> loadAll();
+
+    /**
+     * Registers a listener told about the products saved or deleted from
+     * now on through this DAO.
+     */
+    void addProductListener(ProductListener listener);
 }
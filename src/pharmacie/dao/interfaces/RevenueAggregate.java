@@ -0,0 +1,35 @@
+package pharmacie.dao.interfaces;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One row of a revenue aggregate: sum of sale totals and number of sales,
+ * for one period or for the whole range.
+ */
+public class RevenueAggregate {
+    private final LocalDate periode;
+    private final BigDecimal total;
+    private final long nombreVentes;
+
+    public RevenueAggregate(LocalDate periode, BigDecimal total, long nombreVentes) {
+        this.periode = periode;
+        this.total = total;
+        this.nombreVentes = nombreVentes;
+    }
+
+    /**
+     * First day of the period, or null when the aggregate is not grouped.
+     */
+    public LocalDate getPeriode() {
+        return periode;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public long getNombreVentes() {
+        return nombreVentes;
+    }
+}
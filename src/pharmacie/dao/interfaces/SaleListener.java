@@ -0,0 +1,22 @@
+package pharmacie.dao.interfaces;
+
+import pharmacie.model.Vente;
+
+import java.util.List;
+
+/**
+ * Told about every new sale committed through a VenteDAO of this process,
+ * with its lines, so in-memory statistics can follow checkouts without
+ * querying the sale tables. With the MySQL backend, the sales of other
+ * terminals sharing the database follow within one change_log polling
+ * interval.
+ */
+public interface SaleListener {
+    /**
+     * Called after commit, on the thread that saved the sales, or on the
+     * change_log polling thread for another terminal's sales. A sale is
+     * normally reported once; a listener that reloads from the database
+     * may still get one it has just read.
+     */
+    void salesRecorded(List<Vente> ventes);
+}
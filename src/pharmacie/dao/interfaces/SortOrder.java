@@ -0,0 +1,9 @@
+package pharmacie.dao.interfaces;
+
+/**
+ * Direction of a paged listing.
+ */
+public enum SortOrder {
+    ASC,
+    DESC
+}
@@ -0,0 +1,17 @@
+package pharmacie.dao.interfaces;
+
+import java.util.Set;
+
+/**
+ * Told about stock changes committed outside ProduitDAO (checkout, order
+ * receipt), so a product cache can re-read those products instead of
+ * reloading the catalog.
+ */
+public interface StockListener {
+    /**
+     * Called after commit.
+     *
+     * @param produitIds products whose stock_actuel changed
+     */
+    void stockChanged(Set<Long> produitIds);
+}
@@ -0,0 +1,10 @@
+package pharmacie.dao.interfaces;
+
+/**
+ * Period used to group aggregate queries.
+ */
+public enum TimeBucket {
+    DAY,
+    MONTH,
+    YEAR
+}
@@ -1,9 +1,69 @@
 package pharmacie.dao.interfaces;
 
 import pharmacie.model.Vente;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface VenteDAO extends GenericDAO<Vente, Long> {
     List<Vente> findByPeriod(LocalDateTime start, LocalDateTime end);
+
+    /**
+     * One page of a client's purchases, most recent first. Served by the
+     * (client_id, date_vente) index.
+     */
+    Page<Vente> findByClient(Long clientId, String cursor, int limit);
+
+    /**
+     * Same paging as findPage() but without the lines: each sale comes with
+     * its total, client and seller only. For listings that show the lines
+     * of one sale at a time (read them with findById).
+     */
+    Page<Vente> findHeaders(String cursor, int limit, SortOrder sort);
+
+    /**
+     * Walks every sale of the period (with its lines) in date order, handing
+     * them one at a time to {@code visitor} without keeping them in memory.
+     * Meant for exports and analytics over large ranges. The visitor must not
+     * hold on to the DAO's connection; resources are closed on return or error.
+     */
+    void streamByPeriod(LocalDateTime start, LocalDateTime end, Consumer<Vente> visitor);
+
+    /**
+     * SUM(total) and COUNT(*) of the sales between start and end (either may
+     * be null for an open range), computed by the database without loading
+     * any sale. Returns a single row when {@code bucket} is null, otherwise
+     * one row per day, month or year that has sales, oldest first.
+     */
+    List<RevenueAggregate> aggregateRevenue(LocalDateTime start, LocalDateTime end, TimeBucket bucket);
+
+    /**
+     * Rows of the ventes_jour rollup between two days (inclusive), ordered by
+     * day then product. The rollup is kept up to date by save/delete, so
+     * this never scans ligne_vente. A read error is thrown rather than
+     * returned as an empty rollup.
+     */
+    List<VenteJour> findDailySales(LocalDate start, LocalDate end);
+
+    /**
+     * Recomputes the whole ventes_jour rollup from the sale lines, for the
+     * initial backfill or after a manual correction of the history.
+     */
+    void rebuildDailySales();
+
+    /**
+     * Units and revenue per product between two days (inclusive, either may
+     * be null for an open range), summed from the ventes_jour rollup. Only
+     * the given products when {@code produitIds} is not null; products
+     * without sales are left out.
+     */
+    List<VentesProduit> sumSalesByProduit(LocalDate start, LocalDate end, Collection<Long> produitIds);
+
+    /**
+     * Registers a listener told about the new sales saved from now on by
+     * any VenteDAO of the same factory (and, with MySQL, by other terminals).
+     */
+    void addSaleListener(SaleListener listener);
 }
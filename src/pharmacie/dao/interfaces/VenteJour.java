@@ -0,0 +1,46 @@
+package pharmacie.dao.interfaces;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One row of the ventes_jour rollup: what one product sold on one day.
+ */
+public class VenteJour {
+    private final LocalDate jour;
+    private final Long produitId;
+    private final long quantite;
+    private final BigDecimal chiffreAffaires;
+    private final BigDecimal marge;
+
+    public VenteJour(LocalDate jour, Long produitId, long quantite, BigDecimal chiffreAffaires, BigDecimal marge) {
+        this.jour = jour;
+        this.produitId = produitId;
+        this.quantite = quantite;
+        this.chiffreAffaires = chiffreAffaires;
+        this.marge = marge;
+    }
+
+    public LocalDate getJour() {
+        return jour;
+    }
+
+    public Long getProduitId() {
+        return produitId;
+    }
+
+    public long getQuantite() {
+        return quantite;
+    }
+
+    public BigDecimal getChiffreAffaires() {
+        return chiffreAffaires;
+    }
+
+    /**
+     * Sales minus purchase cost (prix_achat of each line, as at checkout).
+     */
+    public BigDecimal getMarge() {
+        return marge;
+    }
+}
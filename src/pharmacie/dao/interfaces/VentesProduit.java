@@ -0,0 +1,30 @@
+package pharmacie.dao.interfaces;
+
+import java.math.BigDecimal;
+
+/**
+ * What one product sold over a period: units and revenue.
+ */
+public class VentesProduit {
+    private final Long produitId;
+    private final long quantite;
+    private final BigDecimal chiffreAffaires;
+
+    public VentesProduit(Long produitId, long quantite, BigDecimal chiffreAffaires) {
+        this.produitId = produitId;
+        this.quantite = quantite;
+        this.chiffreAffaires = chiffreAffaires;
+    }
+
+    public Long getProduitId() {
+        return produitId;
+    }
+
+    public long getQuantite() {
+        return quantite;
+    }
+
+    public BigDecimal getChiffreAffaires() {
+        return chiffreAffaires;
+    }
+}
@@ -0,0 +1,181 @@
+package pharmacie.dao.memory;
+
+import pharmacie.dao.interfaces.KeysetCursor;
+import pharmacie.dao.interfaces.Page;
+import pharmacie.dao.interfaces.SortOrder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Base of the in-memory DAOs. Rows are private snapshots (see
+ * {@link Snapshots}) kept in a concurrent map ordered by id: reads never
+ * lock, writes are serialized per table so a row and its secondary indexes
+ * always change together, and a batch is validated as a whole before any
+ * row is touched.
+ *
+ * @param <T> The entity type
+ */
+abstract class AbstractMemoryDAO<T> {
+    protected final ConcurrentSkipListMap<Long, T> rows = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    protected abstract Long idOf(T entity);
+
+    protected abstract void assignId(T entity, Long id);
+
+    protected abstract T copy(T entity);
+
+    /**
+     * Checks the table constraints for a batch about to be saved and throws
+     * if one is violated. Called with the table lock held.
+     */
+    protected void validate(Collection<T> entities) {
+    }
+
+    /**
+     * Updates the secondary indexes for a stored row. {@code previous} is the
+     * row it replaces, or null for an insert.
+     */
+    protected void index(T stored, T previous) {
+    }
+
+    protected void unindex(T removed) {
+    }
+
+    /**
+     * Checks that the rows can be deleted (stock left, referencing rows...).
+     */
+    protected void checkDelete(Collection<Long> ids) {
+    }
+
+    /**
+     * Applies the ON DELETE rules of the other tables once the rows are gone.
+     */
+    protected void afterDelete(Collection<Long> ids) {
+    }
+
+    public Optional<T> findById(Long id) {
+        if (id == null)
+            return Optional.empty();
+        return Optional.ofNullable(copy(rows.get(id)));
+    }
+
+    public List<T> findAll() {
+        List<T> list = new ArrayList<>(rows.size());
+        for (T row : rows.values()) {
+            list.add(copy(row));
+        }
+        return list;
+    }
+
+    public Page<T> findPage(String cursor, int limit, SortOrder sort) {
+        checkLimit(limit);
+        KeysetCursor after = cursor == null ? null : KeysetCursor.decode(cursor, sort);
+        NavigableSet<Long> ids = sort == SortOrder.DESC ? rows.descendingKeySet() : rows.navigableKeySet();
+        if (after != null) {
+            ids = ids.tailSet(after.getId(), false);
+        }
+        return page(ids, limit, sort, null);
+    }
+
+    public void save(T entity) {
+        saveAll(Collections.singletonList(entity));
+    }
+
+    public void delete(Long id) {
+        deleteAll(Collections.singletonList(id));
+    }
+
+    public synchronized void saveAll(Collection<T> entities) {
+        if (entities.isEmpty())
+            return;
+        validate(entities);
+        for (T entity : entities) {
+            store(entity);
+        }
+    }
+
+    public synchronized void deleteAll(Collection<Long> ids) {
+        if (ids.isEmpty())
+            return;
+        checkDelete(ids);
+        for (Long id : ids) {
+            T removed = rows.remove(id);
+            if (removed != null) {
+                unindex(removed);
+            }
+        }
+        afterDelete(ids);
+    }
+
+    /**
+     * Inserts (new id from the table sequence, written back to the caller's
+     * object) or updates one row. Updating an id that does not exist is a
+     * no-op, like an UPDATE matching no row.
+     */
+    protected void store(T entity) {
+        Long id = idOf(entity);
+        if (id == null) {
+            id = sequence.incrementAndGet();
+            assignId(entity, id);
+        } else if (!rows.containsKey(id)) {
+            return;
+        }
+        T stored = copy(entity);
+        T previous = rows.put(id, stored);
+        index(stored, previous);
+    }
+
+    /**
+     * Builds one page from ids already in page order: at most {@code limit}
+     * rows, plus a cursor on the last one if more follow. Ids whose row was
+     * deleted meanwhile are skipped.
+     */
+    protected Page<T> page(Iterable<Long> orderedIds, int limit, SortOrder sort, Function<T, LocalDateTime> dateOf) {
+        List<T> items = new ArrayList<>();
+        T last = null;
+        boolean more = false;
+        for (Long id : orderedIds) {
+            T row = rows.get(id);
+            if (row == null)
+                continue;
+            if (items.size() == limit) {
+                more = true;
+                break;
+            }
+            items.add(copy(row));
+            last = row;
+        }
+        String next = null;
+        if (more) {
+            next = new KeysetCursor(sort, dateOf == null ? null : dateOf.apply(last), idOf(last)).encode();
+        }
+        return new Page<>(items, next);
+    }
+
+    protected List<T> copies(Iterable<Long> ids) {
+        List<T> list = new ArrayList<>();
+        for (Long id : ids) {
+            T row = rows.get(id);
+            if (row != null) {
+                list.add(copy(row));
+            }
+        }
+        return list;
+    }
+
+    protected static void checkLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("La taille de page doit être positive.");
+        }
+    }
+}
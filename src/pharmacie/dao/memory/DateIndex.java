@@ -0,0 +1,82 @@
+package pharmacie.dao.memory;
+
+import pharmacie.dao.interfaces.KeysetCursor;
+import pharmacie.dao.interfaces.SortOrder;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Ordered (date, id) index, the in-memory counterpart of the
+ * idx_vente_date / idx_commande_date indexes. Serves period queries and
+ * date-sorted keyset pages without scanning the table.
+ */
+final class DateIndex {
+    private static final Comparator<Key> ORDER = Comparator.comparing((Key k) -> k.date)
+            .thenComparingLong(k -> k.id);
+
+    private final ConcurrentSkipListSet<Key> keys = new ConcurrentSkipListSet<>(ORDER);
+    private final ConcurrentHashMap<Long, Key> keyById = new ConcurrentHashMap<>();
+
+    void put(Long id, LocalDateTime date) {
+        Key key = new Key(date == null ? LocalDateTime.MIN : date, id);
+        Key old = keyById.put(id, key);
+        if (old != null && ORDER.compare(old, key) != 0) {
+            keys.remove(old);
+        }
+        keys.add(key);
+    }
+
+    void remove(Long id) {
+        Key old = keyById.remove(id);
+        if (old != null) {
+            keys.remove(old);
+        }
+    }
+
+    boolean isEmpty() {
+        return keyById.isEmpty();
+    }
+
+    /**
+     * Ids dated between start and end (both inclusive), oldest first.
+     */
+    Iterable<Long> between(LocalDateTime start, LocalDateTime end) {
+        if (start.isAfter(end)) {
+            return Collections.emptyList();
+        }
+        NavigableSet<Key> range = keys.subSet(new Key(start, Long.MIN_VALUE), true, new Key(end, Long.MAX_VALUE),
+                true);
+        return () -> range.stream().map(k -> k.id).iterator();
+    }
+
+    /**
+     * Ids in {@code sort} order, starting right after {@code after} (or from
+     * the first entry when null).
+     */
+    Iterable<Long> after(KeysetCursor after, SortOrder sort) {
+        NavigableSet<Key> view = sort == SortOrder.DESC ? keys.descendingSet() : keys;
+        if (after != null) {
+            if (after.getDate() == null) {
+                throw new IllegalArgumentException("Curseur de pagination invalide: date manquante.");
+            }
+            view = view.tailSet(new Key(after.getDate(), after.getId()), false);
+        }
+        NavigableSet<Key> tail = view;
+        return () -> tail.stream().map(k -> k.id).iterator();
+    }
+
+    private static final class Key {
+        private final LocalDateTime date;
+        private final long id;
+
+        private Key(LocalDateTime date, long id) {
+            this.date = date;
+            this.id = id;
+        }
+    }
+}
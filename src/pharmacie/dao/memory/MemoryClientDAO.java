@@ -0,0 +1,80 @@
+package pharmacie.dao.memory;
+
+import pharmacie.dao.interfaces.ClientDAO;
+import pharmacie.exception.ValidationException;
+import pharmacie.model.Client;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+public class MemoryClientDAO extends AbstractMemoryDAO<Client> implements ClientDAO {
+    private final MemoryDAOFactory store;
+    private final UniqueIndex cartesVitale = new UniqueIndex();
+    final UniqueIndex telephones = new UniqueIndex();
+
+    MemoryClientDAO(MemoryDAOFactory store) {
+        this.store = store;
+    }
+
+    @Override
+    protected Long idOf(Client entity) {
+        return entity.getId();
+    }
+
+    @Override
+    protected void assignId(Client entity, Long id) {
+        entity.setId(id);
+    }
+
+    @Override
+    protected Client copy(Client entity) {
+        return Snapshots.copy(entity);
+    }
+
+    @Override
+    public void saveAll(Collection<Client> entities) {
+        synchronized (store.phoneLock) {
+            super.saveAll(entities);
+        }
+    }
+
+    @Override
+    protected void validate(Collection<Client> entities) {
+        store.checkPhones(entities, Client::getTelephone, Client::getId, telephones, store.fournisseurDAO.telephones);
+
+        Set<String> batch = new HashSet<>();
+        for (Client c : entities) {
+            String carte = UniqueIndex.normalize(c.getCarteVitale());
+            if (carte == null)
+                continue;
+            if (!batch.add(carte) || cartesVitale.isTakenByOther(carte, c.getId())) {
+                throw new ValidationException("La carte vitale " + carte + " est déjà enregistrée pour un autre client.");
+            }
+        }
+    }
+
+    @Override
+    protected void index(Client stored, Client previous) {
+        cartesVitale.put(stored.getId(), stored.getCarteVitale());
+        telephones.put(stored.getId(), stored.getTelephone());
+    }
+
+    @Override
+    protected void unindex(Client removed) {
+        cartesVitale.remove(removed.getId());
+        telephones.remove(removed.getId());
+    }
+
+    @Override
+    protected void afterDelete(Collection<Long> ids) {
+        // vente.client_id is ON DELETE SET NULL
+        store.venteDAO.detachClients(new HashSet<>(ids));
+    }
+
+    @Override
+    public Optional<Client> findByCarteVitale(String carteVitale) {
+        return findById(cartesVitale.get(carteVitale));
+    }
+}
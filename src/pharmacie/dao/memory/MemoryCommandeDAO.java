@@ -0,0 +1,190 @@
+package pharmacie.dao.memory;
+
+import pharmacie.dao.interfaces.CommandeDAO;
+import pharmacie.dao.interfaces.ExpenditureAggregate;
+import pharmacie.dao.interfaces.KeysetCursor;
+import pharmacie.dao.interfaces.Page;
+import pharmacie.dao.interfaces.SortOrder;
+import pharmacie.model.Commande;
+import pharmacie.model.Fournisseur;
+import pharmacie.model.LigneCommande;
+import pharmacie.model.Produit;
+import pharmacie.model.StatutCommande;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MemoryCommandeDAO extends AbstractMemoryDAO<Commande> implements CommandeDAO {
+    private final MemoryDAOFactory store;
+    private final AtomicLong ligneSequence = new AtomicLong();
+    private final DateIndex dates = new DateIndex();
+    private final ConcurrentHashMap<StatutCommande, Set<Long>> statuts = new ConcurrentHashMap<>();
+
+    MemoryCommandeDAO(MemoryDAOFactory store) {
+        this.store = store;
+    }
+
+    @Override
+    protected Long idOf(Commande entity) {
+        return entity.getId();
+    }
+
+    @Override
+    protected void assignId(Commande entity, Long id) {
+        entity.setId(id);
+    }
+
+    @Override
+    protected Commande copy(Commande entity) {
+        return Snapshots.copy(entity);
+    }
+
+    @Override
+    protected void validate(Collection<Commande> entities) {
+        for (Commande c : entities) {
+            if (c.getFournisseur() == null || c.getFournisseur().getId() == null
+                    || !store.fournisseurDAO.rows.containsKey(c.getFournisseur().getId())) {
+                throw new RuntimeException("Erreur lors de l'enregistrement de la commande: fournisseur inconnu.");
+            }
+        }
+    }
+
+    @Override
+    protected void store(Commande entity) {
+        // Lines are rewritten on every save, as the MySQL DAO deletes and reinserts them
+        for (LigneCommande lc : entity.getLignes()) {
+            lc.setId(ligneSequence.incrementAndGet());
+        }
+        super.store(entity);
+    }
+
+    @Override
+    protected void index(Commande stored, Commande previous) {
+        dates.put(stored.getId(), stored.getDateCreation());
+        if (previous != null && previous.getStatut() != stored.getStatut()) {
+            statutSet(previous.getStatut()).remove(stored.getId());
+        }
+        statutSet(stored.getStatut()).add(stored.getId());
+    }
+
+    @Override
+    protected void unindex(Commande removed) {
+        dates.remove(removed.getId());
+        statutSet(removed.getStatut()).remove(removed.getId());
+    }
+
+    private Set<Long> statutSet(StatutCommande statut) {
+        return statuts.computeIfAbsent(statut, s -> ConcurrentHashMap.newKeySet());
+    }
+
+    @Override
+    public List<Commande> findAll() {
+        return copies(dates.after(null, SortOrder.DESC));
+    }
+
+    @Override
+    public Page<Commande> findPage(String cursor, int limit, SortOrder sort) {
+        checkLimit(limit);
+        KeysetCursor after = cursor == null ? null : KeysetCursor.decode(cursor, sort);
+        return page(dates.after(after, sort), limit, sort, Commande::getDateCreation);
+    }
+
+    @Override
+    public List<Commande> findByStatut(StatutCommande statut) {
+        Set<Long> ids = statuts.get(statut);
+        if (ids == null)
+            return new ArrayList<>();
+        return copies(new TreeSet<>(ids));
+    }
+
+    @Override
+    public synchronized boolean receive(Long commandeId) {
+        Commande c = commandeId == null ? null : rows.get(commandeId);
+        if (c == null || c.getStatut() != StatutCommande.EN_ATTENTE)
+            return false;
+        Map<Long, Integer> quantites = new HashMap<>();
+        for (LigneCommande lc : c.getLignes()) {
+            quantites.merge(lc.getProduit().getId(), lc.getQuantite(), Integer::sum);
+        }
+        store.produitDAO.incrementStock(quantites);
+        // Lines are kept as they are, only the status changes
+        Commande updated = copy(c);
+        updated.setStatut(StatutCommande.RECUE);
+        index(updated, rows.put(commandeId, updated));
+        return true;
+    }
+
+    @Override
+    public List<ExpenditureAggregate> aggregateExpenditure(StatutCommande statut, LocalDateTime start,
+            LocalDateTime end) {
+        Map<Long, BigDecimal> totals = new HashMap<>();
+        Map<Long, Long> counts = new HashMap<>();
+        for (Commande c : rows.values()) {
+            if (statut != null && c.getStatut() != statut)
+                continue;
+            if (start != null && c.getDateCreation().isBefore(start))
+                continue;
+            if (end != null && c.getDateCreation().isAfter(end))
+                continue;
+            // Current purchase price, as the SQL join on produit
+            BigDecimal total = BigDecimal.ZERO;
+            for (LigneCommande lc : c.getLignes()) {
+                Produit p = store.produitDAO.rows.get(lc.getProduit().getId());
+                if (p != null && p.getPrixAchat() != null) {
+                    total = total.add(p.getPrixAchat().multiply(BigDecimal.valueOf(lc.getQuantite())));
+                }
+            }
+            Long fournisseurId = c.getFournisseur().getId();
+            totals.merge(fournisseurId, total, BigDecimal::add);
+            counts.merge(fournisseurId, 1L, Long::sum);
+        }
+
+        List<ExpenditureAggregate> list = new ArrayList<>();
+        for (Map.Entry<Long, BigDecimal> e : totals.entrySet()) {
+            Fournisseur f = store.fournisseurDAO.rows.get(e.getKey());
+            if (f == null)
+                continue;
+            list.add(new ExpenditureAggregate(e.getKey(), f.getNom(), e.getValue(), counts.get(e.getKey())));
+        }
+        list.sort((a, b) -> b.getTotal().compareTo(a.getTotal()));
+        return list;
+    }
+
+    /**
+     * Drops the lines of deleted products (cascade from produit).
+     */
+    void removeProductLines(Set<Long> produitIds) {
+        rows.replaceAll((id, c) -> {
+            boolean touched = false;
+            for (LigneCommande lc : c.getLignes()) {
+                touched |= produitIds.contains(lc.getProduit().getId());
+            }
+            if (!touched)
+                return c;
+            Commande updated = copy(c);
+            updated.getLignes().removeIf(lc -> produitIds.contains(lc.getProduit().getId()));
+            return updated;
+        });
+    }
+
+    /**
+     * Returns one of the given suppliers that still has orders, or null.
+     */
+    Long findReferencedFournisseur(Set<Long> fournisseurIds) {
+        for (Commande c : rows.values()) {
+            if (fournisseurIds.contains(c.getFournisseur().getId())) {
+                return c.getFournisseur().getId();
+            }
+        }
+        return null;
+    }
+}
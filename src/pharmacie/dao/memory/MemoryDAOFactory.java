@@ -0,0 +1,92 @@
+package pharmacie.dao.memory;
+
+import pharmacie.dao.interfaces.*;
+import pharmacie.exception.ValidationException;
+import pharmacie.util.ValidationUtils;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-memory backend: every table lives in concurrent maps of this process.
+ * Used for demos, tests and benchmarks without a MySQL server. There is a
+ * single store per JVM, so all callers of getInstance() see the same data.
+ */
+public class MemoryDAOFactory extends DAOFactory {
+    private static final MemoryDAOFactory INSTANCE = new MemoryDAOFactory();
+
+    // Held around client and supplier writes: phone numbers are unique across both tables
+    final Object phoneLock = new Object();
+
+    final MemoryUtilisateurDAO utilisateurDAO = new MemoryUtilisateurDAO(this);
+    final MemoryProduitDAO produitDAO = new MemoryProduitDAO(this);
+    final MemoryFournisseurDAO fournisseurDAO = new MemoryFournisseurDAO(this);
+    final MemoryClientDAO clientDAO = new MemoryClientDAO(this);
+    final MemoryCommandeDAO commandeDAO = new MemoryCommandeDAO(this);
+    final MemoryVenteDAO venteDAO = new MemoryVenteDAO(this);
+
+    private MemoryDAOFactory() {
+    }
+
+    public static MemoryDAOFactory getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Phone rules of the client and supplier tables, checked for a whole
+     * batch: valid format, no duplicate inside the batch, and not used by
+     * another row of either table. Call with phoneLock held.
+     */
+    <T> void checkPhones(Collection<T> entities, Function<T, String> phoneOf, Function<T, Long> idOf,
+            UniqueIndex own, UniqueIndex other) {
+        Map<String, Long> phones = new HashMap<>();
+        for (T entity : entities) {
+            ValidationUtils.validatePhone(phoneOf.apply(entity));
+            String phone = UniqueIndex.normalize(phoneOf.apply(entity));
+            if (phone == null)
+                continue;
+            if (phones.containsKey(phone)) {
+                throw new ValidationException("Le numéro " + phone + " apparaît plusieurs fois dans le lot.");
+            }
+            phones.put(phone, idOf.apply(entity));
+        }
+        for (Map.Entry<String, Long> e : phones.entrySet()) {
+            if (own.isTakenByOther(e.getKey(), e.getValue()) || other.get(e.getKey()) != null) {
+                throw new ValidationException(
+                        "Le numéro " + e.getKey() + " est déjà utilisé par un autre client ou fournisseur.");
+            }
+        }
+    }
+
+    @Override
+    public UtilisateurDAO getUtilisateurDAO() {
+        return utilisateurDAO;
+    }
+
+    @Override
+    public ProduitDAO getProduitDAO() {
+        return produitDAO;
+    }
+
+    @Override
+    public FournisseurDAO getFournisseurDAO() {
+        return fournisseurDAO;
+    }
+
+    @Override
+    public ClientDAO getClientDAO() {
+        return clientDAO;
+    }
+
+    @Override
+    public CommandeDAO getCommandeDAO() {
+        return commandeDAO;
+    }
+
+    @Override
+    public VenteDAO getVenteDAO() {
+        return venteDAO;
+    }
+}
@@ -0,0 +1,80 @@
+package pharmacie.dao.memory;
+
+import pharmacie.dao.interfaces.FournisseurDAO;
+import pharmacie.exception.ValidationException;
+import pharmacie.model.Fournisseur;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+public class MemoryFournisseurDAO extends AbstractMemoryDAO<Fournisseur> implements FournisseurDAO {
+    private final MemoryDAOFactory store;
+    private final UniqueIndex noms = new UniqueIndex();
+    final UniqueIndex telephones = new UniqueIndex();
+
+    MemoryFournisseurDAO(MemoryDAOFactory store) {
+        this.store = store;
+    }
+
+    @Override
+    protected Long idOf(Fournisseur entity) {
+        return entity.getId();
+    }
+
+    @Override
+    protected void assignId(Fournisseur entity, Long id) {
+        entity.setId(id);
+    }
+
+    @Override
+    protected Fournisseur copy(Fournisseur entity) {
+        return Snapshots.copy(entity);
+    }
+
+    @Override
+    public void saveAll(Collection<Fournisseur> entities) {
+        synchronized (store.phoneLock) {
+            super.saveAll(entities);
+        }
+    }
+
+    @Override
+    protected void validate(Collection<Fournisseur> entities) {
+        store.checkPhones(entities, Fournisseur::getTelephone, Fournisseur::getId, telephones,
+                store.clientDAO.telephones);
+
+        Set<String> batch = new HashSet<>();
+        for (Fournisseur f : entities) {
+            String nom = UniqueIndex.normalize(f.getNom());
+            if (nom == null)
+                continue;
+            if (!batch.add(nom) || noms.isTakenByOther(nom, f.getId())) {
+                throw new ValidationException("Le fournisseur " + nom + " existe déjà.");
+            }
+        }
+    }
+
+    @Override
+    protected void index(Fournisseur stored, Fournisseur previous) {
+        noms.put(stored.getId(), stored.getNom());
+        telephones.put(stored.getId(), stored.getTelephone());
+    }
+
+    @Override
+    protected void unindex(Fournisseur removed) {
+        noms.remove(removed.getId());
+        telephones.remove(removed.getId());
+    }
+
+    @Override
+    protected void checkDelete(Collection<Long> ids) {
+        // commande.fournisseur_id is ON DELETE RESTRICT; the controllers look
+        // for "foreign key" in the message, as with MySQL
+        Long referenced = store.commandeDAO.findReferencedFournisseur(new HashSet<>(ids));
+        if (referenced != null) {
+            throw new RuntimeException("Cannot delete fournisseur " + referenced
+                    + ": a foreign key constraint fails (commande.fournisseur_id)");
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package pharmacie.dao.memory;
+
+import pharmacie.dao.interfaces.ProductListener;
+import pharmacie.dao.interfaces.ProduitDAO;
+import pharmacie.exception.StockInsuffisantException;
+import pharmacie.exception.ValidationException;
+import pharmacie.model.LigneVente;
+import pharmacie.model.Produit;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class MemoryProduitDAO extends AbstractMemoryDAO<Produit> implements ProduitDAO {
+    private final MemoryDAOFactory store;
+    private final UniqueIndex codesBarre = new UniqueIndex();
+    private final List<ProductListener> listeners = new CopyOnWriteArrayList<>();
+
+    MemoryProduitDAO(MemoryDAOFactory store) {
+        this.store = store;
+    }
+
+    @Override
+    protected Long idOf(Produit entity) {
+        return entity.getId();
+    }
+
+    @Override
+    protected void assignId(Produit entity, Long id) {
+        entity.setId(id);
+    }
+
+    @Override
+    protected Produit copy(Produit entity) {
+        return Snapshots.copy(entity);
+    }
+
+    @Override
+    protected void validate(Collection<Produit> entities) {
+        Set<String> batch = new HashSet<>();
+        for (Produit p : entities) {
+            String code = UniqueIndex.normalize(p.getCodeBarre());
+            if (code == null)
+                continue;
+            if (!batch.add(code) || codesBarre.isTakenByOther(code, p.getId())) {
+                throw new ValidationException("Le code barre " + code + " est déjà utilisé par un autre produit.");
+            }
+        }
+    }
+
+    @Override
+    protected void index(Produit stored, Produit previous) {
+        codesBarre.put(stored.getId(), stored.getCodeBarre());
+    }
+
+    @Override
+    protected void unindex(Produit removed) {
+        codesBarre.remove(removed.getId());
+    }
+
+    @Override
+    public synchronized void saveAll(Collection<Produit> entities) {
+        super.saveAll(entities);
+        if (listeners.isEmpty() || entities.isEmpty())
+            return;
+        List<Produit> stored = new ArrayList<>();
+        for (Produit p : entities) {
+            Produit row = rows.get(p.getId());
+            if (row != null)
+                stored.add(copy(row));
+        }
+        for (ProductListener listener : listeners) {
+            try {
+                listener.productsSaved(stored);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void deleteAll(Collection<Long> ids) {
+        super.deleteAll(ids);
+        if (ids.isEmpty())
+            return;
+        for (ProductListener listener : listeners) {
+            try {
+                listener.productsRemoved(ids);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    public void addProductListener(ProductListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    protected void checkDelete(Collection<Long> ids) {
+        for (Long id : ids) {
+            Produit p = rows.get(id);
+            if (p != null && p.getStockActuel() > 0) {
+                throw new RuntimeException("Impossible de supprimer '" + p.getNom() + "' car il reste "
+                        + p.getStockActuel() + " unités en stock. Veuillez vider le stock d'abord.");
+            }
+        }
+    }
+
+    @Override
+    protected void afterDelete(Collection<Long> ids) {
+        // Same cascade as the MySQL DAO: the product's history lines go with it
+        Set<Long> removed = new HashSet<>(ids);
+        store.venteDAO.removeProductLines(removed);
+        store.commandeDAO.removeProductLines(removed);
+    }
+
+    @Override
+    public Optional<Produit> findByCodeBarre(String codeBarre) {
+        return findById(codesBarre.get(codeBarre));
+    }
+
+    @Override
+    public List<Produit> loadAll() {
+        // Nothing to fail
+        return findAll();
+    }
+
+    @Override
+    public List<Produit> findByIds(Collection<Long> ids) {
+        List<Produit> list = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            Produit p = id == null ? null : rows.get(id);
+            if (p != null) {
+                list.add(copy(p));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public List<Produit> findLowStock() {
+        List<Produit> list = new ArrayList<>();
+        for (Produit p : rows.values()) {
+            if (p.getStockActuel() < p.getSeuilMin()) {
+                list.add(copy(p));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Adds received quantities (product id -> quantity) to the stock.
+     * Products deleted meanwhile are skipped, like an UPDATE matching no row.
+     */
+    synchronized void incrementStock(Map<Long, Integer> quantites) {
+        for (Map.Entry<Long, Integer> e : quantites.entrySet()) {
+            Produit p = rows.get(e.getKey());
+            if (p == null)
+                continue;
+            Produit updated = copy(p);
+            updated.setStockActuel(updated.getStockActuel() + e.getValue());
+            rows.put(updated.getId(), updated);
+        }
+    }
+
+    /**
+     * Takes the quantities of all lines out of stock, or nothing at all if one
+     * product does not have enough (or no longer exists).
+     */
+    synchronized void decrementStock(List<LigneVente> lignes) throws StockInsuffisantException {
+        Map<Long, Integer> demande = new HashMap<>();
+        for (LigneVente lv : lignes) {
+            demande.merge(lv.getProduit().getId(), lv.getQuantite(), Integer::sum);
+        }
+
+        Set<String> manquants = new LinkedHashSet<>();
+        for (LigneVente lv : lignes) {
+            Produit p = rows.get(lv.getProduit().getId());
+            if (p == null || p.getStockActuel() < demande.get(p.getId())) {
+                manquants.add(lv.getProduit().getNom());
+            }
+        }
+        if (!manquants.isEmpty()) {
+            throw new StockInsuffisantException("Stock insuffisant pour: " + String.join(", ", manquants));
+        }
+
+        for (Map.Entry<Long, Integer> e : demande.entrySet()) {
+            Produit updated = copy(rows.get(e.getKey()));
+            updated.setStockActuel(updated.getStockActuel() - e.getValue());
+            rows.put(updated.getId(), updated);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package pharmacie.dao.memory;
+
+import pharmacie.dao.interfaces.UtilisateurDAO;
+import pharmacie.exception.ValidationException;
+import pharmacie.model.Utilisateur;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+public class MemoryUtilisateurDAO extends AbstractMemoryDAO<Utilisateur> implements UtilisateurDAO {
+    private final MemoryDAOFactory store;
+    private final UniqueIndex emails = new UniqueIndex();
+
+    MemoryUtilisateurDAO(MemoryDAOFactory store) {
+        this.store = store;
+    }
+
+    @Override
+    protected Long idOf(Utilisateur entity) {
+        return entity.getId();
+    }
+
+    @Override
+    protected void assignId(Utilisateur entity, Long id) {
+        entity.setId(id);
+    }
+
+    @Override
+    protected Utilisateur copy(Utilisateur entity) {
+        return Snapshots.copy(entity);
+    }
+
+    @Override
+    protected void validate(Collection<Utilisateur> entities) {
+        Set<String> batch = new HashSet<>();
+        for (Utilisateur u : entities) {
+            String email = UniqueIndex.normalize(u.getEmail());
+            if (email == null) {
+                throw new ValidationException("L'email de l'utilisateur est obligatoire.");
+            }
+            if (!batch.add(email) || emails.isTakenByOther(email, u.getId())) {
+                throw new ValidationException("L'email " + email + " est déjà utilisé.");
+            }
+        }
+    }
+
+    @Override
+    protected void index(Utilisateur stored, Utilisateur previous) {
+        emails.put(stored.getId(), stored.getEmail());
+    }
+
+    @Override
+    protected void unindex(Utilisateur removed) {
+        emails.remove(removed.getId());
+    }
+
+    @Override
+    protected void afterDelete(Collection<Long> ids) {
+        // vente.utilisateur_id is ON DELETE SET NULL
+        store.venteDAO.detachUtilisateurs(new HashSet<>(ids));
+    }
+
+    @Override
+    public Optional<Utilisateur> findByEmail(String email) {
+        return findById(emails.get(email));
+    }
+}
@@ -0,0 +1,323 @@
+package pharmacie.dao.memory;
+
+import pharmacie.dao.interfaces.KeysetCursor;
+import pharmacie.dao.interfaces.Page;
+import pharmacie.dao.interfaces.RevenueAggregate;
+import pharmacie.dao.interfaces.SaleListener;
+import pharmacie.dao.interfaces.SortOrder;
+import pharmacie.dao.interfaces.TimeBucket;
+import pharmacie.dao.interfaces.VenteDAO;
+import pharmacie.dao.interfaces.VenteJour;
+import pharmacie.dao.interfaces.VentesProduit;
+import pharmacie.exception.StockInsuffisantException;
+import pharmacie.model.LigneVente;
+import pharmacie.model.Produit;
+import pharmacie.model.Vente;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+public class MemoryVenteDAO extends AbstractMemoryDAO<Vente> implements VenteDAO {
+    private final MemoryDAOFactory store;
+    private final AtomicLong ligneSequence = new AtomicLong();
+    private final DateIndex dates = new DateIndex();
+    // (client_id, date_vente) index, one date index per client
+    private final ConcurrentHashMap<Long, DateIndex> byClient = new ConcurrentHashMap<>();
+    private final List<SaleListener> saleListeners = new CopyOnWriteArrayList<>();
+
+    MemoryVenteDAO(MemoryDAOFactory store) {
+        this.store = store;
+    }
+
+    @Override
+    protected Long idOf(Vente entity) {
+        return entity.getId();
+    }
+
+    @Override
+    protected void assignId(Vente entity, Long id) {
+        entity.setId(id);
+    }
+
+    @Override
+    protected Vente copy(Vente entity) {
+        return Snapshots.copy(entity);
+    }
+
+    /**
+     * Same contract as the MySQL DAO: the stock of every line is taken in one
+     * all-or-nothing step before the sales are stored, and a shortage surfaces
+     * as a RuntimeException caused by StockInsuffisantException.
+     */
+    @Override
+    public synchronized void saveAll(Collection<Vente> entities) {
+        if (entities.isEmpty())
+            return;
+
+        List<LigneVente> lignes = new ArrayList<>();
+        for (Vente v : entities) {
+            lignes.addAll(v.getLignes());
+        }
+        try {
+            store.produitDAO.decrementStock(lignes);
+        } catch (StockInsuffisantException e) {
+            throw new RuntimeException("Erreur lors de l'enregistrement de la vente: " + e.getMessage(), e);
+        }
+
+        List<Vente> nouvelles = new ArrayList<>();
+        for (Vente v : entities) {
+            if (v.getId() == null)
+                nouvelles.add(v);
+            for (LigneVente lv : v.getLignes()) {
+                lv.setId(ligneSequence.incrementAndGet());
+            }
+            store(v);
+        }
+        if (!nouvelles.isEmpty()) {
+            for (SaleListener listener : saleListeners) {
+                try {
+                    listener.salesRecorded(nouvelles);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void index(Vente stored, Vente previous) {
+        dates.put(stored.getId(), stored.getDateVente());
+        Long oldClient = previous == null || previous.getClient() == null ? null : previous.getClient().getId();
+        Long newClient = stored.getClient() == null ? null : stored.getClient().getId();
+        if (oldClient != null && !oldClient.equals(newClient)) {
+            DateIndex idx = byClient.get(oldClient);
+            if (idx != null)
+                idx.remove(stored.getId());
+        }
+        if (newClient != null) {
+            byClient.computeIfAbsent(newClient, id -> new DateIndex()).put(stored.getId(), stored.getDateVente());
+        }
+    }
+
+    @Override
+    protected void unindex(Vente removed) {
+        dates.remove(removed.getId());
+        if (removed.getClient() != null) {
+            DateIndex idx = byClient.get(removed.getClient().getId());
+            if (idx != null)
+                idx.remove(removed.getId());
+        }
+    }
+
+    @Override
+    public List<Vente> findAll() {
+        return copies(dates.after(null, SortOrder.DESC));
+    }
+
+    @Override
+    public Page<Vente> findPage(String cursor, int limit, SortOrder sort) {
+        checkLimit(limit);
+        KeysetCursor after = cursor == null ? null : KeysetCursor.decode(cursor, sort);
+        return page(dates.after(after, sort), limit, sort, Vente::getDateVente);
+    }
+
+    @Override
+    public Page<Vente> findHeaders(String cursor, int limit, SortOrder sort) {
+        Page<Vente> page = findPage(cursor, limit, sort);
+        for (Vente v : page.getItems()) {
+            v.getLignes().clear();
+        }
+        return page;
+    }
+
+    @Override
+    public Page<Vente> findByClient(Long clientId, String cursor, int limit) {
+        checkLimit(limit);
+        DateIndex idx = clientId == null ? null : byClient.get(clientId);
+        if (idx == null)
+            return Page.empty();
+        KeysetCursor after = cursor == null ? null : KeysetCursor.decode(cursor, SortOrder.DESC);
+        return page(idx.after(after, SortOrder.DESC), limit, SortOrder.DESC, Vente::getDateVente);
+    }
+
+    @Override
+    public List<Vente> findByPeriod(LocalDateTime start, LocalDateTime end) {
+        List<Vente> list = copies(dates.between(start, end));
+        Collections.reverse(list);
+        return list;
+    }
+
+    @Override
+    public void streamByPeriod(LocalDateTime start, LocalDateTime end, Consumer<Vente> visitor) {
+        for (Long id : dates.between(start, end)) {
+            Vente v = rows.get(id);
+            if (v != null) {
+                visitor.accept(copy(v));
+            }
+        }
+    }
+
+    @Override
+    public List<RevenueAggregate> aggregateRevenue(LocalDateTime start, LocalDateTime end, TimeBucket bucket) {
+        Map<LocalDate, BigDecimal> totals = new TreeMap<>();
+        Map<LocalDate, Long> counts = new TreeMap<>();
+        BigDecimal total = BigDecimal.ZERO;
+        long count = 0;
+        LocalDateTime from = start == null ? LocalDateTime.MIN : start;
+        LocalDateTime to = end == null ? LocalDateTime.MAX : end;
+        for (Long id : dates.between(from, to)) {
+            Vente v = rows.get(id);
+            if (v == null || v.getTotal() == null)
+                continue;
+            if (bucket == null) {
+                total = total.add(v.getTotal());
+                count++;
+            } else {
+                LocalDate periode = bucketStart(v.getDateVente().toLocalDate(), bucket);
+                totals.merge(periode, v.getTotal(), BigDecimal::add);
+                counts.merge(periode, 1L, Long::sum);
+            }
+        }
+
+        List<RevenueAggregate> list = new ArrayList<>();
+        if (bucket == null) {
+            list.add(new RevenueAggregate(null, total, count));
+        } else {
+            for (Map.Entry<LocalDate, BigDecimal> e : totals.entrySet()) {
+                list.add(new RevenueAggregate(e.getKey(), e.getValue(), counts.get(e.getKey())));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Computed from the stored sales on each call: the in-memory backend
+     * has no history to scan, so it keeps no rollup.
+     */
+    @Override
+    public List<VenteJour> findDailySales(LocalDate start, LocalDate end) {
+        // day -> product -> {quantite, chiffre d'affaires, marge}
+        Map<LocalDate, Map<Long, BigDecimal[]>> days = new TreeMap<>();
+        for (Long id : dates.between(start.atStartOfDay(), end.atTime(LocalTime.MAX))) {
+            Vente v = rows.get(id);
+            if (v == null)
+                continue;
+            Map<Long, BigDecimal[]> day = days.computeIfAbsent(v.getDateVente().toLocalDate(), d -> new TreeMap<>());
+            for (LigneVente lv : v.getLignes()) {
+                BigDecimal quantite = BigDecimal.valueOf(lv.getQuantite());
+                BigDecimal ca = lv.getPrixUnitaire().multiply(quantite);
+                Produit p = store.produitDAO.rows.get(lv.getProduit().getId());
+                BigDecimal cout = p == null || p.getPrixAchat() == null ? BigDecimal.ZERO
+                        : p.getPrixAchat().multiply(quantite);
+                BigDecimal[] sums = day.computeIfAbsent(lv.getProduit().getId(),
+                        pid -> new BigDecimal[] { BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO });
+                sums[0] = sums[0].add(quantite);
+                sums[1] = sums[1].add(ca);
+                sums[2] = sums[2].add(ca.subtract(cout));
+            }
+        }
+
+        List<VenteJour> list = new ArrayList<>();
+        for (Map.Entry<LocalDate, Map<Long, BigDecimal[]>> day : days.entrySet()) {
+            for (Map.Entry<Long, BigDecimal[]> e : day.getValue().entrySet()) {
+                BigDecimal[] sums = e.getValue();
+                list.add(new VenteJour(day.getKey(), e.getKey(), sums[0].longValue(), sums[1], sums[2]));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void rebuildDailySales() {
+        // Nothing stored, see findDailySales()
+    }
+
+    @Override
+    public List<VentesProduit> sumSalesByProduit(LocalDate start, LocalDate end, Collection<Long> produitIds) {
+        Map<Long, Long> quantites = new TreeMap<>();
+        Map<Long, BigDecimal> montants = new HashMap<>();
+        for (VenteJour row : findDailySales(start == null ? LocalDate.MIN : start, end == null ? LocalDate.MAX : end)) {
+            if (produitIds != null && !produitIds.contains(row.getProduitId()))
+                continue;
+            quantites.merge(row.getProduitId(), row.getQuantite(), Long::sum);
+            montants.merge(row.getProduitId(), row.getChiffreAffaires(), BigDecimal::add);
+        }
+        List<VentesProduit> list = new ArrayList<>();
+        for (Map.Entry<Long, Long> e : quantites.entrySet()) {
+            list.add(new VentesProduit(e.getKey(), e.getValue(), montants.get(e.getKey())));
+        }
+        return list;
+    }
+
+    @Override
+    public void addSaleListener(SaleListener listener) {
+        saleListeners.add(listener);
+    }
+
+    static LocalDate bucketStart(LocalDate day, TimeBucket bucket) {
+        switch (bucket) {
+            case MONTH:
+                return day.withDayOfMonth(1);
+            case YEAR:
+                return day.withDayOfYear(1);
+            default:
+                return day;
+        }
+    }
+
+    /**
+     * Drops the lines of deleted products (cascade from produit). Does not
+     * take the table lock: the index columns do not change, and the product
+     * table calls this while holding its own lock.
+     */
+    void removeProductLines(Set<Long> produitIds) {
+        rows.replaceAll((id, v) -> {
+            boolean touched = false;
+            for (LigneVente lv : v.getLignes()) {
+                touched |= produitIds.contains(lv.getProduit().getId());
+            }
+            if (!touched)
+                return v;
+            Vente updated = copy(v);
+            updated.getLignes().removeIf(lv -> produitIds.contains(lv.getProduit().getId()));
+            return updated;
+        });
+    }
+
+    synchronized void detachClients(Set<Long> clientIds) {
+        for (Long clientId : clientIds) {
+            byClient.remove(clientId);
+        }
+        rows.replaceAll((id, v) -> {
+            if (v.getClient() == null || !clientIds.contains(v.getClient().getId()))
+                return v;
+            Vente updated = copy(v);
+            updated.setClient(null);
+            return updated;
+        });
+    }
+
+    synchronized void detachUtilisateurs(Set<Long> utilisateurIds) {
+        rows.replaceAll((id, v) -> {
+            if (v.getUtilisateur() == null || !utilisateurIds.contains(v.getUtilisateur().getId()))
+                return v;
+            Vente updated = copy(v);
+            updated.setUtilisateur(null);
+            return updated;
+        });
+    }
+}
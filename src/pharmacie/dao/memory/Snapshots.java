@@ -0,0 +1,96 @@
+package pharmacie.dao.memory;
+
+import pharmacie.model.Client;
+import pharmacie.model.Commande;
+import pharmacie.model.Fournisseur;
+import pharmacie.model.LigneCommande;
+import pharmacie.model.LigneVente;
+import pharmacie.model.Produit;
+import pharmacie.model.Utilisateur;
+import pharmacie.model.Vente;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deep copies of the model objects. The in-memory DAOs store a private copy
+ * on write and hand out a fresh copy on read, like rows coming back from the
+ * database: a caller editing an entity does not change the store until it
+ * calls save(), and stored objects are never mutated in place, so readers
+ * can copy them without locking.
+ */
+final class Snapshots {
+
+    private Snapshots() {
+    }
+
+    static Produit copy(Produit p) {
+        if (p == null)
+            return null;
+        Produit c = new Produit(p.getId(), p.getNom(), p.getPrixAchat(), p.getPrixVente(), p.getStockActuel(),
+                p.getSeuilMin(), p.getCodeBarre());
+        c.setDescription(p.getDescription());
+        return c;
+    }
+
+    static Client copy(Client c) {
+        if (c == null)
+            return null;
+        return new Client(c.getId(), c.getNom(), c.getPrenom(), c.getEmail(), c.getTelephone(), c.getCarteVitale());
+    }
+
+    static Fournisseur copy(Fournisseur f) {
+        if (f == null)
+            return null;
+        Fournisseur c = new Fournisseur(f.getId(), f.getNom(), f.getTelephone(), f.getEmail());
+        c.setAdresse(f.getAdresse());
+        c.setNotePerformance(f.getNotePerformance());
+        return c;
+    }
+
+    static Utilisateur copy(Utilisateur u) {
+        if (u == null)
+            return null;
+        Utilisateur c = new Utilisateur(u.getId(), u.getNom(), u.getPrenom(), u.getEmail(), u.getPasswordHash(),
+                u.getRole());
+        c.setDateCreation(u.getDateCreation());
+        return c;
+    }
+
+    static Vente copy(Vente v) {
+        if (v == null)
+            return null;
+        Vente c = new Vente(v.getId(), v.getDateVente(), copy(v.getClient()), copy(v.getUtilisateur()));
+        List<LigneVente> lignes = new ArrayList<>(v.getLignes().size());
+        for (LigneVente lv : v.getLignes()) {
+            lignes.add(copy(lv));
+        }
+        c.setLignes(lignes);
+        // The stored total is kept as saved, like the vente.total column
+        c.setTotal(v.getTotal());
+        return c;
+    }
+
+    static LigneVente copy(LigneVente lv) {
+        LigneVente c = new LigneVente(copy(lv.getProduit()), lv.getQuantite(), lv.getPrixUnitaire());
+        c.setId(lv.getId());
+        c.setSousTotal(lv.getSousTotal());
+        return c;
+    }
+
+    static Commande copy(Commande cmd) {
+        if (cmd == null)
+            return null;
+        Commande c = new Commande(cmd.getId(), copy(cmd.getFournisseur()), cmd.getDateCreation(), cmd.getStatut());
+        for (LigneCommande lc : cmd.getLignes()) {
+            c.ajouterLigne(copy(lc));
+        }
+        return c;
+    }
+
+    static LigneCommande copy(LigneCommande lc) {
+        LigneCommande c = new LigneCommande(copy(lc.getProduit()), lc.getQuantite());
+        c.setId(lc.getId());
+        return c;
+    }
+}
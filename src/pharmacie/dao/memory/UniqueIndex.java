@@ -0,0 +1,51 @@
+package pharmacie.dao.memory;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Secondary index on a unique, optional string column (barcode, email,
+ * carte vitale, phone). Keeps the reverse mapping so the old key of a row
+ * can be dropped when the row is updated with a new one. Blank keys are not
+ * indexed, like NULL in a UNIQUE column.
+ */
+final class UniqueIndex {
+    private final ConcurrentHashMap<String, Long> idByKey = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, String> keyById = new ConcurrentHashMap<>();
+
+    static String normalize(String key) {
+        if (key == null || key.trim().isEmpty())
+            return null;
+        return key.trim();
+    }
+
+    Long get(String key) {
+        String k = normalize(key);
+        return k == null ? null : idByKey.get(k);
+    }
+
+    /**
+     * Returns true if another row than {@code id} already holds the key.
+     */
+    boolean isTakenByOther(String key, Long id) {
+        Long owner = get(key);
+        return owner != null && !owner.equals(id);
+    }
+
+    void put(Long id, String key) {
+        String k = normalize(key);
+        String old = k == null ? keyById.remove(id) : keyById.put(id, k);
+        if (old != null && !old.equals(k)) {
+            idByKey.remove(old, id);
+        }
+        if (k != null) {
+            idByKey.put(k, id);
+        }
+    }
+
+    void remove(Long id) {
+        String old = keyById.remove(id);
+        if (old != null) {
+            idByKey.remove(old, id);
+        }
+    }
+}
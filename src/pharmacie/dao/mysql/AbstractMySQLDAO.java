@@ -1,16 +1,293 @@
 package pharmacie.dao.mysql;
 
 import pharmacie.config.DBConnection;
+import pharmacie.dao.interfaces.KeysetCursor;
+import pharmacie.dao.interfaces.Page;
+import pharmacie.dao.interfaces.SortOrder;
+import pharmacie.dao.interfaces.TimeBucket;
+
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 public abstract class AbstractMySQLDAO {
+    // Rows per multi-row INSERT, also capped by MySQL's 65535 placeholders limit
+    private static final int INSERT_CHUNK_ROWS = 1000;
+    private static final int MAX_PARAMETERS = 65535;
+    // Ids per DELETE ... IN (...) / SELECT ... IN (...)
+    protected static final int IN_CHUNK_SIZE = 1000;
+
+    /**
+     * Unit of work run by {@link #inTransaction(String, TransactionWork)}.
+     */
+    @FunctionalInterface
+    protected interface TransactionWork {
+        void run(Connection conn) throws SQLException;
+    }
+
     protected Connection getConnection() throws SQLException {
         return DBConnection.getInstance().getConnection();
     }
 
+    /**
+     * Maps every remaining row of {@code rs}, resolving column indexes once
+     * for the whole result.
+     */
+    protected static <T> List<T> mapRows(String sql, ResultSet rs, RowMapper<T> mapper) throws SQLException {
+        List<T> list = new ArrayList<>();
+        ColumnIndex cols = ColumnIndex.of(sql, rs);
+        while (rs.next()) {
+            list.add(mapper.mapRow(rs, cols));
+        }
+        return list;
+    }
+
+    /**
+     * Runs one keyset page of {@code select} (a SELECT ... FROM ... without
+     * WHERE/ORDER BY). Rows are ordered by {@code dateColumn} then
+     * {@code idColumn}, or by {@code idColumn} alone when dateColumn is null;
+     * the cursor condition is expanded so MySQL can range-scan the index.
+     * {@code where} is an optional extra filter bound with {@code params}.
+     */
+    protected <T> Page<T> queryPage(Connection conn, String select, String where, String dateColumn,
+            String idColumn, String cursor, int limit, SortOrder sort, RowMapper<T> mapper,
+            Function<T, LocalDateTime> dateOf, Function<T, Long> idOf, Object... params) throws SQLException {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("La taille de page doit être positive.");
+        }
+        KeysetCursor after = cursor == null ? null : KeysetCursor.decode(cursor, sort);
+        String cmp = sort == SortOrder.DESC ? "<" : ">";
+        String dir = sort == SortOrder.DESC ? " DESC" : " ASC";
+
+        StringBuilder sql = new StringBuilder(select);
+        List<Object> args = new ArrayList<>(Arrays.asList(params));
+        List<String> conditions = new ArrayList<>();
+        if (where != null) {
+            conditions.add("(" + where + ")");
+        }
+        if (after != null) {
+            if (dateColumn != null) {
+                Timestamp ts = Timestamp.valueOf(after.getDate());
+                conditions.add("(" + dateColumn + " " + cmp + " ? OR (" + dateColumn + " = ? AND " + idColumn + " "
+                        + cmp + " ?))");
+                args.add(ts);
+                args.add(ts);
+            } else {
+                conditions.add(idColumn + " " + cmp + " ?");
+            }
+            args.add(after.getId());
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(" ORDER BY ");
+        if (dateColumn != null) {
+            sql.append(dateColumn).append(dir).append(", ");
+        }
+        sql.append(idColumn).append(dir).append(" LIMIT ?");
+        // One extra row tells whether another page exists
+        args.add(limit + 1);
+
+        String query = sql.toString();
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            for (int i = 0; i < args.size(); i++) {
+                stmt.setObject(i + 1, args.get(i));
+            }
+            List<T> items;
+            try (ResultSet rs = stmt.executeQuery()) {
+                items = mapRows(query, rs, mapper);
+            }
+            String next = null;
+            if (items.size() > limit) {
+                items.remove(limit);
+                T last = items.get(limit - 1);
+                next = new KeysetCursor(sort, dateOf == null ? null : dateOf.apply(last), idOf.apply(last)).encode();
+            }
+            return new Page<>(items, next);
+        }
+    }
+
+    /**
+     * Builds "?, ?, ?" with {@code count} placeholders for an IN (...) clause.
+     */
+    protected static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder(count * 3);
+        for (int i = 0; i < count; i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append('?');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * SQL expression giving the first day of the {@code bucket} containing
+     * {@code column}, as a 'yyyy-MM-dd' value.
+     */
+    protected static String bucketStart(String column, TimeBucket bucket) {
+        switch (bucket) {
+            case DAY:
+                return "DATE(" + column + ")";
+            case MONTH:
+                return "DATE_FORMAT(" + column + ", '%Y-%m-01')";
+            case YEAR:
+                return "DATE_FORMAT(" + column + ", '%Y-01-01')";
+            default:
+                throw new IllegalArgumentException("Période inconnue: " + bucket);
+        }
+    }
+
+    /**
+     * Runs {@code work} in a single transaction, rolling back and rethrowing
+     * as a RuntimeException prefixed with {@code errorMessage} on failure.
+     */
+    protected void inTransaction(String errorMessage, TransactionWork work) {
+        Connection conn = null;
+        try {
+            conn = getConnection();
+            conn.setAutoCommit(false);
+            work.run(conn);
+            conn.commit();
+        } catch (SQLException e) {
+            if (conn != null)
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            throw new RuntimeException(errorMessage + e.getMessage(), e);
+        } finally {
+            if (conn != null)
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+        }
+    }
+
+    /**
+     * Inserts {@code rows} with multi-row INSERT statements.
+     * {@code insertPrefix} is "INSERT INTO t (a, b, c) VALUES". When
+     * {@code keySink} is given, each row receives its generated id, in order.
+     */
+    protected static <T> void insertRows(Connection conn, String insertPrefix, int columnCount, List<T> rows,
+            RowBinder<T> binder, BiConsumer<T, Long> keySink) throws SQLException {
+        String oneRow = "(" + placeholders(columnCount) + ")";
+        int perChunk = Math.max(1, Math.min(INSERT_CHUNK_ROWS, MAX_PARAMETERS / columnCount));
+        for (int from = 0; from < rows.size(); from += perChunk) {
+            List<T> chunk = rows.subList(from, Math.min(from + perChunk, rows.size()));
+            String sql = insertPrefix + " " + String.join(", ", Collections.nCopies(chunk.size(), oneRow));
+            try (PreparedStatement stmt = keySink != null
+                    ? conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                    : conn.prepareStatement(sql)) {
+                int index = 1;
+                for (T row : chunk) {
+                    index = binder.bind(stmt, index, row);
+                }
+                stmt.executeUpdate();
+                if (keySink != null) {
+                    try (ResultSet gk = stmt.getGeneratedKeys()) {
+                        for (T row : chunk) {
+                            if (gk.next())
+                                keySink.accept(row, gk.getLong(1));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * DELETE FROM {@code table} WHERE {@code column} IN (...), chunked.
+     */
+    protected static void deleteWhereIn(Connection conn, String table, String column, List<Long> ids)
+            throws SQLException {
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()));
+            String sql = "DELETE FROM " + table + " WHERE " + column + " IN (" + placeholders(chunk.size()) + ")";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int i = 1;
+                for (Long id : chunk) {
+                    stmt.setLong(i++, id);
+                }
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Appends one change_log row per distinct id, on the caller's connection
+     * so it commits or rolls back with the change itself. Other terminals
+     * read it through {@link ChangeLogPoller}.
+     */
+    protected static void logChanges(Connection conn, String entity, Collection<Long> ids) throws SQLException {
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        insertRows(conn, "INSERT INTO change_log (entity, entity_id) VALUES", 2, distinct, (stmt, i, id) -> {
+            stmt.setString(i++, entity);
+            stmt.setLong(i++, id);
+            return i;
+        }, null);
+    }
+
+    /**
+     * Batch variant of {@link #isPhoneUnique(String, Long, String)}.
+     * {@code phoneToId} maps each trimmed phone of the batch to the id of
+     * the entity carrying it (null when new). Returns the first phone already
+     * used by another client or supplier, or null if all are free.
+     */
+    protected String findUsedPhone(Map<String, Long> phoneToId, String currentTable) {
+        if (phoneToId.isEmpty())
+            return null;
+
+        List<String> phones = new ArrayList<>(phoneToId.keySet());
+        String[] tables = { "client", "fournisseur" };
+        try (Connection conn = getConnection()) {
+            for (String table : tables) {
+                for (int from = 0; from < phones.size(); from += IN_CHUNK_SIZE) {
+                    List<String> chunk = phones.subList(from, Math.min(from + IN_CHUNK_SIZE, phones.size()));
+                    String sql = "SELECT id, telephone FROM " + table + " WHERE telephone IN ("
+                            + placeholders(chunk.size()) + ")";
+                    try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                        int i = 1;
+                        for (String phone : chunk) {
+                            stmt.setString(i++, phone);
+                        }
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            while (rs.next()) {
+                                String phone = rs.getString("telephone");
+                                Long ownerId = phoneToId.get(phone);
+                                // Same record being updated keeps its own number
+                                if (table.equalsIgnoreCase(currentTable) && ownerId != null
+                                        && ownerId == rs.getLong("id")) {
+                                    continue;
+                                }
+                                return phone;
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
     protected boolean isPhoneUnique(String phone, Long currentId, String currentTable) {
         if (phone == null || phone.trim().isEmpty())
             return true;
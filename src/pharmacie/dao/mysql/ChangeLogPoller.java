@@ -0,0 +1,166 @@
+package pharmacie.dao.mysql;
+
+import pharmacie.config.DBConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Follows the change_log table and tells local caches which rows changed,
+ * so several terminals sharing one database see each other's writes
+ * (stock taken by a sale, a new price, a new sale...) within one polling
+ * interval, without reloading whole tables.
+ *
+ * Rows are written by the DAOs in the same transaction as the change, with
+ * an AUTO_INCREMENT version. Versions are not committed in order, so a
+ * version skipped by a poll is remembered as a gap and asked for again
+ * until it shows up or GAP_TIMEOUT_MS expires (rolled back).
+ */
+public class ChangeLogPoller {
+    public static final String PRODUIT = "produit";
+    public static final String VENTE = "vente";
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int MAX_GAPS = 1000;
+    private static final long GAP_TIMEOUT_MS = 10_000;
+    private static final long PURGE_EVERY_MS = 3_600_000;
+
+    private final long intervalMs;
+    private final int retentionHours;
+    private final Map<String, List<Consumer<Set<Long>>>> listeners = new ConcurrentHashMap<>();
+
+    // Only touched by the polling thread
+    private final Map<Long, Long> gaps = new HashMap<>();
+    private long lastVersion = -1;
+    private long lastPurge;
+    private boolean failing;
+
+    private ScheduledExecutorService executor;
+
+    public ChangeLogPoller(long intervalMs, int retentionHours) {
+        this.intervalMs = intervalMs;
+        this.retentionHours = retentionHours;
+    }
+
+    /**
+     * Registers a listener called (on the polling thread) with the ids of
+     * {@code entity} rows changed since the previous poll.
+     */
+    public void subscribe(String entity, Consumer<Set<Long>> listener) {
+        listeners.computeIfAbsent(entity, e -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    public synchronized void start() {
+        if (executor != null || intervalMs <= 0)
+            return;
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "change-log-poller");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::pollQuietly, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+            failing = false;
+        } catch (SQLException | RuntimeException e) {
+            // Report once per outage, not every interval
+            if (!failing) {
+                failing = true;
+                System.err.println("ALERT: lecture de change_log impossible: " + e.getMessage());
+            }
+        }
+    }
+
+    private void poll() throws SQLException {
+        Map<String, Set<Long>> changed = new HashMap<>();
+        try (Connection conn = DBConnection.getInstance().getConnection()) {
+            if (lastVersion < 0) {
+                // Caches load current data themselves, only later changes matter
+                try (Statement stmt = conn.createStatement();
+                        ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM change_log")) {
+                    rs.next();
+                    lastVersion = rs.getLong(1);
+                }
+                lastPurge = System.currentTimeMillis();
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            gaps.values().removeIf(since -> now - since > GAP_TIMEOUT_MS);
+
+            List<Long> pending = new ArrayList<>(gaps.keySet());
+            String sql = "SELECT version, entity, entity_id FROM change_log WHERE version > ?"
+                    + (pending.isEmpty() ? "" : " OR version IN (" + AbstractMySQLDAO.placeholders(pending.size()) + ")")
+                    + " ORDER BY version LIMIT " + BATCH_SIZE;
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int i = 1;
+                stmt.setLong(i++, lastVersion);
+                for (Long v : pending) {
+                    stmt.setLong(i++, v);
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        long version = rs.getLong("version");
+                        if (version <= lastVersion) {
+                            gaps.remove(version);
+                        } else {
+                            for (long g = lastVersion + 1; g < version && gaps.size() < MAX_GAPS; g++) {
+                                gaps.put(g, now);
+                            }
+                            lastVersion = version;
+                        }
+                        changed.computeIfAbsent(rs.getString("entity"), e -> new HashSet<>())
+                                .add(rs.getLong("entity_id"));
+                    }
+                }
+            }
+
+            if (now - lastPurge > PURGE_EVERY_MS) {
+                lastPurge = now;
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "DELETE FROM change_log WHERE changed_at < NOW() - INTERVAL ? HOUR")) {
+                    stmt.setInt(1, retentionHours);
+                    stmt.executeUpdate();
+                }
+            }
+        }
+
+        // Listeners re-read with connections of their own, so this one is
+        // given back first
+        for (Map.Entry<String, Set<Long>> e : changed.entrySet()) {
+            for (Consumer<Set<Long>> listener : listeners.getOrDefault(e.getKey(), List.of())) {
+                try {
+                    listener.accept(e.getValue());
+                } catch (RuntimeException ex) {
+                    ex.printStackTrace();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package pharmacie.dao.mysql;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Column label to index lookup for one query shape. Built once from the
+ * ResultSetMetaData (and cached per SQL string), so row mappers read by
+ * index instead of walking the metadata for every row.
+ * Labels are matched in lower case, the first occurrence wins like
+ * {@link ResultSet#findColumn(String)}.
+ */
+public final class ColumnIndex {
+    // Queries with variable IN (...) lists produce many SQL strings, keep the cache bounded
+    private static final int MAX_CACHED_QUERIES = 256;
+    private static final Map<String, ColumnIndex> CACHE = new ConcurrentHashMap<>();
+
+    private final Map<String, Integer> indexes;
+    private final int columnCount;
+
+    private ColumnIndex(ResultSetMetaData meta) throws SQLException {
+        this.columnCount = meta.getColumnCount();
+        this.indexes = new HashMap<>(columnCount * 2);
+        for (int i = 1; i <= columnCount; i++) {
+            indexes.putIfAbsent(meta.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+        }
+    }
+
+    /**
+     * Returns the index for the result of {@code sql}, reusing the cached one
+     * when the query was already seen with the same number of columns.
+     */
+    public static ColumnIndex of(String sql, ResultSet rs) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        ColumnIndex cached = CACHE.get(sql);
+        if (cached != null && cached.columnCount == meta.getColumnCount()) {
+            return cached;
+        }
+        ColumnIndex fresh = new ColumnIndex(meta);
+        if (CACHE.size() < MAX_CACHED_QUERIES || cached != null) {
+            CACHE.put(sql, fresh);
+        }
+        return fresh;
+    }
+
+    /**
+     * Index of a column that must be present.
+     */
+    public int of(String label) throws SQLException {
+        Integer idx = indexes.get(label);
+        if (idx == null) {
+            throw new SQLException("Colonne introuvable: " + label);
+        }
+        return idx;
+    }
+
+    /**
+     * Index of an optional column, or 0 when the query does not select it.
+     */
+    public int optional(String label) {
+        Integer idx = indexes.get(label);
+        return idx == null ? 0 : idx;
+    }
+
+    public boolean has(String label) {
+        return indexes.containsKey(label);
+    }
+}
@@ -1,13 +1,18 @@
 package pharmacie.dao.mysql;
 
 import pharmacie.dao.interfaces.ClientDAO;
+import pharmacie.dao.interfaces.Page;
+import pharmacie.dao.interfaces.SortOrder;
 import pharmacie.exception.ValidationException;
 import pharmacie.model.Client;
 import pharmacie.util.ValidationUtils;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class MySQLClientDAO extends AbstractMySQLDAO implements ClientDAO {
@@ -55,6 +60,18 @@ public class MySQLClientDAO extends AbstractMySQLDAO implements ClientDAO {
         return list;
     }
 
+    @Override
+    public Page<Client> findPage(String cursor, int limit, SortOrder sort) {
+        String sql = "SELECT * FROM client";
+        try (Connection conn = getConnection()) {
+            return queryPage(conn, sql, null, null, "id", cursor, limit, sort, (rs, cols) -> mapResultSet(rs), null,
+                    Client::getId);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return Page.empty();
+    }
+
     @Override
     public void save(Client entity) {
         // 1. Validate phone format
@@ -116,6 +133,68 @@ public class MySQLClientDAO extends AbstractMySQLDAO implements ClientDAO {
         }
     }
 
+    @Override
+    public void saveAll(Collection<Client> entities) {
+        if (entities.isEmpty())
+            return;
+
+        // Same validation as save(), with one uniqueness query per table for the whole batch
+        Map<String, Long> phones = new HashMap<>();
+        for (Client c : entities) {
+            ValidationUtils.validatePhone(c.getTelephone());
+            if (c.getTelephone() != null && !c.getTelephone().trim().isEmpty()) {
+                String phone = c.getTelephone().trim();
+                if (phones.containsKey(phone)) {
+                    throw new ValidationException("Le numéro " + phone + " apparaît plusieurs fois dans le lot.");
+                }
+                phones.put(phone, c.getId());
+            }
+        }
+        String used = findUsedPhone(phones, "client");
+        if (used != null) {
+            throw new ValidationException(
+                    "Le numéro " + used + " est déjà utilisé par un autre client ou fournisseur.");
+        }
+
+        List<Client> nouveaux = new ArrayList<>();
+        List<Client> existants = new ArrayList<>();
+        for (Client c : entities) {
+            (c.getId() == null ? nouveaux : existants).add(c);
+        }
+
+        inTransaction("Erreur lors de l'enregistrement des clients: ", conn -> {
+            insertRows(conn, "INSERT INTO client (nom, prenom, email, telephone, carte_vitale) VALUES", 5, nouveaux,
+                    (stmt, i, c) -> bindClient(stmt, i, c), Client::setId);
+
+            String sql = "UPDATE client SET nom=?, prenom=?, email=?, telephone=?, carte_vitale=? WHERE id=?";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (Client c : existants) {
+                    int i = bindClient(stmt, 1, c);
+                    stmt.setLong(i, c.getId());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+        });
+    }
+
+    private int bindClient(PreparedStatement stmt, int i, Client c) throws SQLException {
+        stmt.setString(i++, c.getNom());
+        stmt.setString(i++, c.getPrenom());
+        stmt.setString(i++, c.getEmail() == null || c.getEmail().isEmpty() ? null : c.getEmail());
+        stmt.setString(i++, c.getTelephone() == null || c.getTelephone().isEmpty() ? null : c.getTelephone());
+        stmt.setString(i++, c.getCarteVitale() == null || c.getCarteVitale().isEmpty() ? null : c.getCarteVitale());
+        return i;
+    }
+
+    @Override
+    public void deleteAll(Collection<Long> ids) {
+        if (ids.isEmpty())
+            return;
+        inTransaction("Erreur lors de la suppression des clients: ",
+                conn -> deleteWhereIn(conn, "client", "id", new ArrayList<>(ids)));
+    }
+
     @Override
     public Optional<Client> findByCarteVitale(String carteVitale) {
         String sql = "SELECT * FROM client WHERE carte_vitale = ?";
@@ -1,6 +1,10 @@
 package pharmacie.dao.mysql;
 
 import pharmacie.dao.interfaces.CommandeDAO;
+import pharmacie.dao.interfaces.ExpenditureAggregate;
+import pharmacie.dao.interfaces.Page;
+import pharmacie.dao.interfaces.SortOrder;
+import pharmacie.dao.interfaces.StockListener;
 import pharmacie.model.Commande;
 import pharmacie.model.Fournisseur;
 import pharmacie.model.LigneCommande;
@@ -8,72 +12,126 @@ import pharmacie.model.Produit;
 import pharmacie.model.StatutCommande;
 
 import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public class MySQLCommandeDAO extends AbstractMySQLDAO implements CommandeDAO {
 
-    // Helper to fetch lines
-    private void loadLignes(Commande c, Connection conn) throws SQLException {
-        String sql = "SELECT lc.*, p.nom, p.stock_actuel, p.prix_achat, p.prix_vente, p.seuil_min, p.code_barre, p.description "
-                +
-                "FROM ligne_commande lc " +
-                "JOIN produit p ON lc.produit_id = p.id " +
-                "WHERE lc.commande_id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setLong(1, c.getId());
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Produit p = new Produit();
-                    p.setId(rs.getLong("produit_id"));
-                    p.setNom(rs.getString("nom"));
-                    p.setStockActuel(rs.getInt("stock_actuel"));
-                    p.setPrixAchat(rs.getBigDecimal("prix_achat"));
-                    p.setPrixVente(rs.getBigDecimal("prix_vente"));
-                    p.setSeuilMin(rs.getInt("seuil_min"));
-                    p.setCodeBarre(rs.getString("code_barre"));
-                    p.setDescription(rs.getString("description"));
+    // Max number of order ids bound into one IN (...) query when hydrating lines
+    private static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private int chunkSize;
+    private StockListener stockListener;
 
-                    LigneCommande lc = new LigneCommande(p, rs.getInt("quantite"));
-                    lc.setId(rs.getLong("id"));
-                    c.ajouterLigne(lc);
+    public MySQLCommandeDAO() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    public MySQLCommandeDAO(int chunkSize) {
+        setChunkSize(chunkSize);
+    }
+
+    public final void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("La taille de lot doit être positive.");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Listener told which products' stock each received order added to
+     * (the product cache), or null.
+     */
+    public void setStockListener(StockListener stockListener) {
+        this.stockListener = stockListener;
+    }
+
+    /**
+     * Loads the lines (with their products) of all given orders in one query
+     * per chunk of {@code chunkSize} orders. A product referenced by several
+     * lines is mapped once and the same instance is shared by those lines.
+     */
+    private void loadLignes(List<Commande> commandes, Connection conn) throws SQLException {
+        Map<Long, Produit> produits = new HashMap<>();
+        for (int from = 0; from < commandes.size(); from += chunkSize) {
+            List<Commande> chunk = commandes.subList(from, Math.min(from + chunkSize, commandes.size()));
+            Map<Long, Commande> byId = new HashMap<>();
+            for (Commande c : chunk) {
+                byId.put(c.getId(), c);
+            }
+
+            String sql = "SELECT lc.*, p.nom, p.stock_actuel, p.prix_achat, p.prix_vente, p.seuil_min, p.code_barre, p.description "
+                    +
+                    "FROM ligne_commande lc " +
+                    "JOIN produit p ON lc.produit_id = p.id " +
+                    "WHERE lc.commande_id IN (" + placeholders(chunk.size()) + ") ORDER BY lc.commande_id, lc.id";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int i = 1;
+                for (Commande c : chunk) {
+                    stmt.setLong(i++, c.getId());
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    ColumnIndex cols = ColumnIndex.of(sql, rs);
+                    int idCol = cols.of("id");
+                    int commandeIdCol = cols.of("commande_id");
+                    int produitIdCol = cols.of("produit_id");
+                    int quantiteCol = cols.of("quantite");
+                    while (rs.next()) {
+                        long produitId = rs.getLong(produitIdCol);
+                        Produit p = produits.get(produitId);
+                        if (p == null) {
+                            p = new Produit();
+                            p.setId(produitId);
+                            p.setNom(rs.getString(cols.of("nom")));
+                            p.setStockActuel(rs.getInt(cols.of("stock_actuel")));
+                            p.setPrixAchat(rs.getBigDecimal(cols.of("prix_achat")));
+                            p.setPrixVente(rs.getBigDecimal(cols.of("prix_vente")));
+                            p.setSeuilMin(rs.getInt(cols.of("seuil_min")));
+                            p.setCodeBarre(rs.getString(cols.of("code_barre")));
+                            p.setDescription(rs.getString(cols.of("description")));
+                            produits.put(produitId, p);
+                        }
+
+                        LigneCommande lc = new LigneCommande(p, rs.getInt(quantiteCol));
+                        lc.setId(rs.getLong(idCol));
+                        byId.get(rs.getLong(commandeIdCol)).ajouterLigne(lc);
+                    }
                 }
             }
         }
     }
 
-    private Commande mapResultSet(ResultSet rs) throws SQLException {
+    private Commande mapResultSet(ResultSet rs, ColumnIndex cols) throws SQLException {
         Commande c = new Commande();
-        c.setId(rs.getLong("id"));
-        c.setDateCreation(rs.getTimestamp("date_creation").toLocalDateTime());
-        c.setStatut(StatutCommande.valueOf(rs.getString("statut")));
+        c.setId(rs.getLong(cols.of("id")));
+        c.setDateCreation(rs.getTimestamp(cols.of("date_creation")).toLocalDateTime());
+        c.setStatut(StatutCommande.valueOf(rs.getString(cols.of("statut"))));
 
         // Map Fournisseur (partial)
         Fournisseur f = new Fournisseur();
-        f.setId(rs.getLong("fournisseur_id"));
+        f.setId(rs.getLong(cols.of("fournisseur_id")));
         // Ideally we join to get supplier name, but for now we might leave it partial
         // or join in query.
         // Let's assume we want at least the name.
-        if (hasColumn(rs, "fournisseur_nom")) {
-            f.setNom(rs.getString("fournisseur_nom"));
+        int nomCol = cols.optional("fournisseur_nom");
+        if (nomCol > 0) {
+            f.setNom(rs.getString(nomCol));
         }
         c.setFournisseur(f);
 
         return c;
     }
 
-    private boolean hasColumn(ResultSet rs, String columnName) throws SQLException {
-        ResultSetMetaData meta = rs.getMetaData();
-        int columns = meta.getColumnCount();
-        for (int i = 1; i <= columns; i++) {
-            if (columnName.equalsIgnoreCase(meta.getColumnLabel(i))) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     @Override
     public Optional<Commande> findById(Long id) {
         String sql = "SELECT c.*, f.nom as fournisseur_nom FROM commande c " +
@@ -83,8 +141,8 @@ public class MySQLCommandeDAO extends AbstractMySQLDAO implements CommandeDAO {
             stmt.setLong(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    Commande c = mapResultSet(rs);
-                    loadLignes(c, conn);
+                    Commande c = mapResultSet(rs, ColumnIndex.of(sql, rs));
+                    loadLignes(Collections.singletonList(c), conn);
                     return Optional.of(c);
                 }
             }
@@ -102,18 +160,29 @@ public class MySQLCommandeDAO extends AbstractMySQLDAO implements CommandeDAO {
         try (Connection conn = getConnection();
                 Statement stmt = conn.createStatement();
                 ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                Commande c = mapResultSet(rs);
-                // Potential N+1 problem, but acceptable for this scale
-                loadLignes(c, conn);
-                list.add(c);
-            }
+            list.addAll(mapRows(sql, rs, this::mapResultSet));
+            loadLignes(list, conn);
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return list;
     }
 
+    @Override
+    public Page<Commande> findPage(String cursor, int limit, SortOrder sort) {
+        String sql = "SELECT c.*, f.nom as fournisseur_nom FROM commande c " +
+                "JOIN fournisseur f ON c.fournisseur_id = f.id";
+        try (Connection conn = getConnection()) {
+            Page<Commande> page = queryPage(conn, sql, null, "c.date_creation", "c.id", cursor, limit, sort,
+                    this::mapResultSet, Commande::getDateCreation, Commande::getId);
+            loadLignes(page.getItems(), conn);
+            return page;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return Page.empty();
+    }
+
     @Override
     public void save(Commande entity) {
         Connection conn = null;
@@ -228,6 +297,128 @@ public class MySQLCommandeDAO extends AbstractMySQLDAO implements CommandeDAO {
         }
     }
 
+    @Override
+    public void saveAll(Collection<Commande> entities) {
+        if (entities.isEmpty())
+            return;
+
+        List<Commande> nouvelles = new ArrayList<>();
+        List<Commande> existantes = new ArrayList<>();
+        for (Commande c : entities) {
+            (c.getId() == null ? nouvelles : existantes).add(c);
+        }
+
+        inTransaction("Erreur lors de l'enregistrement des commandes: ", conn -> {
+            insertRows(conn, "INSERT INTO commande (fournisseur_id, date_creation, statut) VALUES", 3, nouvelles,
+                    this::bindCommande, Commande::setId);
+
+            if (!existantes.isEmpty()) {
+                String sql = "UPDATE commande SET fournisseur_id=?, date_creation=?, statut=? WHERE id=?";
+                List<Long> ids = new ArrayList<>();
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (Commande c : existantes) {
+                        int i = bindCommande(stmt, 1, c);
+                        stmt.setLong(i, c.getId());
+                        stmt.addBatch();
+                        ids.add(c.getId());
+                    }
+                    stmt.executeBatch();
+                }
+                // Delete old lines (simplest strategy)
+                deleteWhereIn(conn, "ligne_commande", "commande_id", ids);
+            }
+
+            List<Map.Entry<Commande, LigneCommande>> lignes = new ArrayList<>();
+            for (Commande c : entities) {
+                for (LigneCommande lc : c.getLignes()) {
+                    lignes.add(new AbstractMap.SimpleEntry<>(c, lc));
+                }
+            }
+            insertRows(conn, "INSERT INTO ligne_commande (commande_id, produit_id, quantite) VALUES", 3, lignes,
+                    (stmt, i, e) -> {
+                        stmt.setLong(i++, e.getKey().getId());
+                        stmt.setLong(i++, e.getValue().getProduit().getId());
+                        stmt.setInt(i++, e.getValue().getQuantite());
+                        return i;
+                    }, (e, id) -> e.getValue().setId(id));
+        });
+    }
+
+    private int bindCommande(PreparedStatement stmt, int i, Commande c) throws SQLException {
+        stmt.setLong(i++, c.getFournisseur().getId());
+        stmt.setTimestamp(i++, Timestamp.valueOf(c.getDateCreation()));
+        stmt.setString(i++, c.getStatut().name());
+        return i;
+    }
+
+    @Override
+    public void deleteAll(Collection<Long> ids) {
+        if (ids.isEmpty())
+            return;
+        List<Long> idList = new ArrayList<>(ids);
+        inTransaction("Erreur lors de la suppression des commandes: ", conn -> {
+            deleteWhereIn(conn, "ligne_commande", "commande_id", idList);
+            deleteWhereIn(conn, "commande", "id", idList);
+        });
+    }
+
+    @Override
+    public boolean receive(Long commandeId) {
+        boolean[] recue = new boolean[1];
+        Set<Long> produitIds = new LinkedHashSet<>();
+        inTransaction("Erreur lors de la réception de la commande: ", conn -> {
+            // Guarded, so two terminals cannot receive the same order twice
+            String statutSql = "UPDATE commande SET statut = ? WHERE id = ? AND statut = ?";
+            try (PreparedStatement stmt = conn.prepareStatement(statutSql)) {
+                stmt.setString(1, StatutCommande.RECUE.name());
+                stmt.setLong(2, commandeId);
+                stmt.setString(3, StatutCommande.EN_ATTENTE.name());
+                if (stmt.executeUpdate() == 0)
+                    return;
+            }
+            recue[0] = true;
+
+            // Quantities from the stored lines, by product id so concurrent
+            // writers lock rows in the same order
+            Map<Long, Integer> quantites = new LinkedHashMap<>();
+            String lignesSql = "SELECT produit_id, SUM(quantite) AS quantite FROM ligne_commande " +
+                    "WHERE commande_id = ? GROUP BY produit_id ORDER BY produit_id";
+            try (PreparedStatement stmt = conn.prepareStatement(lignesSql)) {
+                stmt.setLong(1, commandeId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        quantites.put(rs.getLong("produit_id"), rs.getInt("quantite"));
+                    }
+                }
+            }
+            if (quantites.isEmpty())
+                return;
+
+            String stockSql = "UPDATE produit SET stock_actuel = stock_actuel + ? WHERE id = ?";
+            try (PreparedStatement stmt = conn.prepareStatement(stockSql)) {
+                for (Map.Entry<Long, Integer> e : quantites.entrySet()) {
+                    stmt.setInt(1, e.getValue());
+                    stmt.setLong(2, e.getKey());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            produitIds.addAll(quantites.keySet());
+            logChanges(conn, ChangeLogPoller.PRODUIT, produitIds);
+        });
+
+        if (stockListener != null && !produitIds.isEmpty()) {
+            try {
+                stockListener.stockChanged(produitIds);
+            } catch (RuntimeException e) {
+                // The receipt is committed; the change_log poller will
+                // refresh the cache with the same rows
+                e.printStackTrace();
+            }
+        }
+        return recue[0];
+    }
+
     @Override
     public List<Commande> findByStatut(StatutCommande statut) {
         List<Commande> list = new ArrayList<>();
@@ -236,11 +427,55 @@ public class MySQLCommandeDAO extends AbstractMySQLDAO implements CommandeDAO {
         try (Connection conn = getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, statut.name());
+            try (ResultSet rs = stmt.executeQuery()) {
+                list.addAll(mapRows(sql, rs, this::mapResultSet));
+            }
+            loadLignes(list, conn);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return list;
+    }
+
+    @Override
+    public List<ExpenditureAggregate> aggregateExpenditure(StatutCommande statut, LocalDateTime start,
+            LocalDateTime end) {
+        List<ExpenditureAggregate> list = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(
+                "SELECT f.id, f.nom, COUNT(DISTINCT c.id) AS nb, " +
+                        "COALESCE(SUM(lc.quantite * p.prix_achat), 0) AS total " +
+                        "FROM commande c " +
+                        "JOIN fournisseur f ON c.fournisseur_id = f.id " +
+                        "LEFT JOIN ligne_commande lc ON lc.commande_id = c.id " +
+                        "LEFT JOIN produit p ON lc.produit_id = p.id");
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        if (statut != null) {
+            conditions.add("c.statut = ?");
+            params.add(statut.name());
+        }
+        if (start != null) {
+            conditions.add("c.date_creation >= ?");
+            params.add(Timestamp.valueOf(start));
+        }
+        if (end != null) {
+            conditions.add("c.date_creation <= ?");
+            params.add(Timestamp.valueOf(end));
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(" GROUP BY f.id, f.nom ORDER BY total DESC");
+
+        try (Connection conn = getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    Commande c = mapResultSet(rs);
-                    loadLignes(c, conn);
-                    list.add(c);
+                    list.add(new ExpenditureAggregate(rs.getLong("id"), rs.getString("nom"),
+                            rs.getBigDecimal("total"), rs.getLong("nb")));
                 }
             }
         } catch (SQLException e) {
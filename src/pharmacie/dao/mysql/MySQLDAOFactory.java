@@ -1,8 +1,42 @@
 package pharmacie.dao.mysql;
 
+import pharmacie.config.DBConnection;
+import pharmacie.dao.cache.CachingProduitDAO;
 import pharmacie.dao.interfaces.*;
 
 public class MySQLDAOFactory extends DAOFactory {
+    // One catalog cache per JVM, shared by every factory instance
+    private static final CachingProduitDAO PRODUITS = new CachingProduitDAO(new MySQLProduitDAO());
+    private static ChangeLogPoller changes;
+
+    public MySQLDAOFactory() {
+        startChangeLogPoller();
+    }
+
+    /**
+     * Starts following change_log once per JVM so the shared caches see the
+     * writes of other terminals.
+     */
+    private static synchronized void startChangeLogPoller() {
+        if (changes != null)
+            return;
+        DBConnection db = DBConnection.getInstance();
+        changes = new ChangeLogPoller(db.getChangeLogPollIntervalMs(), db.getChangeLogRetentionHours());
+        changes.subscribe(ChangeLogPoller.PRODUIT, PRODUITS::refreshAll);
+        changes.subscribe(ChangeLogPoller.VENTE, new MySQLVenteDAO()::salesLogged);
+        changes.start();
+    }
+
+    /**
+     * Stops the change_log poller. Called on application exit, before the
+     * connection pool is closed.
+     */
+    public static synchronized void shutdown() {
+        if (changes != null) {
+            changes.shutdown();
+        }
+    }
+
     @Override
     public UtilisateurDAO getUtilisateurDAO() {
         return new MySQLUtilisateurDAO();
@@ -10,7 +44,7 @@ public class MySQLDAOFactory extends DAOFactory {
 
     @Override
     public ProduitDAO getProduitDAO() {
-        return new MySQLProduitDAO();
+        return PRODUITS;
     }
 
     @Override
@@ -25,11 +59,15 @@ public class MySQLDAOFactory extends DAOFactory {
 
     @Override
     public CommandeDAO getCommandeDAO() {
-        return new MySQLCommandeDAO();
+        MySQLCommandeDAO dao = new MySQLCommandeDAO();
+        dao.setStockListener(PRODUITS);
+        return dao;
     }
 
     @Override
     public VenteDAO getVenteDAO() {
-        return new MySQLVenteDAO();
+        MySQLVenteDAO dao = new MySQLVenteDAO();
+        dao.setStockListener(PRODUITS);
+        return dao;
     }
 }
@@ -1,13 +1,18 @@
 package pharmacie.dao.mysql;
 
 import pharmacie.dao.interfaces.FournisseurDAO;
+import pharmacie.dao.interfaces.Page;
+import pharmacie.dao.interfaces.SortOrder;
 import pharmacie.exception.ValidationException;
 import pharmacie.model.Fournisseur;
 import pharmacie.util.ValidationUtils;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class MySQLFournisseurDAO extends AbstractMySQLDAO implements FournisseurDAO {
@@ -55,6 +60,18 @@ public class MySQLFournisseurDAO extends AbstractMySQLDAO implements Fournisseur
         return list;
     }
 
+    @Override
+    public Page<Fournisseur> findPage(String cursor, int limit, SortOrder sort) {
+        String sql = "SELECT * FROM fournisseur";
+        try (Connection conn = getConnection()) {
+            return queryPage(conn, sql, null, null, "id", cursor, limit, sort, (rs, cols) -> mapResultSet(rs), null,
+                    Fournisseur::getId);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return Page.empty();
+    }
+
     @Override
     public void save(Fournisseur entity) {
         // 1. Validate phone format
@@ -112,4 +129,66 @@ public class MySQLFournisseurDAO extends AbstractMySQLDAO implements Fournisseur
             throw new RuntimeException(e);
         }
     }
+
+    @Override
+    public void saveAll(Collection<Fournisseur> entities) {
+        if (entities.isEmpty())
+            return;
+
+        // Same validation as save(), with one uniqueness query per table for the whole batch
+        Map<String, Long> phones = new HashMap<>();
+        for (Fournisseur f : entities) {
+            ValidationUtils.validatePhone(f.getTelephone());
+            if (f.getTelephone() != null && !f.getTelephone().trim().isEmpty()) {
+                String phone = f.getTelephone().trim();
+                if (phones.containsKey(phone)) {
+                    throw new ValidationException("Le numéro " + phone + " apparaît plusieurs fois dans le lot.");
+                }
+                phones.put(phone, f.getId());
+            }
+        }
+        String used = findUsedPhone(phones, "fournisseur");
+        if (used != null) {
+            throw new ValidationException(
+                    "Le numéro " + used + " est déjà utilisé par un autre client ou fournisseur.");
+        }
+
+        List<Fournisseur> nouveaux = new ArrayList<>();
+        List<Fournisseur> existants = new ArrayList<>();
+        for (Fournisseur f : entities) {
+            (f.getId() == null ? nouveaux : existants).add(f);
+        }
+
+        inTransaction("Erreur lors de l'enregistrement des fournisseurs: ", conn -> {
+            insertRows(conn, "INSERT INTO fournisseur (nom, adresse, telephone, email, note_performance) VALUES", 5,
+                    nouveaux, (stmt, i, f) -> bindFournisseur(stmt, i, f), Fournisseur::setId);
+
+            String sql = "UPDATE fournisseur SET nom=?, adresse=?, telephone=?, email=?, note_performance=? WHERE id=?";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (Fournisseur f : existants) {
+                    int i = bindFournisseur(stmt, 1, f);
+                    stmt.setLong(i, f.getId());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+        });
+    }
+
+    private int bindFournisseur(PreparedStatement stmt, int i, Fournisseur f) throws SQLException {
+        stmt.setString(i++, f.getNom());
+        stmt.setString(i++, f.getAdresse());
+        stmt.setString(i++, f.getTelephone());
+        stmt.setString(i++, f.getEmail());
+        stmt.setInt(i++, f.getNotePerformance());
+        return i;
+    }
+
+    @Override
+    public void deleteAll(Collection<Long> ids) {
+        if (ids.isEmpty())
+            return;
+        inTransaction("Erreur lors de la suppression des fournisseurs: ",
+                conn -> deleteWhereIn(conn, "fournisseur", "id", new ArrayList<>(ids)));
+    }
 }
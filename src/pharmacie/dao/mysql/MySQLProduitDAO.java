@@ -1,25 +1,33 @@
 package pharmacie.dao.mysql;
 
 import pharmacie.dao.interfaces.ProduitDAO;
+import pharmacie.dao.interfaces.Page;
+import pharmacie.dao.interfaces.ProductListener;
+import pharmacie.dao.interfaces.SortOrder;
 import pharmacie.model.Produit;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class MySQLProduitDAO extends AbstractMySQLDAO implements ProduitDAO {
+    private final List<ProductListener> listeners = new CopyOnWriteArrayList<>();
 
-    private Produit mapResultSet(ResultSet rs) throws SQLException {
+
+    private Produit mapResultSet(ResultSet rs, ColumnIndex cols) throws SQLException {
         Produit p = new Produit();
-        p.setId(rs.getLong("id"));
-        p.setNom(rs.getString("nom"));
-        p.setDescription(rs.getString("description"));
-        p.setPrixAchat(rs.getBigDecimal("prix_achat"));
-        p.setPrixVente(rs.getBigDecimal("prix_vente"));
-        p.setStockActuel(rs.getInt("stock_actuel"));
-        p.setSeuilMin(rs.getInt("seuil_min"));
-        p.setCodeBarre(rs.getString("code_barre"));
+        p.setId(rs.getLong(cols.of("id")));
+        p.setNom(rs.getString(cols.of("nom")));
+        p.setDescription(rs.getString(cols.of("description")));
+        p.setPrixAchat(rs.getBigDecimal(cols.of("prix_achat")));
+        p.setPrixVente(rs.getBigDecimal(cols.of("prix_vente")));
+        p.setStockActuel(rs.getInt(cols.of("stock_actuel")));
+        p.setSeuilMin(rs.getInt(cols.of("seuil_min")));
+        p.setCodeBarre(rs.getString(cols.of("code_barre")));
         return p;
     }
 
@@ -31,7 +39,7 @@ public class MySQLProduitDAO extends AbstractMySQLDAO implements ProduitDAO {
             stmt.setLong(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return Optional.of(mapResultSet(rs));
+                    return Optional.of(mapResultSet(rs, ColumnIndex.of(sql, rs)));
                 }
             }
         } catch (SQLException e) {
@@ -47,51 +55,121 @@ public class MySQLProduitDAO extends AbstractMySQLDAO implements ProduitDAO {
         try (Connection conn = getConnection();
                 Statement stmt = conn.createStatement();
                 ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                list.add(mapResultSet(rs));
-            }
+            list.addAll(mapRows(sql, rs, this::mapResultSet));
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return list;
     }
 
+    @Override
+    public List<Produit> loadAll() {
+        String sql = "SELECT * FROM produit";
+        try (Connection conn = getConnection();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(sql)) {
+            return mapRows(sql, rs, this::mapResultSet);
+        } catch (SQLException e) {
+            throw new RuntimeException("Erreur lors de la lecture des produits: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<Produit> findByIds(Collection<Long> ids) {
+        List<Long> list = new ArrayList<>(ids);
+        List<Produit> found = new ArrayList<>();
+        try (Connection conn = getConnection()) {
+            for (int from = 0; from < list.size(); from += IN_CHUNK_SIZE) {
+                List<Long> chunk = list.subList(from, Math.min(from + IN_CHUNK_SIZE, list.size()));
+                String sql = "SELECT * FROM produit WHERE id IN (" + placeholders(chunk.size()) + ")";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    int i = 1;
+                    for (Long id : chunk) {
+                        stmt.setLong(i++, id);
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        found.addAll(mapRows(sql, rs, this::mapResultSet));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erreur lors de la lecture des produits: " + e.getMessage(), e);
+        }
+        return found;
+    }
+
+    @Override
+    public Page<Produit> findPage(String cursor, int limit, SortOrder sort) {
+        String sql = "SELECT * FROM produit";
+        try (Connection conn = getConnection()) {
+            return queryPage(conn, sql, null, null, "id", cursor, limit, sort, this::mapResultSet, null,
+                    Produit::getId);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return Page.empty();
+    }
+
     @Override
     public void save(Produit entity) {
-        if (entity.getId() == null) {
-            String sql = "INSERT INTO produit (nom, description, prix_achat, prix_vente, stock_actuel, seuil_min, code_barre) VALUES (?, ?, ?, ?, ?, ?, ?)";
-            try (Connection conn = getConnection();
-                    PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-                stmt.setString(1, entity.getNom());
-                stmt.setString(2, entity.getDescription());
-                stmt.setBigDecimal(3, entity.getPrixAchat());
-                stmt.setBigDecimal(4, entity.getPrixVente());
-                stmt.setInt(5, entity.getStockActuel());
-                stmt.setInt(6, entity.getSeuilMin());
-                stmt.setString(7, entity.getCodeBarre());
-                stmt.executeUpdate();
-                try (ResultSet gk = stmt.getGeneratedKeys()) {
-                    if (gk.next())
-                        entity.setId(gk.getLong(1));
+        boolean isNew = entity.getId() == null;
+        Connection conn = null;
+        try {
+            conn = getConnection();
+            conn.setAutoCommit(false);
+            if (isNew) {
+                String sql = "INSERT INTO produit (nom, description, prix_achat, prix_vente, stock_actuel, seuil_min, code_barre) VALUES (?, ?, ?, ?, ?, ?, ?)";
+                try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    stmt.setString(1, entity.getNom());
+                    stmt.setString(2, entity.getDescription());
+                    stmt.setBigDecimal(3, entity.getPrixAchat());
+                    stmt.setBigDecimal(4, entity.getPrixVente());
+                    stmt.setInt(5, entity.getStockActuel());
+                    stmt.setInt(6, entity.getSeuilMin());
+                    stmt.setString(7, entity.getCodeBarre());
+                    stmt.executeUpdate();
+                    try (ResultSet gk = stmt.getGeneratedKeys()) {
+                        if (gk.next())
+                            entity.setId(gk.getLong(1));
+                    }
+                }
+            } else {
+                String sql = "UPDATE produit SET nom=?, description=?, prix_achat=?, prix_vente=?, stock_actuel=?, seuil_min=?, code_barre=? WHERE id=?";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setString(1, entity.getNom());
+                    stmt.setString(2, entity.getDescription());
+                    stmt.setBigDecimal(3, entity.getPrixAchat());
+                    stmt.setBigDecimal(4, entity.getPrixVente());
+                    stmt.setInt(5, entity.getStockActuel());
+                    stmt.setInt(6, entity.getSeuilMin());
+                    stmt.setString(7, entity.getCodeBarre());
+                    stmt.setLong(8, entity.getId());
+                    stmt.executeUpdate();
                 }
-            } catch (SQLException e) {
-                e.printStackTrace();
             }
-        } else {
-            String sql = "UPDATE produit SET nom=?, description=?, prix_achat=?, prix_vente=?, stock_actuel=?, seuil_min=?, code_barre=? WHERE id=?";
-            try (Connection conn = getConnection();
-                    PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, entity.getNom());
-                stmt.setString(2, entity.getDescription());
-                stmt.setBigDecimal(3, entity.getPrixAchat());
-                stmt.setBigDecimal(4, entity.getPrixVente());
-                stmt.setInt(5, entity.getStockActuel());
-                stmt.setInt(6, entity.getSeuilMin());
-                stmt.setString(7, entity.getCodeBarre());
-                stmt.setLong(8, entity.getId());
-                stmt.executeUpdate();
-            } catch (SQLException e) {
-                e.printStackTrace();
+            logChanges(conn, ChangeLogPoller.PRODUIT, Collections.singletonList(entity.getId()));
+            conn.commit();
+            fireSaved(Collections.singletonList(entity));
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            if (isNew) {
+                entity.setId(null);
+            }
+            e.printStackTrace();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
             }
         }
     }
@@ -141,8 +219,10 @@ public class MySQLProduitDAO extends AbstractMySQLDAO implements ProduitDAO {
                 pstmt.setLong(1, id);
                 pstmt.executeUpdate();
             }
+            logChanges(conn, ChangeLogPoller.PRODUIT, Collections.singletonList(id));
 
             conn.commit();
+            fireRemoved(Collections.singletonList(id));
         } catch (SQLException e) {
             if (conn != null) {
                 try {
@@ -165,6 +245,90 @@ public class MySQLProduitDAO extends AbstractMySQLDAO implements ProduitDAO {
         }
     }
 
+    @Override
+    public void saveAll(Collection<Produit> entities) {
+        if (entities.isEmpty())
+            return;
+
+        List<Produit> nouveaux = new ArrayList<>();
+        List<Produit> existants = new ArrayList<>();
+        for (Produit p : entities) {
+            (p.getId() == null ? nouveaux : existants).add(p);
+        }
+
+        inTransaction("Erreur lors de l'enregistrement des produits: ", conn -> {
+            insertRows(conn, "INSERT INTO produit (nom, description, prix_achat, prix_vente, stock_actuel, seuil_min, code_barre) VALUES",
+                    7, nouveaux, (stmt, i, p) -> {
+                        stmt.setString(i++, p.getNom());
+                        stmt.setString(i++, p.getDescription());
+                        stmt.setBigDecimal(i++, p.getPrixAchat());
+                        stmt.setBigDecimal(i++, p.getPrixVente());
+                        stmt.setInt(i++, p.getStockActuel());
+                        stmt.setInt(i++, p.getSeuilMin());
+                        stmt.setString(i++, p.getCodeBarre());
+                        return i;
+                    }, Produit::setId);
+
+            String sql = "UPDATE produit SET nom=?, description=?, prix_achat=?, prix_vente=?, stock_actuel=?, seuil_min=?, code_barre=? WHERE id=?";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (Produit p : existants) {
+                    stmt.setString(1, p.getNom());
+                    stmt.setString(2, p.getDescription());
+                    stmt.setBigDecimal(3, p.getPrixAchat());
+                    stmt.setBigDecimal(4, p.getPrixVente());
+                    stmt.setInt(5, p.getStockActuel());
+                    stmt.setInt(6, p.getSeuilMin());
+                    stmt.setString(7, p.getCodeBarre());
+                    stmt.setLong(8, p.getId());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+
+            List<Long> ids = new ArrayList<>();
+            for (Produit p : entities) {
+                ids.add(p.getId());
+            }
+            logChanges(conn, ChangeLogPoller.PRODUIT, ids);
+        });
+        fireSaved(entities);
+    }
+
+    @Override
+    public void deleteAll(Collection<Long> ids) {
+        List<Long> idList = new ArrayList<>(ids);
+        if (idList.isEmpty())
+            return;
+
+        inTransaction("Erreur lors de la suppression des produits: ", conn -> {
+            // 1. Same rule as delete(): refuse products that still have stock
+            for (int from = 0; from < idList.size(); from += IN_CHUNK_SIZE) {
+                List<Long> chunk = idList.subList(from, Math.min(from + IN_CHUNK_SIZE, idList.size()));
+                String checkSql = "SELECT nom, stock_actuel FROM produit WHERE stock_actuel > 0 AND id IN ("
+                        + placeholders(chunk.size()) + ")";
+                try (PreparedStatement stmt = conn.prepareStatement(checkSql)) {
+                    int i = 1;
+                    for (Long id : chunk) {
+                        stmt.setLong(i++, id);
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            throw new SQLException("Impossible de supprimer '" + rs.getString("nom") + "' car il reste "
+                                    + rs.getInt("stock_actuel") + " unités en stock. Veuillez vider le stock d'abord.");
+                        }
+                    }
+                }
+            }
+
+            // 2. Cascade delete from history, then the products
+            deleteWhereIn(conn, "ligne_vente", "produit_id", idList);
+            deleteWhereIn(conn, "ligne_commande", "produit_id", idList);
+            deleteWhereIn(conn, "produit", "id", idList);
+            logChanges(conn, ChangeLogPoller.PRODUIT, idList);
+        });
+        fireRemoved(idList);
+    }
+
     @Override
     public Optional<Produit> findByCodeBarre(String codeBarre) {
         String sql = "SELECT * FROM produit WHERE code_barre = ?";
@@ -173,7 +337,7 @@ public class MySQLProduitDAO extends AbstractMySQLDAO implements ProduitDAO {
             stmt.setString(1, codeBarre);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next())
-                    return Optional.of(mapResultSet(rs));
+                    return Optional.of(mapResultSet(rs, ColumnIndex.of(sql, rs)));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -188,12 +352,45 @@ public class MySQLProduitDAO extends AbstractMySQLDAO implements ProduitDAO {
         try (Connection conn = getConnection();
                 Statement stmt = conn.createStatement();
                 ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                list.add(mapResultSet(rs));
-            }
+            list.addAll(mapRows(sql, rs, this::mapResultSet));
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return list;
     }
+
+    @Override
+    public void addProductListener(ProductListener listener) {
+        listeners.add(listener);
+    }
+
+    // The write is committed, a failing listener must not fail it
+    private void fireSaved(Collection<Produit> produits) {
+        if (listeners.isEmpty())
+            return;
+        List<Produit> copies = new ArrayList<>();
+        for (Produit p : produits) {
+            Produit c = new Produit(p.getId(), p.getNom(), p.getPrixAchat(), p.getPrixVente(), p.getStockActuel(),
+                    p.getSeuilMin(), p.getCodeBarre());
+            c.setDescription(p.getDescription());
+            copies.add(c);
+        }
+        for (ProductListener listener : listeners) {
+            try {
+                listener.productsSaved(copies);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void fireRemoved(Collection<Long> ids) {
+        for (ProductListener listener : listeners) {
+            try {
+                listener.productsRemoved(ids);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
 }
@@ -1,11 +1,14 @@
 package pharmacie.dao.mysql;
 
 import pharmacie.dao.interfaces.UtilisateurDAO;
+import pharmacie.dao.interfaces.Page;
+import pharmacie.dao.interfaces.SortOrder;
 import pharmacie.model.Role;
 import pharmacie.model.Utilisateur;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -56,6 +59,18 @@ public class MySQLUtilisateurDAO extends AbstractMySQLDAO implements Utilisateur
         return list;
     }
 
+    @Override
+    public Page<Utilisateur> findPage(String cursor, int limit, SortOrder sort) {
+        String sql = "SELECT * FROM utilisateur";
+        try (Connection conn = getConnection()) {
+            return queryPage(conn, sql, null, null, "id", cursor, limit, sort, (rs, cols) -> mapResultSet(rs), null,
+                    Utilisateur::getId);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return Page.empty();
+    }
+
     @Override
     public void save(Utilisateur entity) {
         if (entity.getId() == null) {
@@ -107,6 +122,50 @@ public class MySQLUtilisateurDAO extends AbstractMySQLDAO implements Utilisateur
         }
     }
 
+    @Override
+    public void saveAll(Collection<Utilisateur> entities) {
+        if (entities.isEmpty())
+            return;
+
+        List<Utilisateur> nouveaux = new ArrayList<>();
+        List<Utilisateur> existants = new ArrayList<>();
+        for (Utilisateur u : entities) {
+            (u.getId() == null ? nouveaux : existants).add(u);
+        }
+
+        inTransaction("Erreur lors de l'enregistrement des utilisateurs: ", conn -> {
+            insertRows(conn, "INSERT INTO utilisateur (nom, prenom, email, password_hash, role) VALUES", 5, nouveaux,
+                    (stmt, i, u) -> bindUtilisateur(stmt, i, u), Utilisateur::setId);
+
+            String sql = "UPDATE utilisateur SET nom=?, prenom=?, email=?, password_hash=?, role=? WHERE id=?";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (Utilisateur u : existants) {
+                    int i = bindUtilisateur(stmt, 1, u);
+                    stmt.setLong(i, u.getId());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+        });
+    }
+
+    private int bindUtilisateur(PreparedStatement stmt, int i, Utilisateur u) throws SQLException {
+        stmt.setString(i++, u.getNom());
+        stmt.setString(i++, u.getPrenom());
+        stmt.setString(i++, u.getEmail());
+        stmt.setString(i++, u.getPasswordHash());
+        stmt.setString(i++, u.getRole().name());
+        return i;
+    }
+
+    @Override
+    public void deleteAll(Collection<Long> ids) {
+        if (ids.isEmpty())
+            return;
+        inTransaction("Erreur lors de la suppression: ",
+                conn -> deleteWhereIn(conn, "utilisateur", "id", new ArrayList<>(ids)));
+    }
+
     @Override
     public Optional<Utilisateur> findByEmail(String email) {
         String sql = "SELECT * FROM utilisateur WHERE email = ?";
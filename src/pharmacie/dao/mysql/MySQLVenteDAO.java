@@ -1,79 +1,162 @@
 package pharmacie.dao.mysql;
 
+import pharmacie.dao.interfaces.Page;
+import pharmacie.dao.interfaces.RevenueAggregate;
+import pharmacie.dao.interfaces.SaleListener;
+import pharmacie.dao.interfaces.SortOrder;
+import pharmacie.dao.interfaces.StockListener;
+import pharmacie.dao.interfaces.TimeBucket;
 import pharmacie.dao.interfaces.VenteDAO;
+import pharmacie.dao.interfaces.VenteJour;
+import pharmacie.dao.interfaces.VentesProduit;
+import pharmacie.exception.StockInsuffisantException;
 import pharmacie.model.*;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 public class MySQLVenteDAO extends AbstractMySQLDAO implements VenteDAO {
 
-    private void loadLignes(Vente v, Connection conn) throws SQLException {
-        String sql = "SELECT lv.*, p.nom, p.code_barre, p.prix_vente as p_prix_vente FROM ligne_vente lv " +
-                "JOIN produit p ON lv.produit_id = p.id WHERE lv.vente_id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setLong(1, v.getId());
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Produit p = new Produit();
-                    p.setId(rs.getLong("produit_id"));
-                    p.setNom(rs.getString("nom"));
-                    p.setCodeBarre(rs.getString("code_barre"));
-
-                    LigneVente lv = new LigneVente();
-                    lv.setId(rs.getLong("id"));
-                    lv.setProduit(p);
-                    lv.setQuantite(rs.getInt("quantite"));
-                    lv.setPrixUnitaire(rs.getBigDecimal("prix_unitaire"));
-                    lv.setSousTotal(rs.getBigDecimal("sous_total"));
-
-                    v.ajouterLigne(lv);
+    // Max number of sale ids bound into one IN (...) query when hydrating lines
+    private static final int DEFAULT_CHUNK_SIZE = 500;
+
+    // Shared by every instance, as the factory hands out a new DAO per call
+    private static final List<SaleListener> SALE_LISTENERS = new CopyOnWriteArrayList<>();
+
+    // Sales committed by this process (id -> commit time), already handed to
+    // the listeners, so salesLogged() skips them when change_log returns them
+    private static final Map<Long, Long> LOCAL_SALES = new ConcurrentHashMap<>();
+    // Kept at most this long, in case the poller never sees them
+    private static final long LOCAL_SALE_TTL_MS = 600_000;
+
+    private int chunkSize;
+    private StockListener stockListener;
+
+    public MySQLVenteDAO() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    public MySQLVenteDAO(int chunkSize) {
+        setChunkSize(chunkSize);
+    }
+
+    public final void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("La taille de lot doit être positive.");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Listener told which products' stock each committed sale took (the
+     * product cache), or null.
+     */
+    public void setStockListener(StockListener stockListener) {
+        this.stockListener = stockListener;
+    }
+
+    /**
+     * Loads the lines of all given sales with one query per chunk of
+     * {@code chunkSize} sales instead of one query per sale.
+     */
+    private void loadLignes(List<Vente> ventes, Connection conn) throws SQLException {
+        for (int from = 0; from < ventes.size(); from += chunkSize) {
+            List<Vente> chunk = ventes.subList(from, Math.min(from + chunkSize, ventes.size()));
+            Map<Long, Vente> byId = new HashMap<>();
+            for (Vente v : chunk) {
+                byId.put(v.getId(), v);
+            }
+
+            String sql = "SELECT lv.*, p.nom, p.code_barre, p.prix_vente as p_prix_vente FROM ligne_vente lv " +
+                    "JOIN produit p ON lv.produit_id = p.id WHERE lv.vente_id IN (" + placeholders(chunk.size())
+                    + ") ORDER BY lv.vente_id, lv.id";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int i = 1;
+                for (Vente v : chunk) {
+                    stmt.setLong(i++, v.getId());
+                }
+                Map<Long, Produit> produits = new HashMap<>();
+                try (ResultSet rs = stmt.executeQuery()) {
+                    ColumnIndex cols = ColumnIndex.of(sql, rs);
+                    int idCol = cols.of("id");
+                    int venteIdCol = cols.of("vente_id");
+                    int produitIdCol = cols.of("produit_id");
+                    int nomCol = cols.of("nom");
+                    int codeBarreCol = cols.of("code_barre");
+                    int quantiteCol = cols.of("quantite");
+                    int prixUnitaireCol = cols.of("prix_unitaire");
+                    int sousTotalCol = cols.of("sous_total");
+                    while (rs.next()) {
+                        long produitId = rs.getLong(produitIdCol);
+                        Produit p = produits.get(produitId);
+                        if (p == null) {
+                            p = new Produit();
+                            p.setId(produitId);
+                            p.setNom(rs.getString(nomCol));
+                            p.setCodeBarre(rs.getString(codeBarreCol));
+                            produits.put(produitId, p);
+                        }
+
+                        LigneVente lv = new LigneVente();
+                        lv.setId(rs.getLong(idCol));
+                        lv.setProduit(p);
+                        lv.setQuantite(rs.getInt(quantiteCol));
+                        lv.setPrixUnitaire(rs.getBigDecimal(prixUnitaireCol));
+                        lv.setSousTotal(rs.getBigDecimal(sousTotalCol));
+
+                        byId.get(rs.getLong(venteIdCol)).ajouterLigne(lv);
+                    }
                 }
             }
         }
     }
 
-    private Vente mapResultSet(ResultSet rs) throws SQLException {
+    private Vente mapResultSet(ResultSet rs, ColumnIndex cols) throws SQLException {
         Vente v = new Vente();
-        v.setId(rs.getLong("id"));
-        v.setDateVente(rs.getTimestamp("date_vente").toLocalDateTime());
-        v.setTotal(rs.getBigDecimal("total"));
+        v.setId(rs.getLong(cols.of("id")));
+        v.setDateVente(rs.getTimestamp(cols.of("date_vente")).toLocalDateTime());
+        v.setTotal(rs.getBigDecimal(cols.of("total")));
 
         // Client
-        Long clientId = rs.getLong("client_id");
+        Long clientId = rs.getLong(cols.of("client_id"));
         if (!rs.wasNull()) {
             Client c = new Client();
             c.setId(clientId);
-            if (hasColumn(rs, "client_nom"))
-                c.setNom(rs.getString("client_nom"));
-            if (hasColumn(rs, "client_prenom"))
-                c.setPrenom(rs.getString("client_prenom"));
+            int nomCol = cols.optional("client_nom");
+            if (nomCol > 0)
+                c.setNom(rs.getString(nomCol));
+            int prenomCol = cols.optional("client_prenom");
+            if (prenomCol > 0)
+                c.setPrenom(rs.getString(prenomCol));
             v.setClient(c);
         }
 
         // Utilisateur
         Utilisateur u = new Utilisateur();
-        u.setId(rs.getLong("utilisateur_id"));
-        if (hasColumn(rs, "user_nom"))
-            u.setNom(rs.getString("user_nom"));
+        u.setId(rs.getLong(cols.of("utilisateur_id")));
+        int userNomCol = cols.optional("user_nom");
+        if (userNomCol > 0)
+            u.setNom(rs.getString(userNomCol));
         v.setUtilisateur(u);
 
         return v;
     }
 
-    private boolean hasColumn(ResultSet rs, String colName) throws SQLException {
-        ResultSetMetaData meta = rs.getMetaData();
-        int columns = meta.getColumnCount();
-        for (int i = 1; i <= columns; i++) {
-            if (colName.equalsIgnoreCase(meta.getColumnLabel(i)))
-                return true;
-        }
-        return false;
-    }
-
     @Override
     public Optional<Vente> findById(Long id) {
         String sql = "SELECT v.*, c.nom as client_nom, c.prenom as client_prenom, u.nom as user_nom " +
@@ -86,8 +169,8 @@ public class MySQLVenteDAO extends AbstractMySQLDAO implements VenteDAO {
             stmt.setLong(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    Vente v = mapResultSet(rs);
-                    loadLignes(v, conn);
+                    Vente v = mapResultSet(rs, ColumnIndex.of(sql, rs));
+                    loadLignes(Collections.singletonList(v), conn);
                     return Optional.of(v);
                 }
             }
@@ -108,102 +191,210 @@ public class MySQLVenteDAO extends AbstractMySQLDAO implements VenteDAO {
         try (Connection conn = getConnection();
                 Statement stmt = conn.createStatement();
                 ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                Vente v = mapResultSet(rs);
-                loadLignes(v, conn);
-                list.add(v);
-            }
+            list.addAll(mapRows(sql, rs, this::mapResultSet));
+            loadLignes(list, conn);
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return list;
     }
 
+    @Override
+    public Page<Vente> findPage(String cursor, int limit, SortOrder sort) {
+        return findPage(cursor, limit, sort, true);
+    }
+
+    @Override
+    public Page<Vente> findHeaders(String cursor, int limit, SortOrder sort) {
+        return findPage(cursor, limit, sort, false);
+    }
+
+    private Page<Vente> findPage(String cursor, int limit, SortOrder sort, boolean withLignes) {
+        String sql = "SELECT v.*, c.nom as client_nom, c.prenom as client_prenom, u.nom as user_nom " +
+                "FROM vente v " +
+                "LEFT JOIN client c ON v.client_id = c.id " +
+                "JOIN utilisateur u ON v.utilisateur_id = u.id";
+        try (Connection conn = getConnection()) {
+            Page<Vente> page = queryPage(conn, sql, null, "v.date_vente", "v.id", cursor, limit, sort,
+                    this::mapResultSet, Vente::getDateVente, Vente::getId);
+            if (withLignes)
+                loadLignes(page.getItems(), conn);
+            return page;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return Page.empty();
+    }
+
+    @Override
+    public Page<Vente> findByClient(Long clientId, String cursor, int limit) {
+        String sql = "SELECT v.*, c.nom as client_nom, c.prenom as client_prenom, u.nom as user_nom " +
+                "FROM vente v " +
+                "LEFT JOIN client c ON v.client_id = c.id " +
+                "JOIN utilisateur u ON v.utilisateur_id = u.id";
+        try (Connection conn = getConnection()) {
+            Page<Vente> page = queryPage(conn, sql, "v.client_id = ?", "v.date_vente", "v.id", cursor, limit,
+                    SortOrder.DESC, this::mapResultSet, Vente::getDateVente, Vente::getId, clientId);
+            loadLignes(page.getItems(), conn);
+            return page;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return Page.empty();
+    }
+
     @Override
     public void save(Vente entity) {
+        saveAll(Collections.singletonList(entity));
+    }
+
+    /**
+     * Saves the sales, their lines and the stock decrement in one
+     * transaction: one multi-row INSERT for new headers, one batch for
+     * updated headers, one guarded stock batch and one multi-row INSERT for
+     * all lines, whatever the number of sales.
+     */
+    @Override
+    public void saveAll(Collection<Vente> entities) {
+        if (entities.isEmpty())
+            return;
+
+        List<Vente> nouvelles = new ArrayList<>();
+        List<Vente> existantes = new ArrayList<>();
+        for (Vente v : entities) {
+            // Recalculate total just in case
+            v.calculerTotal();
+            (v.getId() == null ? nouvelles : existantes).add(v);
+        }
+
         Connection conn = null;
         try {
             conn = getConnection();
             conn.setAutoCommit(false);
 
-            // Recalculate total just in case
-            entity.calculerTotal();
-
-            if (entity.getId() == null) {
-                // Insert
-                String sql = "INSERT INTO vente (client_id, utilisateur_id, date_vente, total) VALUES (?, ?, ?, ?)";
-                try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-                    if (entity.getClient() != null && entity.getClient().getId() != null)
-                        stmt.setLong(1, entity.getClient().getId());
-                    else
-                        stmt.setNull(1, Types.BIGINT);
-
-                    stmt.setLong(2, entity.getUtilisateur().getId());
-                    stmt.setTimestamp(3, Timestamp.valueOf(entity.getDateVente()));
-                    stmt.setBigDecimal(4, entity.getTotal());
-                    stmt.executeUpdate();
-
-                    try (ResultSet gk = stmt.getGeneratedKeys()) {
-                        if (gk.next())
-                            entity.setId(gk.getLong(1));
-                    }
-                }
-            } else {
+            // Insert
+            insertRows(conn, "INSERT INTO vente (client_id, utilisateur_id, date_vente, total) VALUES", 4, nouvelles,
+                    this::bindVente, Vente::setId);
+            List<Long> nouveauxIds = new ArrayList<>();
+            for (Vente v : nouvelles) {
+                nouveauxIds.add(v.getId());
+            }
+            // Other terminals feed their sale listeners from these rows
+            logChanges(conn, ChangeLogPoller.VENTE, nouveauxIds);
+
+            if (!existantes.isEmpty()) {
                 // Update (rare for sales but possible)
+                List<Long> ids = new ArrayList<>();
+                for (Vente v : existantes) {
+                    ids.add(v.getId());
+                }
+                // Old lines and old date leave the rollup before they are rewritten
+                applyDailyRollup(conn, ids, -1);
+
                 String sql = "UPDATE vente SET client_id=?, utilisateur_id=?, date_vente=?, total=? WHERE id=?";
                 try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                    if (entity.getClient() != null && entity.getClient().getId() != null)
-                        stmt.setLong(1, entity.getClient().getId());
-                    else
-                        stmt.setNull(1, Types.BIGINT);
-                    stmt.setLong(2, entity.getUtilisateur().getId());
-                    stmt.setTimestamp(3, Timestamp.valueOf(entity.getDateVente()));
-                    stmt.setBigDecimal(4, entity.getTotal());
-                    stmt.setLong(5, entity.getId());
-                    stmt.executeUpdate();
+                    for (Vente v : existantes) {
+                        int i = bindVente(stmt, 1, v);
+                        stmt.setLong(i, v.getId());
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                    // Delete lines
+                    deleteWhereIn(conn, "ligne_vente", "vente_id", ids);
                 }
-                // Delete lines
-                String del = "DELETE FROM ligne_vente WHERE vente_id=?";
-                try (PreparedStatement ps = conn.prepareStatement(del)) {
-                    ps.setLong(1, entity.getId());
-                    ps.executeUpdate();
+            }
+
+            List<Map.Entry<Vente, LigneVente>> lignes = new ArrayList<>();
+            for (Vente v : entities) {
+                for (LigneVente lv : v.getLignes()) {
+                    lignes.add(new AbstractMap.SimpleEntry<>(v, lv));
                 }
             }
 
-            // Insert lines
-            String lineSql = "INSERT INTO ligne_vente (vente_id, produit_id, quantite, prix_unitaire) VALUES (?, ?, ?, ?)";
-            try (PreparedStatement stmt = conn.prepareStatement(lineSql)) {
-                for (LigneVente lv : entity.getLignes()) {
-                    stmt.setLong(1, entity.getId());
-                    stmt.setLong(2, lv.getProduit().getId());
-                    stmt.setInt(3, lv.getQuantite());
-                    stmt.setBigDecimal(4, lv.getPrixUnitaire());
-                    stmt.addBatch();
-
-                    // Note: Stock update is typically done by Service layer, but strictly speaking
-                    // transactional data integrity suggests doing it here OR in a service
-                    // transaction.
-                    // The prompt says "Automatic stock update after sale".
-                    // I will ADD stock update logic here to ensure consistency within the
-                    // transaction.
-                    String stockSql = "UPDATE produit SET stock_actuel = stock_actuel - ? WHERE id = ?";
-                    try (PreparedStatement stockStmt = conn.prepareStatement(stockSql)) {
-                        stockStmt.setInt(1, lv.getQuantite());
-                        stockStmt.setLong(2, lv.getProduit().getId());
-                        stockStmt.executeUpdate();
+            // Guarded stock decrement, one batch for all lines. A line whose
+            // product does not have enough stock matches no row (update count 0)
+            // and everything is rolled back. Lines are sorted by product id
+            // so concurrent checkouts lock rows in the same order.
+            List<LigneVente> byProduit = new ArrayList<>();
+            for (Map.Entry<Vente, LigneVente> e : lignes) {
+                byProduit.add(e.getValue());
+            }
+            byProduit.sort(Comparator.comparing(lv -> lv.getProduit().getId()));
+            String stockSql = "UPDATE produit SET stock_actuel = stock_actuel - ? WHERE id = ? AND stock_actuel >= ?";
+            try (PreparedStatement stockStmt = conn.prepareStatement(stockSql)) {
+                for (LigneVente lv : byProduit) {
+                    stockStmt.setInt(1, lv.getQuantite());
+                    stockStmt.setLong(2, lv.getProduit().getId());
+                    stockStmt.setInt(3, lv.getQuantite());
+                    stockStmt.addBatch();
+                }
+                int[] counts = stockStmt.executeBatch();
+                List<String> manquants = new ArrayList<>();
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 0) {
+                        manquants.add(byProduit.get(i).getProduit().getNom());
                     }
                 }
-                stmt.executeBatch();
+                if (!manquants.isEmpty()) {
+                    throw new StockInsuffisantException("Stock insuffisant pour: " + String.join(", ", manquants));
+                }
+            }
+            List<Long> produitIds = new ArrayList<>();
+            for (LigneVente lv : byProduit) {
+                produitIds.add(lv.getProduit().getId());
+            }
+            logChanges(conn, ChangeLogPoller.PRODUIT, produitIds);
+
+            // Insert lines
+            insertRows(conn, "INSERT INTO ligne_vente (vente_id, produit_id, quantite, prix_unitaire) VALUES", 4,
+                    lignes, (stmt, i, e) -> {
+                        stmt.setLong(i++, e.getKey().getId());
+                        stmt.setLong(i++, e.getValue().getProduit().getId());
+                        stmt.setInt(i++, e.getValue().getQuantite());
+                        stmt.setBigDecimal(i++, e.getValue().getPrixUnitaire());
+                        return i;
+                    }, (e, id) -> e.getValue().setId(id));
+
+            List<Long> venteIds = new ArrayList<>();
+            for (Vente v : entities) {
+                venteIds.add(v.getId());
             }
+            recordPurchasePrices(conn, venteIds);
+            applyDailyRollup(conn, venteIds, 1);
 
+            // Before commit, so the poller cannot see them as another
+            // terminal's sales first
+            long now = System.currentTimeMillis();
+            for (Long id : nouveauxIds) {
+                LOCAL_SALES.put(id, now);
+            }
             conn.commit();
-        } catch (SQLException e) {
+
+            if (stockListener != null) {
+                try {
+                    stockListener.stockChanged(new HashSet<>(produitIds));
+                } catch (RuntimeException ex) {
+                    // The sale is committed; the change_log poller will
+                    // refresh the cache with the same rows
+                    ex.printStackTrace();
+                }
+            }
+            if (!nouvelles.isEmpty()) {
+                notifySaleListeners(nouvelles);
+            }
+        } catch (SQLException | StockInsuffisantException e) {
             if (conn != null)
                 try {
                     conn.rollback();
                 } catch (SQLException ex) {
                     ex.printStackTrace();
                 }
+            // The generated ids were rolled back with the headers
+            for (Vente v : nouvelles) {
+                if (v.getId() != null)
+                    LOCAL_SALES.remove(v.getId());
+                v.setId(null);
+            }
             throw new RuntimeException("Erreur lors de l'enregistrement de la vente: " + e.getMessage(), e);
         } finally {
             if (conn != null)
@@ -216,20 +407,105 @@ public class MySQLVenteDAO extends AbstractMySQLDAO implements VenteDAO {
         }
     }
 
+    private static void notifySaleListeners(List<Vente> ventes) {
+        for (SaleListener listener : SALE_LISTENERS) {
+            try {
+                listener.salesRecorded(ventes);
+            } catch (RuntimeException ex) {
+                // The sale is committed, statistics must not fail it
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Called by the change_log poller with the ids of the sales created since
+     * its previous poll. Those committed by other terminals are read, with
+     * their lines, and handed to the sale listeners as if saved here; this
+     * process's own sales were handed over at commit and are skipped.
+     */
+    public void salesLogged(Set<Long> ids) {
+        long now = System.currentTimeMillis();
+        LOCAL_SALES.values().removeIf(at -> now - at > LOCAL_SALE_TTL_MS);
+        List<Long> autres = new ArrayList<>();
+        for (Long id : ids) {
+            if (LOCAL_SALES.remove(id) == null)
+                autres.add(id);
+        }
+        if (autres.isEmpty() || SALE_LISTENERS.isEmpty())
+            return;
+        List<Vente> ventes = findByIds(autres);
+        if (!ventes.isEmpty())
+            notifySaleListeners(ventes);
+    }
+
+    /**
+     * The sales of the given ids with their lines, in date order. A read
+     * error is thrown rather than reported as "not found".
+     */
+    private List<Vente> findByIds(List<Long> ids) {
+        List<Vente> list = new ArrayList<>();
+        try (Connection conn = getConnection()) {
+            for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+                List<Long> chunk = ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()));
+                String sql = "SELECT v.*, c.nom as client_nom, c.prenom as client_prenom, u.nom as user_nom " +
+                        "FROM vente v " +
+                        "LEFT JOIN client c ON v.client_id = c.id " +
+                        "JOIN utilisateur u ON v.utilisateur_id = u.id " +
+                        "WHERE v.id IN (" + placeholders(chunk.size()) + ")";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    int i = 1;
+                    for (Long id : chunk) {
+                        stmt.setLong(i++, id);
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        list.addAll(mapRows(sql, rs, this::mapResultSet));
+                    }
+                }
+            }
+            loadLignes(list, conn);
+        } catch (SQLException e) {
+            throw new RuntimeException("Erreur lors de la lecture des ventes: " + e.getMessage(), e);
+        }
+        list.sort(Comparator.comparing(Vente::getDateVente).thenComparing(Vente::getId));
+        return list;
+    }
+
+    private int bindVente(PreparedStatement stmt, int i, Vente v) throws SQLException {
+        if (v.getClient() != null && v.getClient().getId() != null)
+            stmt.setLong(i++, v.getClient().getId());
+        else
+            stmt.setNull(i++, Types.BIGINT);
+        stmt.setLong(i++, v.getUtilisateur().getId());
+        stmt.setTimestamp(i++, Timestamp.valueOf(v.getDateVente()));
+        stmt.setBigDecimal(i++, v.getTotal());
+        return i;
+    }
+
     @Override
     public void delete(Long id) {
         // Warning: Deleting a sale should probably restore stock?
-        // For now, simple delete.
-        String sql = "DELETE FROM vente WHERE id = ?";
-        try (Connection conn = getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setLong(1, id);
-            stmt.executeUpdate();
-        } catch (SQLException e) {
+        // For now, simple delete (errors are only logged, as before).
+        try {
+            deleteAll(Collections.singletonList(id));
+        } catch (RuntimeException e) {
             e.printStackTrace();
         }
     }
 
+    @Override
+    public void deleteAll(Collection<Long> ids) {
+        if (ids.isEmpty())
+            return;
+        List<Long> idList = new ArrayList<>(ids);
+        // Lines go with their sale through ON DELETE CASCADE; their totals
+        // leave the rollup first
+        inTransaction("Erreur lors de la suppression des ventes: ", conn -> {
+            applyDailyRollup(conn, idList, -1);
+            deleteWhereIn(conn, "vente", "id", idList);
+        });
+    }
+
     @Override
     public List<Vente> findByPeriod(LocalDateTime start, LocalDateTime end) {
         List<Vente> list = new ArrayList<>();
@@ -242,11 +518,109 @@ public class MySQLVenteDAO extends AbstractMySQLDAO implements VenteDAO {
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setTimestamp(1, Timestamp.valueOf(start));
             stmt.setTimestamp(2, Timestamp.valueOf(end));
+            try (ResultSet rs = stmt.executeQuery()) {
+                list.addAll(mapRows(sql, rs, this::mapResultSet));
+            }
+            loadLignes(list, conn);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return list;
+    }
+
+    @Override
+    public void streamByPeriod(LocalDateTime start, LocalDateTime end, Consumer<Vente> visitor) {
+        // Single joined query: rows of one sale are contiguous, so a sale is
+        // complete as soon as the next id shows up.
+        String sql = "SELECT v.id, v.date_vente, v.total, v.client_id, v.utilisateur_id, " +
+                "c.nom as client_nom, c.prenom as client_prenom, u.nom as user_nom, " +
+                "lv.id as ligne_id, lv.produit_id, lv.quantite, lv.prix_unitaire, lv.sous_total, " +
+                "p.nom as produit_nom, p.code_barre " +
+                "FROM vente v " +
+                "LEFT JOIN client c ON v.client_id = c.id " +
+                "JOIN utilisateur u ON v.utilisateur_id = u.id " +
+                "LEFT JOIN ligne_vente lv ON lv.vente_id = v.id " +
+                "LEFT JOIN produit p ON lv.produit_id = p.id " +
+                "WHERE v.date_vente BETWEEN ? AND ? ORDER BY v.date_vente, v.id";
+        try (Connection conn = getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY)) {
+            // Connector/J streams rows one by one instead of buffering the whole result
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            stmt.setTimestamp(1, Timestamp.valueOf(start));
+            stmt.setTimestamp(2, Timestamp.valueOf(end));
+            try (ResultSet rs = stmt.executeQuery()) {
+                ColumnIndex cols = ColumnIndex.of(sql, rs);
+                int idCol = cols.of("id");
+                int ligneIdCol = cols.of("ligne_id");
+                Vente current = null;
+                while (rs.next()) {
+                    long venteId = rs.getLong(idCol);
+                    if (current == null || current.getId() != venteId) {
+                        if (current != null) {
+                            visitor.accept(current);
+                        }
+                        current = mapResultSet(rs, cols);
+                    }
+                    rs.getLong(ligneIdCol);
+                    if (!rs.wasNull()) {
+                        Produit p = new Produit();
+                        p.setId(rs.getLong(cols.of("produit_id")));
+                        p.setNom(rs.getString(cols.of("produit_nom")));
+                        p.setCodeBarre(rs.getString(cols.of("code_barre")));
+
+                        LigneVente lv = new LigneVente();
+                        lv.setId(rs.getLong(ligneIdCol));
+                        lv.setProduit(p);
+                        lv.setQuantite(rs.getInt(cols.of("quantite")));
+                        lv.setPrixUnitaire(rs.getBigDecimal(cols.of("prix_unitaire")));
+                        lv.setSousTotal(rs.getBigDecimal(cols.of("sous_total")));
+                        current.ajouterLigne(lv);
+                    }
+                }
+                if (current != null) {
+                    visitor.accept(current);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erreur lors du parcours des ventes: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<RevenueAggregate> aggregateRevenue(LocalDateTime start, LocalDateTime end, TimeBucket bucket) {
+        List<RevenueAggregate> list = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT ");
+        if (bucket != null) {
+            sql.append(bucketStart("date_vente", bucket)).append(" AS periode, ");
+        }
+        sql.append("COALESCE(SUM(total), 0) AS total, COUNT(*) AS nb FROM vente");
+        List<Timestamp> params = new ArrayList<>();
+        if (start != null || end != null) {
+            // Range on date_vente only, so idx_vente_date is used
+            sql.append(" WHERE ");
+            if (start != null) {
+                sql.append("date_vente >= ?");
+                params.add(Timestamp.valueOf(start));
+            }
+            if (end != null) {
+                sql.append(start != null ? " AND " : "").append("date_vente <= ?");
+                params.add(Timestamp.valueOf(end));
+            }
+        }
+        if (bucket != null) {
+            sql.append(" GROUP BY periode ORDER BY periode");
+        }
+
+        try (Connection conn = getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setTimestamp(i + 1, params.get(i));
+            }
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    Vente v = mapResultSet(rs);
-                    loadLignes(v, conn);
-                    list.add(v);
+                    LocalDate periode = bucket == null ? null : LocalDate.parse(rs.getString("periode"));
+                    list.add(new RevenueAggregate(periode, rs.getBigDecimal("total"), rs.getLong("nb")));
                 }
             }
         } catch (SQLException e) {
@@ -254,4 +628,156 @@ public class MySQLVenteDAO extends AbstractMySQLDAO implements VenteDAO {
         }
         return list;
     }
+
+    /**
+     * Copies each product's current prix_achat onto the lines of the given
+     * sales, in the caller's transaction. The product rows are already
+     * locked by the stock update, so this is the cost at checkout; the
+     * rollup reads it from the line, and a sale removed later takes back
+     * exactly the margin it added.
+     */
+    private static void recordPurchasePrices(Connection conn, List<Long> venteIds) throws SQLException {
+        for (int from = 0; from < venteIds.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = venteIds.subList(from, Math.min(from + IN_CHUNK_SIZE, venteIds.size()));
+            String sql = "UPDATE ligne_vente lv JOIN produit p ON lv.produit_id = p.id " +
+                    "SET lv.prix_achat = p.prix_achat " +
+                    "WHERE lv.vente_id IN (" + placeholders(chunk.size()) + ")";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int i = 1;
+                for (Long id : chunk) {
+                    stmt.setLong(i++, id);
+                }
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Adds ({@code sign} = 1) or removes (-1) the lines of the given sales
+     * to the ventes_jour rollup, in the caller's transaction. One grouped
+     * upsert per chunk of sales; the margin uses the purchase price stored
+     * on each line.
+     */
+    private static void applyDailyRollup(Connection conn, List<Long> venteIds, int sign) throws SQLException {
+        for (int from = 0; from < venteIds.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = venteIds.subList(from, Math.min(from + IN_CHUNK_SIZE, venteIds.size()));
+            String sql = "INSERT INTO ventes_jour (jour, produit_id, quantite, chiffre_affaires, marge) " +
+                    "SELECT * FROM (SELECT DATE(v.date_vente) AS j, lv.produit_id AS pid, " +
+                    sign + " * SUM(lv.quantite) AS q, " +
+                    sign + " * SUM(lv.quantite * lv.prix_unitaire) AS ca, " +
+                    sign + " * SUM(lv.quantite * (lv.prix_unitaire - COALESCE(lv.prix_achat, 0))) AS m " +
+                    "FROM ligne_vente lv " +
+                    "JOIN vente v ON lv.vente_id = v.id " +
+                    "WHERE lv.vente_id IN (" + placeholders(chunk.size()) + ") " +
+                    "GROUP BY j, pid) AS d " +
+                    "ON DUPLICATE KEY UPDATE quantite = quantite + d.q, " +
+                    "chiffre_affaires = chiffre_affaires + d.ca, marge = marge + d.m";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int i = 1;
+                for (Long id : chunk) {
+                    stmt.setLong(i++, id);
+                }
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    @Override
+    public List<VenteJour> findDailySales(LocalDate start, LocalDate end) {
+        List<VenteJour> list = new ArrayList<>();
+        String sql = "SELECT jour, produit_id, quantite, chiffre_affaires, marge FROM ventes_jour " +
+                "WHERE jour BETWEEN ? AND ? AND quantite <> 0 ORDER BY jour, produit_id";
+        try (Connection conn = getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setDate(1, Date.valueOf(start));
+            stmt.setDate(2, Date.valueOf(end));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    list.add(new VenteJour(rs.getDate("jour").toLocalDate(), rs.getLong("produit_id"),
+                            rs.getLong("quantite"), rs.getBigDecimal("chiffre_affaires"), rs.getBigDecimal("marge")));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erreur lors de la lecture de ventes_jour: " + e.getMessage(), e);
+        }
+        return list;
+    }
+
+    @Override
+    public void rebuildDailySales() {
+        inTransaction("Erreur lors de la reconstruction de ventes_jour: ", conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE FROM ventes_jour");
+                stmt.executeUpdate("INSERT INTO ventes_jour (jour, produit_id, quantite, chiffre_affaires, marge) " +
+                        "SELECT DATE(v.date_vente), lv.produit_id, SUM(lv.quantite), " +
+                        "SUM(lv.quantite * lv.prix_unitaire), " +
+                        "SUM(lv.quantite * (lv.prix_unitaire - COALESCE(lv.prix_achat, 0))) " +
+                        "FROM ligne_vente lv " +
+                        "JOIN vente v ON lv.vente_id = v.id " +
+                        "GROUP BY DATE(v.date_vente), lv.produit_id");
+            }
+        });
+    }
+
+    @Override
+    public List<VentesProduit> sumSalesByProduit(LocalDate start, LocalDate end, Collection<Long> produitIds) {
+        List<VentesProduit> list = new ArrayList<>();
+        List<Long> ids = produitIds == null ? null : new ArrayList<>(produitIds);
+        if (ids != null && ids.isEmpty())
+            return list;
+
+        StringBuilder where = new StringBuilder(" WHERE 1=1");
+        List<Date> params = new ArrayList<>();
+        if (start != null) {
+            where.append(" AND jour >= ?");
+            params.add(Date.valueOf(start));
+        }
+        if (end != null) {
+            where.append(" AND jour <= ?");
+            params.add(Date.valueOf(end));
+        }
+
+        try (Connection conn = getConnection()) {
+            // One query for the whole range, or one per chunk of products
+            List<List<Long>> parts = new ArrayList<>();
+            if (ids == null) {
+                parts.add(null);
+            } else {
+                for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+                    parts.add(ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size())));
+                }
+            }
+            for (List<Long> part : parts) {
+                String sql = "SELECT produit_id, SUM(quantite) AS quantite, SUM(chiffre_affaires) AS ca " +
+                        "FROM ventes_jour" + where +
+                        (part == null ? "" : " AND produit_id IN (" + placeholders(part.size()) + ")") +
+                        " GROUP BY produit_id HAVING SUM(quantite) <> 0";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    int i = 1;
+                    for (Date d : params) {
+                        stmt.setDate(i++, d);
+                    }
+                    if (part != null) {
+                        for (Long id : part) {
+                            stmt.setLong(i++, id);
+                        }
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            list.add(new VentesProduit(rs.getLong("produit_id"), rs.getLong("quantite"),
+                                    rs.getBigDecimal("ca")));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return list;
+    }
+
+    @Override
+    public void addSaleListener(SaleListener listener) {
+        SALE_LISTENERS.add(listener);
+    }
 }
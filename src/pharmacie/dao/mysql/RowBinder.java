@@ -0,0 +1,16 @@
+package pharmacie.dao.mysql;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Binds the values of one entity into a statement starting at
+ * {@code index}, and returns the index of the next free placeholder.
+ * Used to build multi-row INSERT statements.
+ *
+ * @param <T> The entity type
+ */
+@FunctionalInterface
+public interface RowBinder<T> {
+    int bind(PreparedStatement stmt, int index, T entity) throws SQLException;
+}
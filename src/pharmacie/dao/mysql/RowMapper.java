@@ -0,0 +1,15 @@
+package pharmacie.dao.mysql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a ResultSet to an entity, reading columns by the
+ * indexes resolved in {@link ColumnIndex}.
+ *
+ * @param <T> The entity type
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+    T mapRow(ResultSet rs, ColumnIndex cols) throws SQLException;
+}
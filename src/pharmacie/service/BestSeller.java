@@ -0,0 +1,37 @@
+package pharmacie.service;
+
+import java.math.BigDecimal;
+
+/**
+ * One row of the best sellers report: exact units and revenue of a product
+ * over the requested window.
+ */
+public class BestSeller {
+    private final Long produitId;
+    private final String nom;
+    private final long quantite;
+    private final BigDecimal chiffreAffaires;
+
+    public BestSeller(Long produitId, String nom, long quantite, BigDecimal chiffreAffaires) {
+        this.produitId = produitId;
+        this.nom = nom;
+        this.quantite = quantite;
+        this.chiffreAffaires = chiffreAffaires;
+    }
+
+    public Long getProduitId() {
+        return produitId;
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    public long getQuantite() {
+        return quantite;
+    }
+
+    public BigDecimal getChiffreAffaires() {
+        return chiffreAffaires;
+    }
+}
@@ -0,0 +1,186 @@
+package pharmacie.service;
+
+import pharmacie.dao.interfaces.SaleListener;
+import pharmacie.dao.interfaces.VenteDAO;
+import pharmacie.dao.interfaces.VenteJour;
+import pharmacie.model.LigneVente;
+import pharmacie.model.Vente;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-day Space-Saving sketches of units and revenue (in cents) by product,
+ * for the last RETENTION_DAYS days. Seeded from the ventes_jour rollup,
+ * then fed through SaleListener by every checkout of this process and,
+ * within one change_log polling interval, of the other terminals.
+ * Reseeded every RELOAD_MS to take deleted sales back out.
+ *
+ * Counts only ever over-estimate (a sale recorded while a reload reads the
+ * rollup may be counted twice, deleted sales are not taken back), which
+ * is what the candidate bounds need. They can only under-estimate for the
+ * other terminals' sales not polled yet. One instance per JVM.
+ */
+class BestSellerTracker implements SaleListener {
+    enum Metric {
+        QUANTITE, CHIFFRE_AFFAIRES
+    }
+
+    static final int CAPACITY = 256;
+    static final int RETENTION_DAYS = 400;
+    private static final long RELOAD_MS = 3_600_000;
+
+    private static BestSellerTracker instance;
+
+    private final VenteDAO venteDAO;
+    private TreeMap<LocalDate, DaySketch> days = new TreeMap<>();
+    private LocalDate firstDay;
+    private long loadedAt;
+    // Sales recorded while a reload is reading the rollup, replayed on top
+    private List<Vente> duringReload;
+
+    private BestSellerTracker(VenteDAO venteDAO) {
+        this.venteDAO = venteDAO;
+    }
+
+    static synchronized BestSellerTracker getInstance(VenteDAO venteDAO) {
+        if (instance == null) {
+            instance = new BestSellerTracker(venteDAO);
+            // Listen before the first load, so no checkout falls in between
+            venteDAO.addSaleListener(instance);
+        }
+        return instance;
+    }
+
+    private static class DaySketch {
+        final SpaceSavingSketch units = new SpaceSavingSketch(CAPACITY);
+        final SpaceSavingSketch cents = new SpaceSavingSketch(CAPACITY);
+
+        SpaceSavingSketch get(Metric metric) {
+            return metric == Metric.QUANTITE ? units : cents;
+        }
+    }
+
+    /**
+     * Product candidates for a top-N, most likely first, with the bound
+     * that makes the exact check possible: no product outside {@code ids}
+     * has sold more than {@code outsideBound} (units or cents) in the window.
+     */
+    static class Candidates {
+        final List<Long> ids;
+        final long outsideBound;
+
+        Candidates(List<Long> ids, long outsideBound) {
+            this.ids = ids;
+            this.outsideBound = outsideBound;
+        }
+    }
+
+    @Override
+    public synchronized void salesRecorded(List<Vente> ventes) {
+        if (duringReload != null) {
+            duringReload.addAll(ventes);
+        }
+        record(days, firstDay, ventes);
+    }
+
+    private static void record(TreeMap<LocalDate, DaySketch> target, LocalDate from, List<Vente> ventes) {
+        for (Vente v : ventes) {
+            if (v.getDateVente() == null)
+                continue;
+            LocalDate day = v.getDateVente().toLocalDate();
+            if (from == null || day.isBefore(from))
+                continue;
+            DaySketch sketch = target.computeIfAbsent(day, d -> new DaySketch());
+            for (LigneVente lv : v.getLignes()) {
+                long produitId = lv.getProduit().getId();
+                sketch.units.add(produitId, lv.getQuantite());
+                if (lv.getPrixUnitaire() != null) {
+                    sketch.cents.add(produitId, toCents(lv.getPrixUnitaire().multiply(BigDecimal.valueOf(lv.getQuantite()))));
+                }
+            }
+        }
+    }
+
+    /**
+     * Rounded up, so sketch counts stay upper bounds of the exact amounts.
+     */
+    static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.CEILING).longValueExact();
+    }
+
+    /**
+     * Reseeds the sketches from ventes_jour if they were never loaded or
+     * are older than RELOAD_MS. The rollup is read without holding the
+     * lock, so checkouts are not held up.
+     */
+    void ensureFresh() {
+        LocalDate from;
+        synchronized (this) {
+            if (duringReload != null || (loadedAt != 0 && System.currentTimeMillis() - loadedAt < RELOAD_MS))
+                return;
+            duringReload = new ArrayList<>();
+            from = LocalDate.now().minusDays(RETENTION_DAYS - 1);
+        }
+
+        TreeMap<LocalDate, DaySketch> fresh = new TreeMap<>();
+        try {
+            for (VenteJour row : venteDAO.findDailySales(from, LocalDate.now())) {
+                DaySketch sketch = fresh.computeIfAbsent(row.getJour(), d -> new DaySketch());
+                sketch.units.add(row.getProduitId(), row.getQuantite());
+                sketch.cents.add(row.getProduitId(), toCents(row.getChiffreAffaires()));
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                duringReload = null;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            record(fresh, from, duringReload);
+            duringReload = null;
+            days = fresh;
+            firstDay = from;
+            loadedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Candidates for the top {@code n} of [start, end], or null when the
+     * sketches do not cover the window (never loaded, or start is older
+     * than the retention).
+     */
+    synchronized Candidates candidates(LocalDate start, LocalDate end, Metric metric, int n) {
+        if (firstDay == null || start == null || start.isBefore(firstDay))
+            return null;
+
+        // Upper bound of product p over the window:
+        // sum of the day minimums + sum over days monitoring p of (count - min)
+        long minimums = 0;
+        Map<Long, Long> excess = new HashMap<>();
+        for (DaySketch day : days.subMap(start, true, end, true).values()) {
+            SpaceSavingSketch sketch = day.get(metric);
+            long min = sketch.min();
+            minimums += min;
+            for (int i = 0; i < sketch.size(); i++) {
+                excess.merge(sketch.keyAt(i), sketch.countAt(i) - min, Long::sum);
+            }
+        }
+
+        List<Map.Entry<Long, Long>> ranked = new ArrayList<>(excess.entrySet());
+        ranked.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < ranked.size() && i < n; i++) {
+            ids.add(ranked.get(i).getKey());
+        }
+        long outsideBound = minimums + (ranked.size() > n ? ranked.get(n).getValue() : 0);
+        return new Candidates(ids, outsideBound);
+    }
+}
@@ -0,0 +1,51 @@
+package pharmacie.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BestSellersReport implements ReportResult {
+    private final List<BestSeller> parQuantite;
+    private final List<BestSeller> parChiffreAffaires;
+
+    public BestSellersReport(List<BestSeller> parQuantite, List<BestSeller> parChiffreAffaires) {
+        this.parQuantite = List.copyOf(parQuantite);
+        this.parChiffreAffaires = List.copyOf(parChiffreAffaires);
+    }
+
+    /**
+     * Top products by units sold, best first.
+     */
+    public List<BestSeller> getParQuantite() {
+        return parQuantite;
+    }
+
+    /**
+     * Top products by revenue, best first.
+     */
+    public List<BestSeller> getParChiffreAffaires() {
+        return parChiffreAffaires;
+    }
+
+    @Override
+    public String toText() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== Meilleures Ventes (quantité) ===\n");
+        for (BestSeller b : parQuantite) {
+            sb.append(String.format("%s: %d unités\n", b.getNom(), b.getQuantite()));
+        }
+        sb.append("=== Meilleures Ventes (chiffre d'affaires) ===\n");
+        for (BestSeller b : parChiffreAffaires) {
+            sb.append(String.format("%s: %s €\n", b.getNom(), b.getChiffreAffaires()));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public Map<String, Object> toMap() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("parQuantite", parQuantite);
+        data.put("parChiffreAffaires", parChiffreAffaires);
+        return data;
+    }
+}
@@ -0,0 +1,111 @@
+package pharmacie.service;
+
+import pharmacie.dao.interfaces.DAOFactory;
+import pharmacie.dao.interfaces.ProduitDAO;
+import pharmacie.dao.interfaces.VenteDAO;
+import pharmacie.dao.interfaces.VentesProduit;
+import pharmacie.model.Produit;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Top-N products by units and by revenue over the requested days.
+ *
+ * The in-memory sketches of BestSellerTracker name a few candidates, whose
+ * exact totals are then read from ventes_jour (one small IN query). If the
+ * N-th exact value is not above the sketch bound for every other product,
+ * the sketches name fewer than N products, or the window is older than the
+ * sketches, the whole window is summed from ventes_jour instead. Figures
+ * are always exact; the ranking relies on the sketches, which see the
+ * other terminals' sales one change_log polling interval late, only when
+ * a full top N is proven from them.
+ */
+public class BestSellersStrategy implements ReportStrategy<BestSellersReport> {
+    public static final int DEFAULT_LIMIT = 10;
+    // Candidates verified per requested row
+    private static final int CANDIDATE_FACTOR = 3;
+
+    private VenteDAO venteDAO;
+    private ProduitDAO produitDAO;
+
+    public BestSellersStrategy() {
+        DAOFactory factory = DAOFactory.getFactory(DAOFactory.Type.MYSQL);
+        this.venteDAO = factory.getVenteDAO();
+        this.produitDAO = factory.getProduitDAO();
+    }
+
+    @Override
+    public BestSellersReport compute(ReportRequest<BestSellersReport> request) {
+        int n = request.getLimit() == null ? DEFAULT_LIMIT : request.getLimit();
+        LocalDate start = request.getStart() == null ? null : request.getStart().toLocalDate();
+        LocalDate end = request.getEnd() == null ? LocalDate.now() : request.getEnd().toLocalDate();
+        if (start != null && start.isAfter(end))
+            return new BestSellersReport(List.of(), List.of());
+
+        BestSellerTracker tracker = BestSellerTracker.getInstance(venteDAO);
+        tracker.ensureFresh();
+
+        List<VentesProduit> all = null;
+        List<VentesProduit> parQuantite = fromSketch(tracker, start, end, BestSellerTracker.Metric.QUANTITE, n);
+        if (parQuantite == null) {
+            all = venteDAO.sumSalesByProduit(start, end, null);
+            parQuantite = top(all, BestSellerTracker.Metric.QUANTITE, n);
+        }
+        List<VentesProduit> parCA = fromSketch(tracker, start, end, BestSellerTracker.Metric.CHIFFRE_AFFAIRES, n);
+        if (parCA == null) {
+            if (all == null)
+                all = venteDAO.sumSalesByProduit(start, end, null);
+            parCA = top(all, BestSellerTracker.Metric.CHIFFRE_AFFAIRES, n);
+        }
+        return new BestSellersReport(named(parQuantite), named(parCA));
+    }
+
+    /**
+     * Exact top {@code n} from the sketch candidates, or null when the
+     * candidates cannot prove it.
+     */
+    private List<VentesProduit> fromSketch(BestSellerTracker tracker, LocalDate start, LocalDate end,
+            BestSellerTracker.Metric metric, int n) {
+        BestSellerTracker.Candidates candidates = tracker.candidates(start, end, metric, n * CANDIDATE_FACTOR);
+        if (candidates == null || candidates.ids.isEmpty())
+            return null;
+
+        // A short list may miss a product the sketches have not seen yet
+        // (sold on another terminal since the last poll): few products sold
+        // in the window, so summing it is cheap
+        List<VentesProduit> exact = top(venteDAO.sumSalesByProduit(start, end, candidates.ids), metric, n);
+        if (exact.size() < n)
+            return null;
+        if (candidates.outsideBound == 0)
+            return exact;
+        VentesProduit last = exact.get(n - 1);
+        boolean proven = metric == BestSellerTracker.Metric.QUANTITE
+                ? last.getQuantite() >= candidates.outsideBound
+                : last.getChiffreAffaires().compareTo(BigDecimal.valueOf(candidates.outsideBound, 2)) >= 0;
+        return proven ? exact : null;
+    }
+
+    private static List<VentesProduit> top(List<VentesProduit> rows, BestSellerTracker.Metric metric, int n) {
+        List<VentesProduit> sorted = new ArrayList<>(rows);
+        Comparator<VentesProduit> order = metric == BestSellerTracker.Metric.QUANTITE
+                ? Comparator.comparingLong(VentesProduit::getQuantite)
+                : Comparator.comparing(VentesProduit::getChiffreAffaires);
+        sorted.sort(order.reversed().thenComparing(VentesProduit::getProduitId));
+        return new ArrayList<>(sorted.subList(0, Math.min(n, sorted.size())));
+    }
+
+    private List<BestSeller> named(List<VentesProduit> rows) {
+        List<BestSeller> list = new ArrayList<>();
+        for (VentesProduit row : rows) {
+            // Served by the catalog cache
+            String nom = produitDAO.findById(row.getProduitId()).map(Produit::getNom)
+                    .orElse("Produit #" + row.getProduitId());
+            list.add(new BestSeller(row.getProduitId(), nom, row.getQuantite(), row.getChiffreAffaires()));
+        }
+        return list;
+    }
+}
@@ -4,8 +4,6 @@ import pharmacie.dao.interfaces.CommandeDAO;
 import pharmacie.dao.interfaces.DAOFactory;
 import pharmacie.exception.DonneeInvalideException;
 import pharmacie.model.Commande;
-import pharmacie.model.LigneCommande;
-import pharmacie.model.Produit;
 import pharmacie.model.StatutCommande;
 
 public class CommandeService {
@@ -20,6 +18,7 @@ public class CommandeService {
     public void createOrder(Commande c) {
         c.setStatut(StatutCommande.EN_ATTENTE);
         commandeDAO.save(c);
+        ReportService.ordersChanged();
     }
 
     public void receiveOrder(Commande c) throws DonneeInvalideException {
@@ -27,18 +26,11 @@ public class CommandeService {
             throw new DonneeInvalideException("Commande déjà reçue.");
         }
 
-        // Update status
-        c.setStatut(StatutCommande.RECUE);
-        commandeDAO.save(c);
-
-        // Update Stock
-        for (LigneCommande lc : c.getLignes()) {
-            Produit p = lc.getProduit();
-            // Fetch fresh
-            stockService.getProduitById(p.getId()).ifPresent(fresh -> {
-                fresh.setStockActuel(fresh.getStockActuel() + lc.getQuantite());
-                stockService.saveProduit(fresh);
-            });
+        // Status and stock in one transaction, the stock incremented in place
+        if (!commandeDAO.receive(c.getId())) {
+            throw new DonneeInvalideException("Commande déjà reçue ou annulée.");
         }
+        c.setStatut(StatutCommande.RECUE);
+        ReportService.ordersChanged();
     }
 }
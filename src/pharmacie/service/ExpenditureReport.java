@@ -0,0 +1,57 @@
+package pharmacie.service;
+
+import pharmacie.dao.interfaces.ExpenditureAggregate;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ExpenditureReport implements ReportResult {
+    private final BigDecimal total;
+    private final List<ExpenditureAggregate> fournisseurs;
+
+    public ExpenditureReport(List<ExpenditureAggregate> fournisseurs) {
+        this.fournisseurs = List.copyOf(fournisseurs);
+        BigDecimal sum = BigDecimal.ZERO;
+        for (ExpenditureAggregate row : fournisseurs) {
+            sum = sum.add(row.getTotal());
+        }
+        this.total = sum;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    /**
+     * Per-supplier totals, largest first.
+     */
+    public List<ExpenditureAggregate> getFournisseurs() {
+        return fournisseurs;
+    }
+
+    /**
+     * Totals by supplier name (names are not unique, so rows may merge).
+     */
+    public Map<String, BigDecimal> getTotalParFournisseur() {
+        Map<String, BigDecimal> supplierTotals = new HashMap<>();
+        for (ExpenditureAggregate row : fournisseurs) {
+            supplierTotals.merge(row.getFournisseurNom(), row.getTotal(), BigDecimal::add);
+        }
+        return supplierTotals;
+    }
+
+    @Override
+    public String toText() {
+        return "Total Dépenses Commande: " + total + " €";
+    }
+
+    @Override
+    public Map<String, Object> toMap() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("totalExpenditure", total);
+        result.put("supplierBreakdown", getTotalParFournisseur());
+        return result;
+    }
+}
@@ -2,14 +2,12 @@ package pharmacie.service;
 
 import pharmacie.dao.interfaces.CommandeDAO;
 import pharmacie.dao.interfaces.DAOFactory;
-import pharmacie.model.Commande;
+import pharmacie.dao.interfaces.ExpenditureAggregate;
 
-import java.math.BigDecimal;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
-public class ExpenditureReportStrategy implements ReportStrategy {
+public class ExpenditureReportStrategy implements ReportStrategy<ExpenditureReport> {
     private CommandeDAO commandeDAO;
 
     public ExpenditureReportStrategy() {
@@ -17,31 +15,20 @@ public class ExpenditureReportStrategy implements ReportStrategy {
     }
 
     @Override
-    public String generateReport() {
-        Map<String, Object> data = getData();
-        BigDecimal total = (BigDecimal) data.get("totalExpenditure");
-        return "Total Dépenses Commande: " + total + " €";
-    }
-
-    @Override
-    public Map<String, Object> getData() {
-        List<Commande> commandes = commandeDAO.findAll();
-        BigDecimal totalExpenditure = BigDecimal.ZERO;
-        Map<String, BigDecimal> supplierTotals = new HashMap<>();
-
-        for (Commande c : commandes) {
-            BigDecimal cmdTotal = c.getTotalMontant();
-            totalExpenditure = totalExpenditure.add(cmdTotal);
-
-            if (c.getFournisseur() != null) {
-                String fName = c.getFournisseur().getNom();
-                supplierTotals.put(fName, supplierTotals.getOrDefault(fName, BigDecimal.ZERO).add(cmdTotal));
+    public ExpenditureReport compute(ReportRequest<ExpenditureReport> request) {
+        // One grouped query: per-supplier totals, all statuses, requested period
+        List<ExpenditureAggregate> rows = commandeDAO.aggregateExpenditure(null, request.getStart(),
+                request.getEnd());
+        Long fournisseurId = request.getFournisseurId();
+        if (fournisseurId != null) {
+            List<ExpenditureAggregate> kept = new ArrayList<>();
+            for (ExpenditureAggregate row : rows) {
+                if (fournisseurId.equals(row.getFournisseurId())) {
+                    kept.add(row);
+                }
             }
+            rows = kept;
         }
-
-        Map<String, Object> result = new HashMap<>();
-        result.put("totalExpenditure", totalExpenditure);
-        result.put("supplierBreakdown", supplierTotals);
-        return result;
+        return new ExpenditureReport(rows);
     }
 }
@@ -0,0 +1,409 @@
+package pharmacie.service;
+
+import pharmacie.dao.interfaces.ProductListener;
+import pharmacie.dao.interfaces.ProduitDAO;
+import pharmacie.model.Produit;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * In-memory text index of the catalog for search-as-you-type: the words of
+ * nom, codeBarre and description in a sorted map (prefix lookups) and
+ * their trigrams (typos and parts of words, e.g. "cetamol"). Accents and
+ * case are ignored. Loaded once from ProduitDAO.findAll(), then kept
+ * current through ProductListener. One instance per JVM.
+ *
+ * Every word of the query must match a product, as the prefix of one of
+ * its words or through at least TRIGRAM_MATCH of its trigrams (words
+ * with letters only). Products
+ * rank by the best match of each query word: whole word before prefix
+ * before trigrams, name and barcode before description.
+ */
+public class ProductSearchIndex implements ProductListener {
+    private static final int NOM = 0;
+    private static final int CODE = 1;
+    private static final int DESCRIPTION = 2;
+    private static final float[] FIELD_WEIGHT = { 3f, 3f, 1f };
+    private static final float TRIGRAM_MATCH = 0.6f;
+
+    private static ProductSearchIndex instance;
+
+    private final ProduitDAO produitDAO;
+
+    // A product lives in one slot; an edit moves it to a new slot and the
+    // old one is dropped from the postings at the next compaction
+    private long[] idBySlot = new long[1024];
+    private String[] nomBySlot = new String[1024];
+    private String[][] fieldsBySlot = new String[1024][];
+    private final BitSet live = new BitSet();
+    private int slotCount;
+    private final Map<Long, Integer> slotById = new HashMap<>();
+
+    // word -> slot << 2 | field
+    private final TreeMap<String, Postings> words = new TreeMap<>();
+    // trigram -> slot (once per slot)
+    private final Map<String, Postings> trigrams = new HashMap<>();
+
+    private boolean loaded;
+    private List<Runnable> duringLoad;
+
+    // Scratch arrays of search(), sized to slotCount
+    private float[] wordScore = new float[0];
+    private float[] totalScore = new float[0];
+    private int[] matchedWords = new int[0];
+    private int[] trigramHits = new int[0];
+
+    private ProductSearchIndex(ProduitDAO produitDAO) {
+        this.produitDAO = produitDAO;
+    }
+
+    public static synchronized ProductSearchIndex getInstance(ProduitDAO produitDAO) {
+        if (instance == null) {
+            instance = new ProductSearchIndex(produitDAO);
+            // Listen before the first load, so no edit falls in between
+            produitDAO.addProductListener(instance);
+        }
+        return instance;
+    }
+
+    private static class Postings {
+        int[] items = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == items.length)
+                items = Arrays.copyOf(items, size * 2);
+            items[size++] = value;
+        }
+    }
+
+    @Override
+    public synchronized void productsSaved(List<Produit> produits) {
+        if (duringLoad != null) {
+            duringLoad.add(() -> productsSaved(produits));
+            return;
+        }
+        for (Produit p : produits) {
+            put(p);
+        }
+    }
+
+    @Override
+    public synchronized void productsRemoved(Collection<Long> ids) {
+        if (duringLoad != null) {
+            duringLoad.add(() -> productsRemoved(ids));
+            return;
+        }
+        for (Long id : ids) {
+            remove(id);
+        }
+    }
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Builds the index from the whole catalog if it was never loaded. The
+     * catalog is read without holding the lock; changes reported meanwhile
+     * are applied on top.
+     */
+    public void ensureLoaded() {
+        synchronized (this) {
+            if (loaded || duringLoad != null)
+                return;
+            duringLoad = new ArrayList<>();
+        }
+        List<Produit> all;
+        try {
+            all = produitDAO.findAll();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                duringLoad = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            for (Produit p : all) {
+                put(p);
+            }
+            List<Runnable> replay = duringLoad;
+            duringLoad = null;
+            for (Runnable r : replay) {
+                r.run();
+            }
+            loaded = true;
+        }
+    }
+
+    /**
+     * Ids of the best {@code limit} products for the query, best first.
+     * Empty for a blank query or before the index is loaded.
+     */
+    public synchronized List<Long> search(String query, int limit) {
+        List<String> queryWords = new ArrayList<>(new LinkedHashSet<>(words(normalize(query))));
+        if (!loaded || queryWords.isEmpty() || limit <= 0)
+            return new ArrayList<>();
+        if (totalScore.length < slotCount) {
+            int size = Math.max(slotCount, totalScore.length * 2);
+            wordScore = new float[size];
+            totalScore = new float[size];
+            matchedWords = new int[size];
+            trigramHits = new int[size];
+        }
+
+        // Slots matching every query word so far; starts with those of the first word
+        int[] candidates = null;
+        int candidateCount = 0;
+        for (int w = 0; w < queryWords.size(); w++) {
+            String word = queryWords.get(w);
+            int[] touched = scoreWord(word);
+            int touchedCount = touched.length;
+            int kept = 0;
+            int[] next = new int[w == 0 ? touchedCount : candidateCount];
+            for (int i = 0; i < touchedCount; i++) {
+                int slot = touched[i];
+                float score = wordScore[slot];
+                wordScore[slot] = 0;
+                if (score <= 0 || matchedWords[slot] != w)
+                    continue;
+                matchedWords[slot] = w + 1;
+                totalScore[slot] += score;
+                if (w == 0 || kept < next.length)
+                    next[kept++] = slot;
+            }
+            if (w > 0) {
+                // Candidates the current word missed are out
+                for (int i = 0; i < candidateCount; i++) {
+                    int slot = candidates[i];
+                    if (matchedWords[slot] != w + 1) {
+                        matchedWords[slot] = 0;
+                        totalScore[slot] = 0;
+                    }
+                }
+            }
+            candidates = next;
+            candidateCount = kept;
+            if (candidateCount == 0)
+                break;
+        }
+
+        PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, this::compareSlots);
+        for (int i = 0; i < candidateCount; i++) {
+            int slot = candidates[i];
+            if (matchedWords[slot] == queryWords.size() && live.get(slot)) {
+                best.add(slot);
+                if (best.size() > limit)
+                    best.poll();
+            }
+        }
+        List<Long> ids = new ArrayList<>(best.size());
+        Integer[] ranked = best.toArray(new Integer[0]);
+        Arrays.sort(ranked, (a, b) -> compareSlots(b, a));
+        for (Integer slot : ranked) {
+            ids.add(idBySlot[slot]);
+        }
+        for (int i = 0; i < candidateCount; i++) {
+            matchedWords[candidates[i]] = 0;
+            totalScore[candidates[i]] = 0;
+        }
+        return ids;
+    }
+
+    /**
+     * Lower score first, then name in reverse (the queue drops the head).
+     */
+    private int compareSlots(int a, int b) {
+        int c = Float.compare(totalScore[a], totalScore[b]);
+        if (c != 0)
+            return c;
+        return nomBySlot[b].compareTo(nomBySlot[a]);
+    }
+
+    /**
+     * Best score of one query word for every slot it matches, left in
+     * wordScore; returns the slots touched (each once).
+     */
+    private int[] scoreWord(String word) {
+        Postings touched = new Postings();
+        for (Map.Entry<String, Postings> e : words.subMap(word, true, word + Character.MAX_VALUE, false)
+                .entrySet()) {
+            boolean whole = e.getKey().length() == word.length();
+            Postings postings = e.getValue();
+            for (int i = 0; i < postings.size; i++) {
+                int slot = postings.items[i] >>> 2;
+                // Above any trigram score (at most 1)
+                float score = 1 + FIELD_WEIGHT[postings.items[i] & 3] * (whole ? 2 : 1);
+                if (wordScore[slot] == 0)
+                    touched.add(slot);
+                if (score > wordScore[slot])
+                    wordScore[slot] = score;
+            }
+        }
+
+        Set<String> wordTrigrams = trigramsOf(word);
+        if (!wordTrigrams.isEmpty()) {
+            Postings hit = new Postings();
+            for (String t : wordTrigrams) {
+                Postings postings = trigrams.get(t);
+                if (postings == null)
+                    continue;
+                for (int i = 0; i < postings.size; i++) {
+                    int slot = postings.items[i];
+                    if (trigramHits[slot]++ == 0)
+                        hit.add(slot);
+                }
+            }
+            int needed = (int) Math.ceil(wordTrigrams.size() * TRIGRAM_MATCH);
+            for (int i = 0; i < hit.size; i++) {
+                int slot = hit.items[i];
+                int hits = trigramHits[slot];
+                trigramHits[slot] = 0;
+                if (hits < needed)
+                    continue;
+                float score = (float) hits / wordTrigrams.size();
+                if (wordScore[slot] == 0)
+                    touched.add(slot);
+                if (score > wordScore[slot])
+                    wordScore[slot] = score;
+            }
+        }
+        return Arrays.copyOf(touched.items, touched.size);
+    }
+
+    private void put(Produit p) {
+        if (p.getId() == null)
+            return;
+        String[] fields = { normalize(p.getNom()), normalize(p.getCodeBarre()), normalize(p.getDescription()) };
+        Integer old = slotById.get(p.getId());
+        if (old != null) {
+            if (Arrays.equals(fieldsBySlot[old], fields))
+                return;
+            live.clear(old);
+        }
+        int slot = slotCount++;
+        if (slot == idBySlot.length) {
+            idBySlot = Arrays.copyOf(idBySlot, slot * 2);
+            nomBySlot = Arrays.copyOf(nomBySlot, slot * 2);
+            fieldsBySlot = Arrays.copyOf(fieldsBySlot, slot * 2);
+        }
+        idBySlot[slot] = p.getId();
+        nomBySlot[slot] = fields[NOM];
+        fieldsBySlot[slot] = fields;
+        live.set(slot);
+        slotById.put(p.getId(), slot);
+        index(slot, fields);
+        compactIfNeeded();
+    }
+
+    private void remove(Long id) {
+        Integer slot = slotById.remove(id);
+        if (slot != null) {
+            live.clear(slot);
+            compactIfNeeded();
+        }
+    }
+
+    private void index(int slot, String[] fields) {
+        Set<String> slotTrigrams = new LinkedHashSet<>();
+        for (int field = NOM; field <= DESCRIPTION; field++) {
+            for (String word : new LinkedHashSet<>(words(fields[field]))) {
+                words.computeIfAbsent(word, k -> new Postings()).add(slot << 2 | field);
+                slotTrigrams.addAll(trigramsOf(word));
+            }
+        }
+        for (String t : slotTrigrams) {
+            trigrams.computeIfAbsent(t, k -> new Postings()).add(slot);
+        }
+    }
+
+    /**
+     * Rebuilds the postings once dead slots outnumber live ones, so edits
+     * do not make searches slower over time.
+     */
+    private void compactIfNeeded() {
+        int dead = slotCount - slotById.size();
+        if (dead < 1024 || dead < slotById.size())
+            return;
+        long[] ids = new long[Math.max(1024, slotById.size() * 2)];
+        String[] noms = new String[ids.length];
+        String[][] fields = new String[ids.length][];
+        words.clear();
+        trigrams.clear();
+        int next = 0;
+        for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+            ids[next] = idBySlot[slot];
+            noms[next] = nomBySlot[slot];
+            fields[next] = fieldsBySlot[slot];
+            slotById.put(ids[next], next);
+            index(next, fields[next]);
+            next++;
+        }
+        idBySlot = ids;
+        nomBySlot = noms;
+        fieldsBySlot = fields;
+        live.clear();
+        live.set(0, next);
+        slotCount = next;
+    }
+
+    /**
+     * Lower case without accents; anything but letters and digits becomes
+     * a space.
+     */
+    static String normalize(String text) {
+        if (text == null)
+            return "";
+        boolean ascii = true;
+        for (int i = 0; i < text.length() && ascii; i++) {
+            ascii = text.charAt(i) < 128;
+        }
+        String decomposed = ascii ? text : Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK)
+                continue;
+            sb.append(Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : ' ');
+        }
+        return sb.toString();
+    }
+
+    private static List<String> words(String normalized) {
+        List<String> list = new ArrayList<>();
+        for (String w : normalized.split(" ")) {
+            if (!w.isEmpty())
+                list.add(w);
+        }
+        return list;
+    }
+
+    /**
+     * None for numbers: barcodes are searched by prefix, and digit
+     * trigrams are shared by nearly every code.
+     */
+    private static Set<String> trigramsOf(String word) {
+        Set<String> set = new LinkedHashSet<>();
+        boolean letters = false;
+        for (int i = 0; i < word.length() && !letters; i++) {
+            letters = Character.isLetter(word.charAt(i));
+        }
+        if (!letters)
+            return set;
+        for (int i = 0; i + 3 <= word.length(); i++) {
+            set.add(word.substring(i, i + 3));
+        }
+        return set;
+    }
+}
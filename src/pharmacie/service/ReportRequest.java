@@ -0,0 +1,152 @@
+package pharmacie.service;
+
+import pharmacie.dao.interfaces.TimeBucket;
+import pharmacie.service.analytics.SalesDimension;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * What to report on: a report type plus an optional period, grouping and
+ * supplier / product filters. Immutable, with equals and hashCode, so it
+ * doubles as the ReportService cache key.
+ *
+ * Which parameters apply depends on the report: STOCK reads produitIds,
+ * REVENUE the period and bucket, EXPENDITURE the period and fournisseurId,
+ * PERFORMANCE fournisseurId, BEST_SELLERS the period (whole days) and
+ * limit, SALES_PIVOT the period, produitIds and dimension.
+ */
+public final class ReportRequest<R extends ReportResult> {
+    private final ReportType<R> type;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final TimeBucket bucket;
+    private final Long fournisseurId;
+    private final Set<Long> produitIds;
+    private final Integer limit;
+    private final SalesDimension dimension;
+
+    private ReportRequest(ReportType<R> type, LocalDateTime start, LocalDateTime end, TimeBucket bucket,
+            Long fournisseurId, Set<Long> produitIds, Integer limit, SalesDimension dimension) {
+        this.type = Objects.requireNonNull(type);
+        this.start = start;
+        this.end = end;
+        this.bucket = bucket;
+        this.fournisseurId = fournisseurId;
+        this.produitIds = produitIds;
+        this.limit = limit;
+        this.dimension = dimension;
+    }
+
+    /**
+     * Whole history, no filter.
+     */
+    public static <R extends ReportResult> ReportRequest<R> of(ReportType<R> type) {
+        return new ReportRequest<>(type, null, null, null, null, null, null, null);
+    }
+
+    /**
+     * Restricts to [start, end]; either bound may be null (open).
+     */
+    public ReportRequest<R> between(LocalDateTime start, LocalDateTime end) {
+        if (start != null && end != null && start.isAfter(end)) {
+            throw new IllegalArgumentException("La date de début doit précéder la date de fin.");
+        }
+        return new ReportRequest<>(type, start, end, bucket, fournisseurId, produitIds, limit, dimension);
+    }
+
+    public ReportRequest<R> groupBy(TimeBucket bucket) {
+        return new ReportRequest<>(type, start, end, bucket, fournisseurId, produitIds, limit, dimension);
+    }
+
+    public ReportRequest<R> forFournisseur(Long fournisseurId) {
+        return new ReportRequest<>(type, start, end, bucket, fournisseurId, produitIds, limit, dimension);
+    }
+
+    public ReportRequest<R> forProduits(Collection<Long> produitIds) {
+        Set<Long> ids = produitIds == null ? null : Set.copyOf(produitIds);
+        return new ReportRequest<>(type, start, end, bucket, fournisseurId, ids, limit, dimension);
+    }
+
+    /**
+     * Keeps only the first {@code limit} rows (top-N reports).
+     */
+    public ReportRequest<R> top(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Le nombre de lignes doit être positif.");
+        }
+        return new ReportRequest<>(type, start, end, bucket, fournisseurId, produitIds, limit, dimension);
+    }
+
+    /**
+     * Groups a sales pivot by {@code dimension}.
+     */
+    public ReportRequest<R> pivotBy(SalesDimension dimension) {
+        return new ReportRequest<>(type, start, end, bucket, fournisseurId, produitIds, limit, dimension);
+    }
+
+    public ReportType<R> getType() {
+        return type;
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
+    public TimeBucket getBucket() {
+        return bucket;
+    }
+
+    public Long getFournisseurId() {
+        return fournisseurId;
+    }
+
+    /**
+     * The products to keep, or null for all of them.
+     */
+    public Set<Long> getProduitIds() {
+        return produitIds;
+    }
+
+    /**
+     * Requested number of rows, or null for the report's default.
+     */
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public SalesDimension getDimension() {
+        return dimension;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof ReportRequest))
+            return false;
+        ReportRequest<?> other = (ReportRequest<?>) o;
+        return type == other.type && Objects.equals(start, other.start) && Objects.equals(end, other.end)
+                && bucket == other.bucket && Objects.equals(fournisseurId, other.fournisseurId)
+                && Objects.equals(produitIds, other.produitIds) && Objects.equals(limit, other.limit)
+                && dimension == other.dimension;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, start, end, bucket, fournisseurId, produitIds, limit, dimension);
+    }
+
+    @Override
+    public String toString() {
+        return type + "[" + start + " - " + end + ", bucket=" + bucket + ", fournisseur=" + fournisseurId
+                + ", produits=" + produitIds + ", limit=" + limit
+                + ", dimension=" + dimension + "]";
+    }
+}
@@ -0,0 +1,16 @@
+package pharmacie.service;
+
+import java.util.Map;
+
+/**
+ * Result of one report. Implementations are immutable so a cached result
+ * can be handed to several views.
+ */
+public interface ReportResult {
+    String toText();
+
+    /**
+     * Untyped view of the result, with the keys getReportData() always used.
+     */
+    Map<String, Object> toMap();
+}
@@ -1,32 +1,311 @@
 package pharmacie.service;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Computes reports through their strategies and keeps the results in a
+ * cache shared by every ReportService, keyed by ReportRequest. A cached
+ * result is reused until it is TTL_MS old or a write that changes it calls
+ * one of the *Changed() hooks; concurrent identical requests share one
+ * computation.
+ */
 public class ReportService {
-    private Map<String, ReportStrategy> strategies;
+    // Shared by every ReportService: a few database-bound strategies at a
+    // time, whatever the number of open report views
+    private static final int WORKERS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int QUEUE_SIZE = 32;
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    // Bounds staleness for writes made by other terminals, which do not
+    // go through the hooks below
+    private static final long TTL_MS = 60_000;
+    // Each period/filter combination is an entry of its own
+    private static final int MAX_ENTRIES = 256;
+    private static final Map<ReportRequest<?>, CachedReport> CACHE = new ConcurrentHashMap<>();
+
+    private Map<ReportType<?>, ReportStrategy<?>> strategies;
 
     public ReportService() {
         strategies = new HashMap<>();
-        strategies.put("STOCK", new StockReportStrategy());
-        strategies.put("REVENUE", new RevenueReportStrategy());
-        strategies.put("EXPENDITURE", new ExpenditureReportStrategy());
-        strategies.put("PERFORMANCE", new SupplierPerformanceStrategy());
+        strategies.put(ReportType.STOCK, new StockReportStrategy());
+        strategies.put(ReportType.REVENUE, new RevenueReportStrategy());
+        strategies.put(ReportType.EXPENDITURE, new ExpenditureReportStrategy());
+        strategies.put(ReportType.PERFORMANCE, new SupplierPerformanceStrategy());
+        strategies.put(ReportType.BEST_SELLERS, new BestSellersStrategy());
+        strategies.put(ReportType.SALES_PIVOT, new SalesPivotStrategy());
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(WORKERS, WORKERS, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_SIZE), r -> {
+                    Thread t = new Thread(r, "report-worker-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     public String generateReport(String type) {
-        ReportStrategy strategy = strategies.get(type.toUpperCase());
-        if (strategy == null) {
+        ReportType<?> reportType = ReportType.valueOf(type);
+        if (reportType == null) {
             return "Type de rapport inconnu: " + type;
         }
-        return strategy.generateReport();
+        return getReport(ReportRequest.of(reportType)).toText();
     }
 
     public Map<String, Object> getReportData(String type) {
-        ReportStrategy strategy = strategies.get(type.toUpperCase());
-        if (strategy == null) {
+        ReportType<?> reportType = ReportType.valueOf(type);
+        if (reportType == null) {
             return new HashMap<>();
         }
-        return strategy.getData();
+        return getReport(ReportRequest.of(reportType)).toMap();
+    }
+
+    /**
+     * Computes (or reuses) one report on the calling thread.
+     */
+    public <R extends ReportResult> R getReport(ReportRequest<R> request) {
+        try {
+            return lookup(request, false).join();
+        } catch (CompletionException e) {
+            // Same exceptions as calling the strategy directly
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Computes (or reuses) one report on the report executor. The future
+     * completes on a worker thread, so UI code must hop back with
+     * Platform.runLater. Cancelling it interrupts the strategy if no other
+     * caller is waiting for the same result.
+     */
+    public <R extends ReportResult> CompletableFuture<R> getReportAsync(ReportRequest<R> request) {
+        return lookup(request, true);
+    }
+
+    /**
+     * Computes several reports concurrently. Each report completes on its
+     * own, so a view can show a panel as soon as its data is there; the
+     * "all" future completes once every report is done (or the first one
+     * failed). Cancelling the combined future cancels every report still
+     * pending.
+     */
+    public ReportBatch getReportsAsync(List<ReportRequest<?>> requests) {
+        Map<ReportType<?>, CompletableFuture<? extends ReportResult>> futures = new LinkedHashMap<>();
+        for (ReportRequest<?> request : requests) {
+            futures.put(request.getType(), getReportAsync(request));
+        }
+        return new ReportBatch(futures);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R extends ReportResult> ReportStrategy<R> strategyFor(ReportType<R> type) {
+        return (ReportStrategy<R>) strategies.get(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R extends ReportResult> CompletableFuture<R> lookup(ReportRequest<R> request, boolean async) {
+        long now = System.currentTimeMillis();
+        CachedReport fresh = new CachedReport(new CompletableFuture<>(), now + TTL_MS);
+        CachedReport entry = CACHE.compute(request,
+                (key, old) -> old != null && old.expiresAt > now && !old.future.isCompletedExceptionally() ? old
+                        : fresh);
+        if (entry == fresh) {
+            purge(now);
+            CompletableFuture<R> result = (CompletableFuture<R>) fresh.future;
+            // Failures and cancellations are not cached
+            result.whenComplete((value, error) -> {
+                if (error != null)
+                    CACHE.remove(request, fresh);
+            });
+            Callable<R> task = () -> strategyFor(request.getType()).compute(request);
+            if (async) {
+                submit(task, result);
+            } else {
+                complete(task, result);
+            }
+        }
+        return (CompletableFuture<R>) entry.waiter();
+    }
+
+    /**
+     * Drops the expired entries, which are otherwise only replaced when the
+     * same request comes again, then the entries closest to expiry while
+     * the cache holds more than MAX_ENTRIES.
+     */
+    private static void purge(long now) {
+        CACHE.values().removeIf(e -> e.expiresAt <= now);
+        int excess = CACHE.size() - MAX_ENTRIES;
+        if (excess <= 0)
+            return;
+        List<Map.Entry<ReportRequest<?>, CachedReport>> entries = new ArrayList<>(CACHE.entrySet());
+        entries.sort(Comparator.comparingLong(e -> e.getValue().expiresAt));
+        for (int i = 0; i < excess && i < entries.size(); i++) {
+            CACHE.remove(entries.get(i).getKey(), entries.get(i).getValue());
+        }
+    }
+
+    private static <T> void complete(Callable<T> task, CompletableFuture<T> result) {
+        if (result.isDone())
+            return;
+        try {
+            result.complete(task.call());
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private static <T> void submit(Callable<T> task, CompletableFuture<T> result) {
+        Future<?> running;
+        try {
+            running = EXECUTOR.submit(() -> complete(task, result));
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(
+                    new RuntimeException("Trop de rapports en cours, réessayez dans un instant.", e));
+            return;
+        }
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                running.cancel(true);
+            }
+        });
+    }
+
+    /**
+     * A sale was recorded: revenue, stock and sales analytics are stale.
+     */
+    public static void salesChanged() {
+        invalidate(Set.of(ReportType.REVENUE, ReportType.STOCK, ReportType.BEST_SELLERS, ReportType.SALES_PIVOT));
+    }
+
+    /**
+     * An order was created, changed or received (received orders also add
+     * stock).
+     */
+    public static void ordersChanged() {
+        invalidate(Set.of(ReportType.EXPENDITURE, ReportType.STOCK));
+    }
+
+    /**
+     * Products were edited. Expenditure is priced at the current purchase
+     * price, so it moves too; best sellers and pivots show product names.
+     */
+    public static void productsChanged() {
+        invalidate(Set.of(ReportType.STOCK, ReportType.EXPENDITURE, ReportType.BEST_SELLERS,
+                ReportType.SALES_PIVOT));
+    }
+
+    public static void suppliersChanged() {
+        invalidate(Set.of(ReportType.EXPENDITURE, ReportType.PERFORMANCE));
+    }
+
+    /**
+     * Forgets every cached result of the given types. A computation still
+     * running is dropped from the cache too, so its (possibly stale) result
+     * only reaches the callers already waiting for it.
+     */
+    public static void invalidate(Set<ReportType<?>> types) {
+        CACHE.keySet().removeIf(request -> types.contains(request.getType()));
+    }
+
+    /**
+     * Stops the report workers. Pending and running reports are interrupted.
+     */
+    public static void shutdown() {
+        EXECUTOR.shutdownNow();
+        CACHE.clear();
+    }
+
+    private static class CachedReport {
+        final CompletableFuture<? extends ReportResult> future;
+        final long expiresAt;
+        final AtomicInteger waiters = new AtomicInteger();
+
+        CachedReport(CompletableFuture<? extends ReportResult> future, long expiresAt) {
+            this.future = future;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * A future of its own for one caller, so one view cancelling does
+         * not cancel the result for others. The computation itself is
+         * cancelled once every waiter gave up.
+         */
+        CompletableFuture<? extends ReportResult> waiter() {
+            if (future.isDone())
+                return future.copy();
+            waiters.incrementAndGet();
+            CompletableFuture<? extends ReportResult> copy = future.copy();
+            copy.whenComplete((value, error) -> {
+                if (copy.isCancelled() && waiters.decrementAndGet() == 0) {
+                    future.cancel(true);
+                }
+            });
+            return copy;
+        }
+    }
+
+    /**
+     * Futures of one multi-report request.
+     */
+    public static class ReportBatch {
+        private final Map<ReportType<?>, CompletableFuture<? extends ReportResult>> futures;
+        private final CompletableFuture<Void> all;
+
+        ReportBatch(Map<ReportType<?>, CompletableFuture<? extends ReportResult>> futures) {
+            this.futures = futures;
+            this.all = CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]));
+            for (CompletableFuture<? extends ReportResult> f : futures.values()) {
+                // allOf waits for every part; fail fast instead
+                f.whenComplete((value, error) -> {
+                    if (error != null)
+                        all.completeExceptionally(error);
+                });
+            }
+            all.whenComplete((value, error) -> {
+                if (all.isCancelled())
+                    cancel();
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        public <R extends ReportResult> CompletableFuture<R> get(ReportType<R> type) {
+            CompletableFuture<? extends ReportResult> f = futures.get(type);
+            if (f == null) {
+                throw new IllegalArgumentException("Rapport non demandé: " + type);
+            }
+            return (CompletableFuture<R>) f;
+        }
+
+        public CompletableFuture<Void> all() {
+            return all;
+        }
+
+        public void cancel() {
+            for (CompletableFuture<? extends ReportResult> f : futures.values()) {
+                f.cancel(true);
+            }
+            all.cancel(true);
+        }
     }
 }
@@ -1,12 +1,12 @@
 package pharmacie.service;
 
-import java.util.Map;
-
 /**
  * Strategy interface for generating reports.
  */
-public interface ReportStrategy {
-    String generateReport();
-
-    Map<String, Object> getData();
+public interface ReportStrategy<R extends ReportResult> {
+    /**
+     * Computes the report for the period and filters of {@code request}.
+     * Filters a report does not support are ignored.
+     */
+    R compute(ReportRequest<R> request);
 }
@@ -0,0 +1,46 @@
+package pharmacie.service;
+
+import java.util.List;
+
+/**
+ * The reports ReportService knows about. The type parameter is the result
+ * class, so a request for REVENUE gives back a RevenueReport without casts.
+ */
+public final class ReportType<R extends ReportResult> {
+    public static final ReportType<StockReport> STOCK = new ReportType<>("STOCK");
+    public static final ReportType<RevenueReport> REVENUE = new ReportType<>("REVENUE");
+    public static final ReportType<ExpenditureReport> EXPENDITURE = new ReportType<>("EXPENDITURE");
+    public static final ReportType<SupplierPerformanceReport> PERFORMANCE = new ReportType<>("PERFORMANCE");
+    public static final ReportType<BestSellersReport> BEST_SELLERS = new ReportType<>("BEST_SELLERS");
+    public static final ReportType<SalesPivotReport> SALES_PIVOT = new ReportType<>("SALES_PIVOT");
+
+    private static final List<ReportType<?>> VALUES = List.of(STOCK, REVENUE, EXPENDITURE, PERFORMANCE, BEST_SELLERS,
+            SALES_PIVOT);
+
+    private final String name;
+
+    private ReportType(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Looks a type up by name (case-insensitive), or returns null.
+     */
+    public static ReportType<?> valueOf(String name) {
+        for (ReportType<?> type : VALUES) {
+            if (type.name.equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
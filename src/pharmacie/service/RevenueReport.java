@@ -0,0 +1,51 @@
+package pharmacie.service;
+
+import pharmacie.dao.interfaces.RevenueAggregate;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RevenueReport implements ReportResult {
+    private final BigDecimal total;
+    private final long nombreVentes;
+    private final List<RevenueAggregate> periodes;
+
+    public RevenueReport(BigDecimal total, long nombreVentes, List<RevenueAggregate> periodes) {
+        this.total = total;
+        this.nombreVentes = nombreVentes;
+        this.periodes = List.copyOf(periodes);
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public long getNombreVentes() {
+        return nombreVentes;
+    }
+
+    /**
+     * One row per day, month or year when the request had a bucket, empty
+     * otherwise.
+     */
+    public List<RevenueAggregate> getPeriodes() {
+        return periodes;
+    }
+
+    @Override
+    public String toText() {
+        return "=== Rapport Chiffre d'Affaires ===\n" +
+                "Nombre de ventes: " + nombreVentes + "\n" +
+                "Total Revenu: " + total.toString() + " €\n";
+    }
+
+    @Override
+    public Map<String, Object> toMap() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("totalRevenue", total);
+        data.put("transactionCount", (int) nombreVentes);
+        return data;
+    }
+}
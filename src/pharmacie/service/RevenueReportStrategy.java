@@ -1,44 +1,39 @@
 package pharmacie.service;
 
 import pharmacie.dao.interfaces.DAOFactory;
+import pharmacie.dao.interfaces.RevenueAggregate;
 import pharmacie.dao.interfaces.VenteDAO;
-import pharmacie.model.Vente;
 
 import java.math.BigDecimal;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
-public class RevenueReportStrategy implements ReportStrategy {
+public class RevenueReportStrategy implements ReportStrategy<RevenueReport> {
     private VenteDAO venteDAO;
 
     public RevenueReportStrategy() {
         this.venteDAO = DAOFactory.getFactory(DAOFactory.Type.MYSQL).getVenteDAO();
     }
 
+    /**
+     * Totals over the requested period, summed by the database in one
+     * query; with a bucket the same query returns one row per period and
+     * the totals are added up here.
+     */
     @Override
-    public String generateReport() {
-        List<Vente> ventes = venteDAO.findAll();
-        BigDecimal totalRevenue = BigDecimal.ZERO;
-        for (Vente v : ventes) {
-            totalRevenue = totalRevenue.add(v.getTotal());
+    public RevenueReport compute(ReportRequest<RevenueReport> request) {
+        List<RevenueAggregate> rows = venteDAO.aggregateRevenue(request.getStart(), request.getEnd(),
+                request.getBucket());
+        if (request.getBucket() == null) {
+            RevenueAggregate totals = rows.isEmpty() ? new RevenueAggregate(null, BigDecimal.ZERO, 0) : rows.get(0);
+            return new RevenueReport(totals.getTotal(), totals.getNombreVentes(), List.of());
         }
 
-        return "=== Rapport Chiffre d'Affaires ===\n" +
-                "Nombre de ventes: " + ventes.size() + "\n" +
-                "Total Revenu: " + totalRevenue.toString() + " €\n";
-    }
-
-    @Override
-    public Map<String, Object> getData() {
-        List<Vente> ventes = venteDAO.findAll();
-        BigDecimal totalRevenue = BigDecimal.ZERO;
-        for (Vente v : ventes) {
-            totalRevenue = totalRevenue.add(v.getTotal());
+        BigDecimal total = BigDecimal.ZERO;
+        long count = 0;
+        for (RevenueAggregate row : rows) {
+            total = total.add(row.getTotal());
+            count += row.getNombreVentes();
         }
-        Map<String, Object> data = new HashMap<>();
-        data.put("totalRevenue", totalRevenue);
-        data.put("transactionCount", ventes.size());
-        return data;
+        return new RevenueReport(total, count, rows);
     }
 }
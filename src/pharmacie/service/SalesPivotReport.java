@@ -0,0 +1,60 @@
+package pharmacie.service;
+
+import pharmacie.service.analytics.SalesDimension;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SalesPivotReport implements ReportResult {
+    private final SalesDimension dimension;
+    private final LocalDateTime debut;
+    private final List<SalesPivotRow> lignes;
+
+    public SalesPivotReport(SalesDimension dimension, LocalDateTime debut, List<SalesPivotRow> lignes) {
+        this.dimension = dimension;
+        this.debut = debut;
+        this.lignes = List.copyOf(lignes);
+    }
+
+    public SalesDimension getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Start of the period summed: the requested start, or the first
+     * retained day when none was given.
+     */
+    public LocalDateTime getDebut() {
+        return debut;
+    }
+
+    /**
+     * One row per group, ordered by key.
+     */
+    public List<SalesPivotRow> getLignes() {
+        return lignes;
+    }
+
+    @Override
+    public String toText() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== Ventes par ").append(dimension).append(" depuis ").append(debut.toLocalDate())
+                .append(" ===\n");
+        for (SalesPivotRow row : lignes) {
+            sb.append(String.format("%s: %d ventes, %d unités, %s €\n", row.getLibelle(), row.getNombreVentes(),
+                    row.getQuantite(), row.getChiffreAffaires()));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public Map<String, Object> toMap() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("dimension", dimension);
+        data.put("debut", debut);
+        data.put("lignes", lignes);
+        return data;
+    }
+}
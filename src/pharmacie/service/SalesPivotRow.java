@@ -0,0 +1,43 @@
+package pharmacie.service;
+
+import java.math.BigDecimal;
+
+/**
+ * One group of a sales pivot, with a readable label (hour, day name,
+ * product, cashier, client...).
+ */
+public class SalesPivotRow {
+    private final int key;
+    private final String libelle;
+    private final long nombreVentes;
+    private final long quantite;
+    private final BigDecimal chiffreAffaires;
+
+    public SalesPivotRow(int key, String libelle, long nombreVentes, long quantite, BigDecimal chiffreAffaires) {
+        this.key = key;
+        this.libelle = libelle;
+        this.nombreVentes = nombreVentes;
+        this.quantite = quantite;
+        this.chiffreAffaires = chiffreAffaires;
+    }
+
+    public int getKey() {
+        return key;
+    }
+
+    public String getLibelle() {
+        return libelle;
+    }
+
+    public long getNombreVentes() {
+        return nombreVentes;
+    }
+
+    public long getQuantite() {
+        return quantite;
+    }
+
+    public BigDecimal getChiffreAffaires() {
+        return chiffreAffaires;
+    }
+}
@@ -0,0 +1,132 @@
+package pharmacie.service;
+
+import pharmacie.dao.interfaces.ClientDAO;
+import pharmacie.dao.interfaces.DAOFactory;
+import pharmacie.dao.interfaces.ProduitDAO;
+import pharmacie.dao.interfaces.UtilisateurDAO;
+import pharmacie.dao.interfaces.VenteDAO;
+import pharmacie.model.Personne;
+import pharmacie.model.Produit;
+import pharmacie.service.analytics.PivotRow;
+import pharmacie.service.analytics.SalesColumnStore;
+import pharmacie.service.analytics.SalesColumns;
+import pharmacie.service.analytics.SalesDimension;
+import pharmacie.service.analytics.SalesFilter;
+import pharmacie.service.analytics.SalesPivot;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Ad-hoc sales slicing: units, revenue and number of sales per hour,
+ * weekday, day, month, product, cashier or client (request.getDimension(),
+ * DAY by default) over the requested period and products.
+ *
+ * Scans the in-process columnar copy of the sale lines kept by
+ * SalesColumnStore, in parallel, instead of querying MySQL. Without a
+ * start date the period is the retained days (SalesColumnStore
+ * RETENTION_DAYS); only an explicit start before them is streamed from the
+ * database, for this request only. Sales of other terminals are included
+ * one change_log polling interval after their checkout.
+ */
+public class SalesPivotStrategy implements ReportStrategy<SalesPivotReport> {
+    private VenteDAO venteDAO;
+    private ProduitDAO produitDAO;
+    private UtilisateurDAO utilisateurDAO;
+    private ClientDAO clientDAO;
+
+    public SalesPivotStrategy() {
+        DAOFactory factory = DAOFactory.getFactory(DAOFactory.Type.MYSQL);
+        this.venteDAO = factory.getVenteDAO();
+        this.produitDAO = factory.getProduitDAO();
+        this.utilisateurDAO = factory.getUtilisateurDAO();
+        this.clientDAO = factory.getClientDAO();
+    }
+
+    @Override
+    public SalesPivotReport compute(ReportRequest<SalesPivotReport> request) {
+        SalesDimension dimension = request.getDimension() == null ? SalesDimension.DAY : request.getDimension();
+        SalesColumnStore store = SalesColumnStore.getInstance(venteDAO);
+        SalesColumns columns = store.columns();
+        LocalDateTime start = request.getStart() == null ? store.getFirstDay() : request.getStart();
+        if (start.isBefore(store.getFirstDay())) {
+            columns = store.load(start, request.getEnd() == null ? LocalDateTime.now().plusDays(1) : request.getEnd());
+        }
+
+        List<PivotRow> groups = SalesPivot.run(columns,
+                SalesFilter.of(start, request.getEnd(), request.getProduitIds()), dimension);
+        Map<Long, String> names = names(dimension);
+        List<SalesPivotRow> lignes = new ArrayList<>();
+        for (PivotRow g : groups) {
+            lignes.add(new SalesPivotRow(g.getKey(), label(dimension, g.getKey(), names), g.getVentes(),
+                    g.getQuantite(), BigDecimal.valueOf(g.getCents(), 2)));
+        }
+        return new SalesPivotReport(dimension, start, lignes);
+    }
+
+    /**
+     * Names of the products, cashiers or clients by id, read with one
+     * query for the whole pivot rather than one per group. Empty for the
+     * time dimensions.
+     */
+    private Map<Long, String> names(SalesDimension dimension) {
+        Map<Long, String> names = new HashMap<>();
+        switch (dimension) {
+            case PRODUCT:
+                for (Produit p : produitDAO.findAll()) {
+                    names.put(p.getId(), p.getNom());
+                }
+                break;
+            case CASHIER:
+                for (Personne p : utilisateurDAO.findAll()) {
+                    names.put(p.getId(), fullName(p));
+                }
+                break;
+            case CLIENT:
+                for (Personne p : clientDAO.findAll()) {
+                    names.put(p.getId(), fullName(p));
+                }
+                break;
+            default:
+                break;
+        }
+        return names;
+    }
+
+    private String label(SalesDimension dimension, int key, Map<Long, String> names) {
+        switch (dimension) {
+            case HOUR:
+                return String.format("%02dh", key);
+            case WEEKDAY:
+                return DayOfWeek.of(key + 1).getDisplayName(TextStyle.FULL, Locale.FRENCH);
+            case DAY:
+                return LocalDate.ofEpochDay(key).toString();
+            case MONTH:
+                return String.format("%04d-%02d", key / 12, key % 12 + 1);
+            case PRODUCT:
+                return names.getOrDefault((long) key, "Produit #" + key);
+            case CASHIER:
+                if (key == SalesColumns.NONE)
+                    return "Inconnu";
+                return names.getOrDefault((long) key, "Utilisateur #" + key);
+            case CLIENT:
+                if (key == SalesColumns.NONE)
+                    return "Sans client";
+                return names.getOrDefault((long) key, "Client #" + key);
+            default:
+                return String.valueOf(key);
+        }
+    }
+
+    private String fullName(Personne p) {
+        return p.getPrenom() == null ? p.getNom() : p.getNom() + " " + p.getPrenom();
+    }
+}
@@ -0,0 +1,114 @@
+package pharmacie.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy-hitters summary over long keys with weighted
+ * increments, in a fixed number of counters.
+ *
+ * Counters sit in an array-backed min-heap (plus a key -> slot map), so an
+ * update is O(log capacity). When a new key arrives and every counter is
+ * taken, it replaces the smallest counter and inherits its count. Hence
+ * the count of a monitored key is never below its true weight, and a key
+ * that is not monitored has a true weight of at most {@link #min()}.
+ *
+ * Not thread-safe.
+ */
+class SpaceSavingSketch {
+    private final long[] keys;
+    private final long[] counts;
+    private final Map<Long, Integer> slots;
+    private int size;
+
+    SpaceSavingSketch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("La capacité doit être positive.");
+        }
+        keys = new long[capacity];
+        counts = new long[capacity];
+        slots = new HashMap<>(capacity * 2);
+    }
+
+    void add(long key, long weight) {
+        if (weight <= 0)
+            return;
+        Integer slot = slots.get(key);
+        if (slot != null) {
+            counts[slot] += weight;
+            siftDown(slot);
+        } else if (size < keys.length) {
+            keys[size] = key;
+            counts[size] = weight;
+            slots.put(key, size);
+            siftUp(size++);
+        } else {
+            // Take over the smallest counter
+            slots.remove(keys[0]);
+            keys[0] = key;
+            counts[0] += weight;
+            slots.put(key, 0);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Upper bound of the weight of any key that is not monitored: 0 until
+     * the first eviction.
+     */
+    long min() {
+        return size < keys.length ? 0 : counts[0];
+    }
+
+    int size() {
+        return size;
+    }
+
+    long keyAt(int i) {
+        return keys[i];
+    }
+
+    /**
+     * Upper bound of the weight of keyAt(i).
+     */
+    long countAt(int i) {
+        return counts[i];
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (counts[parent] <= counts[i])
+                return;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && counts[left] < counts[smallest])
+                smallest = left;
+            if (right < size && counts[right] < counts[smallest])
+                smallest = right;
+            if (smallest == i)
+                return;
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long k = keys[a];
+        keys[a] = keys[b];
+        keys[b] = k;
+        long c = counts[a];
+        counts[a] = counts[b];
+        counts[b] = c;
+        slots.put(keys[a], a);
+        slots.put(keys[b], b);
+    }
+}
@@ -0,0 +1,63 @@
+package pharmacie.service;
+
+import pharmacie.model.Produit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps its own copies of the products: Produit is mutable, and a cached
+ * report is shared by every view that asks for it.
+ */
+public class StockReport implements ReportResult {
+    private final List<Produit> produits;
+
+    public StockReport(List<Produit> produits) {
+        this.produits = copyAll(produits);
+    }
+
+    /**
+     * Copies of the products, free to edit.
+     */
+    public List<Produit> getProduits() {
+        return copyAll(produits);
+    }
+
+    public int getCount() {
+        return produits.size();
+    }
+
+    @Override
+    public String toText() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== Rapport de Stock ===\n");
+        sb.append("Total Produits: ").append(produits.size()).append("\n");
+        sb.append("---------------------------------\n");
+        for (Produit p : produits) {
+            sb.append(String.format("%s (Code: %s): %d unités [Seuil: %d]\n",
+                    p.getNom(), p.getCodeBarre(), p.getStockActuel(), p.getSeuilMin()));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public Map<String, Object> toMap() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("produits", getProduits());
+        data.put("count", produits.size());
+        return data;
+    }
+
+    private static List<Produit> copyAll(List<Produit> produits) {
+        List<Produit> copies = new ArrayList<>(produits.size());
+        for (Produit p : produits) {
+            Produit c = new Produit(p.getId(), p.getNom(), p.getPrixAchat(), p.getPrixVente(), p.getStockActuel(),
+                    p.getSeuilMin(), p.getCodeBarre());
+            c.setDescription(p.getDescription());
+            copies.add(c);
+        }
+        return List.copyOf(copies);
+    }
+}
@@ -4,37 +4,33 @@ import pharmacie.dao.interfaces.DAOFactory;
 import pharmacie.dao.interfaces.ProduitDAO;
 import pharmacie.model.Produit;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
-public class StockReportStrategy implements ReportStrategy {
+public class StockReportStrategy implements ReportStrategy<StockReport> {
     private ProduitDAO produitDAO;
 
     public StockReportStrategy() {
         this.produitDAO = DAOFactory.getFactory(DAOFactory.Type.MYSQL).getProduitDAO();
     }
 
+    /**
+     * Current stock of every product, or of request.getProduitIds() only.
+     */
     @Override
-    public String generateReport() {
+    public StockReport compute(ReportRequest<StockReport> request) {
         List<Produit> produits = produitDAO.findAll();
-        StringBuilder sb = new StringBuilder();
-        sb.append("=== Rapport de Stock ===\n");
-        sb.append("Total Produits: ").append(produits.size()).append("\n");
-        sb.append("---------------------------------\n");
-        for (Produit p : produits) {
-            sb.append(String.format("%s (Code: %s): %d unités [Seuil: %d]\n",
-                    p.getNom(), p.getCodeBarre(), p.getStockActuel(), p.getSeuilMin()));
+        Set<Long> ids = request.getProduitIds();
+        if (ids != null) {
+            List<Produit> kept = new ArrayList<>();
+            for (Produit p : produits) {
+                if (ids.contains(p.getId())) {
+                    kept.add(p);
+                }
+            }
+            produits = kept;
         }
-        return sb.toString();
-    }
-
-    @Override
-    public Map<String, Object> getData() {
-        List<Produit> produits = produitDAO.findAll();
-        Map<String, Object> data = new HashMap<>();
-        data.put("produits", produits);
-        data.put("count", produits.size());
-        return data;
+        return new StockReport(produits);
     }
 }
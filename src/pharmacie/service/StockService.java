@@ -20,16 +20,19 @@ public class StockService {
 
     public void saveProduit(Produit p) {
         if (p.getCodeBarre() != null && !p.getCodeBarre().isEmpty()) {
+            // Served by the catalog cache's barcode index, no query
             Optional<Produit> existing = produitDAO.findByCodeBarre(p.getCodeBarre());
             if (existing.isPresent() && (p.getId() == null || !existing.get().getId().equals(p.getId()))) {
                 throw new RuntimeException("Code barre déjà existant: " + p.getCodeBarre());
             }
         }
         produitDAO.save(p);
+        ReportService.productsChanged();
     }
 
     public void deleteProduit(Long id) {
         produitDAO.delete(id);
+        ReportService.productsChanged();
     }
 
     public List<Produit> checkLowStock() {
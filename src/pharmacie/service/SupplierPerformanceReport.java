@@ -0,0 +1,32 @@
+package pharmacie.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class SupplierPerformanceReport implements ReportResult {
+    private final Map<String, Integer> scores;
+
+    public SupplierPerformanceReport(Map<String, Integer> scores) {
+        this.scores = Collections.unmodifiableMap(new HashMap<>(scores));
+    }
+
+    /**
+     * Performance note by supplier name.
+     */
+    public Map<String, Integer> getScores() {
+        return scores;
+    }
+
+    @Override
+    public String toText() {
+        return "Rapport de Performance Fournisseurs";
+    }
+
+    @Override
+    public Map<String, Object> toMap() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("performanceBreakdown", new HashMap<>(scores));
+        return result;
+    }
+}
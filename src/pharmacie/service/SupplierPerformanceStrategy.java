@@ -8,7 +8,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-public class SupplierPerformanceStrategy implements ReportStrategy {
+public class SupplierPerformanceStrategy implements ReportStrategy<SupplierPerformanceReport> {
     private FournisseurDAO fournisseurDAO;
 
     public SupplierPerformanceStrategy() {
@@ -16,21 +16,14 @@ public class SupplierPerformanceStrategy implements ReportStrategy {
     }
 
     @Override
-    public String generateReport() {
-        return "Rapport de Performance Fournisseurs";
-    }
-
-    @Override
-    public Map<String, Object> getData() {
-        List<Fournisseur> fournisseurs = fournisseurDAO.findAll();
+    public SupplierPerformanceReport compute(ReportRequest<SupplierPerformanceReport> request) {
+        List<Fournisseur> fournisseurs = request.getFournisseurId() == null ? fournisseurDAO.findAll()
+                : fournisseurDAO.findById(request.getFournisseurId()).map(List::of).orElse(List.of());
         Map<String, Integer> performanceMap = new HashMap<>();
 
         for (Fournisseur f : fournisseurs) {
             performanceMap.put(f.getNom(), f.getNotePerformance());
         }
-
-        Map<String, Object> result = new HashMap<>();
-        result.put("performanceBreakdown", performanceMap);
-        return result;
+        return new SupplierPerformanceReport(performanceMap);
     }
 }
@@ -3,12 +3,8 @@ package pharmacie.service;
 import pharmacie.dao.interfaces.DAOFactory;
 import pharmacie.dao.interfaces.VenteDAO;
 import pharmacie.exception.StockInsuffisantException;
-import pharmacie.model.LigneVente;
-import pharmacie.model.Produit;
 import pharmacie.model.Vente;
 
-import java.util.Optional;
-
 public class VenteService {
     private VenteDAO venteDAO;
     private StockService stockService;
@@ -19,28 +15,23 @@ public class VenteService {
     }
 
     /**
-     * Processes a sale: validates stock, saves sale, decreases stock.
+     * Processes a sale: saves it and decreases stock in one transaction.
+     * Stock is checked by the guarded update in the DAO, not by a separate
+     * read per line, so a concurrent sale cannot slip between check and write.
      */
     public void processSale(Vente vente) throws StockInsuffisantException {
-        // 1. Validate Stock
-        for (LigneVente ligne : vente.getLignes()) {
-            Produit p = ligne.getProduit();
-            // We should fetch refreshed product to be sure of stock
-            Optional<Produit> freshP = stockService.getProduitById(p.getId());
-            if (freshP.isPresent()) {
-                p = freshP.get();
-                if (p.getStockActuel() < ligne.getQuantite()) {
-                    throw new StockInsuffisantException("Stock insuffisant pour: " + p.getNom());
-                }
-            } else {
-                throw new StockInsuffisantException("Produit introuvable: " + p.getId());
+        // 1. Save Sale (DAO handles transaction and conditional stock update in DB)
+        try {
+            venteDAO.save(vente);
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof StockInsuffisantException) {
+                throw (StockInsuffisantException) e.getCause();
             }
+            throw e;
         }
+        ReportService.salesChanged();
 
-        // 2. Save Sale (DAO handles transaction and stock update in DB)
-        venteDAO.save(vente);
-
-        // 3. Notify Observers about low stock (Post-transaction check)
+        // 2. Notify Observers about low stock (Post-transaction check)
         stockService.checkStockLevels();
     }
 }
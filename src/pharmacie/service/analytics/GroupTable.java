@@ -0,0 +1,107 @@
+package pharmacie.service.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Open-addressing hash table from an int group key to running totals, in
+ * parallel primitive arrays (no boxing per row).
+ */
+class GroupTable {
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private int[] keys;
+    private long[] ventes;
+    private long[] quantite;
+    private long[] cents;
+    // Last sale counted per group; lines of a sale are contiguous
+    private long[] lastVente;
+    private int count;
+
+    GroupTable() {
+        allocate(64);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        ventes = new long[capacity];
+        quantite = new long[capacity];
+        cents = new long[capacity];
+        lastVente = new long[capacity];
+        Arrays.fill(lastVente, Long.MIN_VALUE);
+        count = 0;
+    }
+
+    private int slot(int key) {
+        int mask = keys.length - 1;
+        int h = key * 0x9E3779B9;
+        int i = (h ^ h >>> 16) & mask;
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == EMPTY) {
+            if ((count + 1) * 2 > keys.length) {
+                rehash();
+                return slot(key);
+            }
+            keys[i] = key;
+            count++;
+        }
+        return i;
+    }
+
+    void add(int key, long vente, long qty, long amount) {
+        int i = slot(key);
+        if (lastVente[i] != vente) {
+            lastVente[i] = vente;
+            ventes[i]++;
+        }
+        quantite[i] += qty;
+        cents[i] += amount;
+    }
+
+    private void add(int key, long nbVentes, long qty, long amount, long last) {
+        int i = slot(key);
+        ventes[i] += nbVentes;
+        quantite[i] += qty;
+        cents[i] += amount;
+        lastVente[i] = last;
+    }
+
+    /**
+     * Adds the totals of a table built over a disjoint set of sales.
+     */
+    void merge(GroupTable other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != EMPTY) {
+                add(other.keys[i], other.ventes[i], other.quantite[i], other.cents[i], other.lastVente[i]);
+            }
+        }
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        long[] oldVentes = ventes;
+        long[] oldQuantite = quantite;
+        long[] oldCents = cents;
+        long[] oldLast = lastVente;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                add(oldKeys[i], oldVentes[i], oldQuantite[i], oldCents[i], oldLast[i]);
+            }
+        }
+    }
+
+    List<PivotRow> rows() {
+        List<PivotRow> list = new ArrayList<>(count);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                list.add(new PivotRow(keys[i], ventes[i], quantite[i], cents[i]));
+            }
+        }
+        return list;
+    }
+}
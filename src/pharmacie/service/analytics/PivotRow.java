@@ -0,0 +1,43 @@
+package pharmacie.service.analytics;
+
+/**
+ * Totals of one group of a sales pivot.
+ */
+public class PivotRow {
+    private final int key;
+    private final long ventes;
+    private final long quantite;
+    private final long cents;
+
+    PivotRow(int key, long ventes, long quantite, long cents) {
+        this.key = key;
+        this.ventes = ventes;
+        this.quantite = quantite;
+        this.cents = cents;
+    }
+
+    /**
+     * Group key, as described on each SalesDimension constant.
+     */
+    public int getKey() {
+        return key;
+    }
+
+    /**
+     * Number of distinct sales with at least one matching line.
+     */
+    public long getVentes() {
+        return ventes;
+    }
+
+    public long getQuantite() {
+        return quantite;
+    }
+
+    /**
+     * Revenue of the matching lines, in cents.
+     */
+    public long getCents() {
+        return cents;
+    }
+}
@@ -0,0 +1,148 @@
+package pharmacie.service.analytics;
+
+import pharmacie.dao.interfaces.SaleListener;
+import pharmacie.dao.interfaces.VenteDAO;
+import pharmacie.model.Vente;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The sale lines of the last RETENTION_DAYS days as SalesColumns, loaded
+ * once with VenteDAO.streamByPeriod and then kept current by appending
+ * the sales reported through SaleListener: the checkouts of this process
+ * and, one change_log polling interval later, those of other terminals.
+ * Reloaded every RELOAD_MS to drop deleted sales. One instance per JVM.
+ */
+public class SalesColumnStore implements SaleListener {
+    public static final int RETENTION_DAYS = 366;
+    private static final long RELOAD_MS = 3_600_000;
+    // Sales recorded during a reload and dated before this margin are
+    // assumed to be in the reloaded data
+    private static final long REPLAY_MARGIN_MINUTES = 60;
+
+    private static SalesColumnStore instance;
+
+    private final VenteDAO venteDAO;
+    private SalesColumnsBuilder builder;
+    private volatile SalesColumns current;
+    private LocalDateTime firstDay;
+    private long loadedAt;
+    private List<Vente> duringReload;
+    // Recent sales read by the last reload, which the poller may report again
+    private Set<Long> reloadedIds = Set.of();
+
+    private SalesColumnStore(VenteDAO venteDAO) {
+        this.venteDAO = venteDAO;
+    }
+
+    public static synchronized SalesColumnStore getInstance(VenteDAO venteDAO) {
+        if (instance == null) {
+            instance = new SalesColumnStore(venteDAO);
+            venteDAO.addSaleListener(instance);
+        }
+        return instance;
+    }
+
+    @Override
+    public synchronized void salesRecorded(List<Vente> ventes) {
+        List<Vente> nouvelles = new ArrayList<>();
+        for (Vente v : ventes) {
+            if (!reloadedIds.contains(v.getId()))
+                nouvelles.add(v);
+        }
+        if (duringReload != null) {
+            duringReload.addAll(nouvelles);
+        }
+        if (builder == null || nouvelles.isEmpty())
+            return;
+        for (Vente v : nouvelles) {
+            builder.add(v);
+        }
+        current = builder.view();
+    }
+
+    /**
+     * The current columns, loading or reloading them first if needed.
+     * Callers may scan the returned view without locking.
+     */
+    public SalesColumns columns() {
+        ensureFresh();
+        return current;
+    }
+
+    /**
+     * First instant covered by columns(), or null before the first load.
+     */
+    public synchronized LocalDateTime getFirstDay() {
+        return firstDay;
+    }
+
+    /**
+     * Loads an arbitrary range straight from the database, for windows
+     * older than the retained days. Not cached.
+     */
+    public SalesColumns load(LocalDateTime start, LocalDateTime end) {
+        SalesColumnsBuilder oneOff = new SalesColumnsBuilder(1024);
+        venteDAO.streamByPeriod(start, end, oneOff::add);
+        return oneOff.view();
+    }
+
+    private void ensureFresh() {
+        LocalDateTime from;
+        synchronized (this) {
+            // Nothing to show before the first load completes
+            while (current == null && duringReload != null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Chargement des ventes interrompu.", e);
+                }
+            }
+            if (duringReload != null || (loadedAt != 0 && System.currentTimeMillis() - loadedAt < RELOAD_MS))
+                return;
+            duringReload = new ArrayList<>();
+            from = LocalDate.now().minusDays(RETENTION_DAYS - 1).atStartOfDay();
+        }
+
+        long recentFrom = SalesColumns.toMinute(LocalDateTime.now()) - REPLAY_MARGIN_MINUTES;
+        SalesColumnsBuilder fresh = new SalesColumnsBuilder(current == null ? 1024 : current.size());
+        Set<Long> recentIds = new HashSet<>();
+        try {
+            venteDAO.streamByPeriod(from, LocalDateTime.now().plusDays(1), v -> {
+                fresh.add(v);
+                if (v.getDateVente() != null && SalesColumns.toMinute(v.getDateVente()) >= recentFrom) {
+                    recentIds.add(v.getId());
+                }
+            });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                duringReload = null;
+                notifyAll();
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            // Checkouts committed while streaming: keep those the query missed
+            for (Vente v : duringReload) {
+                if (v.getDateVente() != null && SalesColumns.toMinute(v.getDateVente()) >= recentFrom
+                        && !recentIds.contains(v.getId())) {
+                    fresh.add(v);
+                }
+            }
+            duringReload = null;
+            reloadedIds = recentIds;
+            builder = fresh;
+            current = fresh.view();
+            firstDay = from;
+            loadedAt = System.currentTimeMillis();
+            notifyAll();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package pharmacie.service.analytics;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Sale lines stored column by column in primitive arrays, one index per
+ * line: who sold what, when, to whom and for how much. Lines of one sale
+ * are contiguous.
+ *
+ * An instance is a read-only view of the first {@code size} rows. The
+ * builder only ever writes past the rows it already published, so a view
+ * stays valid while more sales are appended.
+ */
+public final class SalesColumns {
+    /** Caissier or client of a sale that has none. */
+    public static final int NONE = -1;
+
+    final int size;
+    final long[] vente;
+    /** Local date_vente, in minutes since 1970-01-01T00:00 */
+    final long[] minute;
+    final int[] produit;
+    final int[] quantite;
+    /** quantite * prix_unitaire, in cents */
+    final long[] cents;
+    final int[] caissier;
+    final int[] client;
+
+    SalesColumns(int size, long[] vente, long[] minute, int[] produit, int[] quantite, long[] cents, int[] caissier,
+            int[] client) {
+        this.size = size;
+        this.vente = vente;
+        this.minute = minute;
+        this.produit = produit;
+        this.quantite = quantite;
+        this.cents = cents;
+        this.caissier = caissier;
+        this.client = client;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public static long toMinute(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60L);
+    }
+
+    int month(int row) {
+        LocalDate day = LocalDate.ofEpochDay(Math.floorDiv(minute[row], SalesDimension.MINUTES_PER_DAY));
+        return day.getYear() * 12 + day.getMonthValue() - 1;
+    }
+}
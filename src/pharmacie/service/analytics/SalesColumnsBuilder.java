@@ -0,0 +1,74 @@
+package pharmacie.service.analytics;
+
+import pharmacie.model.LigneVente;
+import pharmacie.model.Vente;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+/**
+ * Appends sales to growing column arrays. Not thread-safe: the store
+ * appends under its lock and publishes views with {@link #view()}.
+ */
+class SalesColumnsBuilder {
+    private int size;
+    private long[] vente;
+    private long[] minute;
+    private int[] produit;
+    private int[] quantite;
+    private long[] cents;
+    private int[] caissier;
+    private int[] client;
+
+    SalesColumnsBuilder(int capacity) {
+        capacity = Math.max(capacity, 16);
+        vente = new long[capacity];
+        minute = new long[capacity];
+        produit = new int[capacity];
+        quantite = new int[capacity];
+        cents = new long[capacity];
+        caissier = new int[capacity];
+        client = new int[capacity];
+    }
+
+    void add(Vente v) {
+        if (v.getDateVente() == null)
+            return;
+        long at = SalesColumns.toMinute(v.getDateVente());
+        int caissierId = v.getUtilisateur() == null || v.getUtilisateur().getId() == null ? SalesColumns.NONE
+                : Math.toIntExact(v.getUtilisateur().getId());
+        int clientId = v.getClient() == null || v.getClient().getId() == null ? SalesColumns.NONE
+                : Math.toIntExact(v.getClient().getId());
+        for (LigneVente lv : v.getLignes()) {
+            if (size == vente.length)
+                grow();
+            vente[size] = v.getId();
+            minute[size] = at;
+            produit[size] = Math.toIntExact(lv.getProduit().getId());
+            quantite[size] = lv.getQuantite();
+            cents[size] = lv.getPrixUnitaire() == null ? 0
+                    : lv.getPrixUnitaire().multiply(BigDecimal.valueOf(lv.getQuantite())).movePointRight(2)
+                            .setScale(0, RoundingMode.HALF_UP).longValueExact();
+            caissier[size] = caissierId;
+            client[size] = clientId;
+            size++;
+        }
+    }
+
+    private void grow() {
+        // A fresh copy: published views keep the old arrays
+        int capacity = vente.length * 2;
+        vente = Arrays.copyOf(vente, capacity);
+        minute = Arrays.copyOf(minute, capacity);
+        produit = Arrays.copyOf(produit, capacity);
+        quantite = Arrays.copyOf(quantite, capacity);
+        cents = Arrays.copyOf(cents, capacity);
+        caissier = Arrays.copyOf(caissier, capacity);
+        client = Arrays.copyOf(client, capacity);
+    }
+
+    SalesColumns view() {
+        return new SalesColumns(size, vente, minute, produit, quantite, cents, caissier, client);
+    }
+}
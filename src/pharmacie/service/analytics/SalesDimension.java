@@ -0,0 +1,62 @@
+package pharmacie.service.analytics;
+
+/**
+ * What a sales pivot groups by. Time dimensions use the local wall-clock
+ * time stored in vente.date_vente.
+ */
+public enum SalesDimension {
+    /** 0-23 */
+    HOUR {
+        @Override
+        int key(SalesColumns c, int row) {
+            return (int) Math.floorMod(c.minute[row] / 60, 24L);
+        }
+    },
+    /** 0 = Monday ... 6 = Sunday */
+    WEEKDAY {
+        @Override
+        int key(SalesColumns c, int row) {
+            // 1970-01-01 was a Thursday
+            return (int) Math.floorMod(Math.floorDiv(c.minute[row], MINUTES_PER_DAY) + 3, 7L);
+        }
+    },
+    /** Epoch day */
+    DAY {
+        @Override
+        int key(SalesColumns c, int row) {
+            return (int) Math.floorDiv(c.minute[row], MINUTES_PER_DAY);
+        }
+    },
+    /** year * 12 + month - 1 */
+    MONTH {
+        @Override
+        int key(SalesColumns c, int row) {
+            return c.month(row);
+        }
+    },
+    /** Product id */
+    PRODUCT {
+        @Override
+        int key(SalesColumns c, int row) {
+            return c.produit[row];
+        }
+    },
+    /** Utilisateur id, or SalesColumns.NONE */
+    CASHIER {
+        @Override
+        int key(SalesColumns c, int row) {
+            return c.caissier[row];
+        }
+    },
+    /** Client id, or SalesColumns.NONE for anonymous sales */
+    CLIENT {
+        @Override
+        int key(SalesColumns c, int row) {
+            return c.client[row];
+        }
+    };
+
+    static final long MINUTES_PER_DAY = 1440;
+
+    abstract int key(SalesColumns c, int row);
+}
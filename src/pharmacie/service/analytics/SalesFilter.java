@@ -0,0 +1,42 @@
+package pharmacie.service.analytics;
+
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Which sale lines a pivot reads: a date range and optionally a set of
+ * products.
+ */
+public final class SalesFilter {
+    final long fromMinute;
+    final long toMinute;
+    final BitSet produits;
+
+    private SalesFilter(long fromMinute, long toMinute, BitSet produits) {
+        this.fromMinute = fromMinute;
+        this.toMinute = toMinute;
+        this.produits = produits;
+    }
+
+    /**
+     * Lines sold between start and end (inclusive, either may be null), of
+     * the given products only when {@code produitIds} is not null.
+     */
+    public static SalesFilter of(LocalDateTime start, LocalDateTime end, Collection<Long> produitIds) {
+        BitSet produits = null;
+        if (produitIds != null) {
+            produits = new BitSet();
+            for (Long id : produitIds) {
+                produits.set(Math.toIntExact(id));
+            }
+        }
+        return new SalesFilter(start == null ? Long.MIN_VALUE : SalesColumns.toMinute(start),
+                end == null ? Long.MAX_VALUE : SalesColumns.toMinute(end), produits);
+    }
+
+    boolean accepts(SalesColumns c, int row) {
+        long m = c.minute[row];
+        return m >= fromMinute && m <= toMinute && (produits == null || produits.get(c.produit[row]));
+    }
+}
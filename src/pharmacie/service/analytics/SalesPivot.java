@@ -0,0 +1,75 @@
+package pharmacie.service.analytics;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Filter + group-by over SalesColumns. The rows are cut into slices that
+ * the common fork/join pool scans in parallel, each into its own
+ * GroupTable; tables are merged pairwise on the way back. Slices are cut
+ * on sale boundaries so a sale is counted once per group.
+ */
+public final class SalesPivot {
+    // Rows scanned by one task before it stops splitting
+    private static final int SLICE = 1 << 15;
+
+    private SalesPivot() {
+    }
+
+    /**
+     * Totals per group of {@code dimension} over the lines accepted by
+     * {@code filter}, ordered by key.
+     */
+    public static List<PivotRow> run(SalesColumns columns, SalesFilter filter, SalesDimension dimension) {
+        GroupTable table = ForkJoinPool.commonPool().invoke(new Scan(columns, filter, dimension, 0, columns.size));
+        List<PivotRow> rows = table.rows();
+        rows.sort(Comparator.comparingInt(PivotRow::getKey));
+        return rows;
+    }
+
+    private static class Scan extends RecursiveTask<GroupTable> {
+        private static final long serialVersionUID = 1L;
+
+        // A task is never serialized, it only lives for one run()
+        private final transient SalesColumns c;
+        private final transient SalesFilter filter;
+        private final SalesDimension dimension;
+        private final int from;
+        private final int to;
+
+        Scan(SalesColumns c, SalesFilter filter, SalesDimension dimension, int from, int to) {
+            this.c = c;
+            this.filter = filter;
+            this.dimension = dimension;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected GroupTable compute() {
+            if (to - from > SLICE) {
+                int mid = (from + to) >>> 1;
+                while (mid < to && c.vente[mid] == c.vente[mid - 1]) {
+                    mid++;
+                }
+                if (mid < to) {
+                    Scan right = new Scan(c, filter, dimension, mid, to);
+                    right.fork();
+                    GroupTable left = new Scan(c, filter, dimension, from, mid).compute();
+                    left.merge(right.join());
+                    return left;
+                }
+            }
+
+            GroupTable table = new GroupTable();
+            for (int row = from; row < to; row++) {
+                if (filter.accepts(c, row)) {
+                    table.add(dimension.key(c, row), c.vente[row], c.quantite[row], c.cents[row]);
+                }
+            }
+            return table;
+        }
+    }
+}
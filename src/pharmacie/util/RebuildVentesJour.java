@@ -0,0 +1,25 @@
+package pharmacie.util;
+
+import pharmacie.config.DBConnection;
+import pharmacie.dao.interfaces.DAOFactory;
+import pharmacie.dao.interfaces.VenteDAO;
+
+/**
+ * Backfills the ventes_jour rollup from the whole sales history. Run once
+ * after migration_ventes_jour.sql, or to repair the rollup.
+ */
+public class RebuildVentesJour {
+    public static void main(String[] args) {
+        System.out.println("Reconstruction de ventes_jour...");
+        try {
+            VenteDAO dao = DAOFactory.getFactory(DAOFactory.Type.MYSQL).getVenteDAO();
+            long start = System.currentTimeMillis();
+            dao.rebuildDailySales();
+            System.out.println("Terminé en " + (System.currentTimeMillis() - start) + " ms.");
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            DBConnection.shutdown();
+        }
+    }
+}
@@ -3,22 +3,23 @@ package pharmacie.view;
 import javafx.geometry.Insets;
 import javafx.scene.Parent;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import pharmacie.controller.ClientController;
-import pharmacie.model.Client;
 import pharmacie.model.Vente;
+import pharmacie.view.model.ClientRow;
+import pharmacie.view.model.VenteRow;
 
-import java.time.format.DateTimeFormatter;
 import java.util.Optional;
 
 public class ClientView {
     private BorderPane layout;
     private ClientController controller;
-    private TableView<Client> clientTable;
-    private TableView<Vente> historyTable;
+    private TableView<ClientRow> clientTable;
+    private TableView<VenteRow> historyTable;
+    private Button moreHistoryBtn;
+    private String historyCursor;
 
     public ClientView() {
         this.controller = new ClientController(this);
@@ -76,41 +77,61 @@ public class ClientView {
         historyTable = new TableView<>();
         setupHistoryTable();
 
+        moreHistoryBtn = new Button("Charger plus");
+        moreHistoryBtn.setDisable(true);
+        moreHistoryBtn.setOnAction(e -> loadHistoryPage(false));
+        HBox actions = new HBox(10, moreHistoryBtn);
+        actions.setPadding(new Insets(10, 0, 0, 0));
+
         p.setTop(lbl);
         p.setCenter(historyTable);
+        p.setBottom(actions);
 
         // Listen to selection changes in client table to update history
         clientTable.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
             if (newVal != null) {
-                historyTable.setItems(javafx.collections.FXCollections.observableArrayList(
-                        controller.getClientHistory(newVal)));
+                loadHistoryPage(true);
             }
         });
 
         return p;
     }
 
+    private void loadHistoryPage(boolean reset) {
+        ClientRow selected = clientTable.getSelectionModel().getSelectedItem();
+        if (reset) {
+            historyCursor = null;
+            historyTable.getItems().clear();
+        }
+        moreHistoryBtn.setDisable(true);
+        controller.loadClientHistory(selected != null ? selected.getModel() : null, historyCursor, page -> {
+            for (Vente v : page.getItems()) {
+                historyTable.getItems().add(new VenteRow(v));
+            }
+            historyCursor = page.getNextCursor();
+            moreHistoryBtn.setDisable(!page.hasNext());
+        });
+    }
+
     private void setupClientTable() {
-        TableColumn<Client, String> nom = new TableColumn<>("Nom");
-        nom.setCellValueFactory(new PropertyValueFactory<>("nom"));
+        TableColumn<ClientRow, String> nom = new TableColumn<>("Nom");
+        nom.setCellValueFactory(cell -> cell.getValue().nomProperty());
 
-        TableColumn<Client, String> prenom = new TableColumn<>("Prénom");
-        prenom.setCellValueFactory(new PropertyValueFactory<>("prenom"));
+        TableColumn<ClientRow, String> prenom = new TableColumn<>("Prénom");
+        prenom.setCellValueFactory(cell -> cell.getValue().prenomProperty());
 
-        TableColumn<Client, String> tel = new TableColumn<>("Tél");
-        tel.setCellValueFactory(new PropertyValueFactory<>("telephone"));
+        TableColumn<ClientRow, String> tel = new TableColumn<>("Tél");
+        tel.setCellValueFactory(cell -> cell.getValue().telephoneProperty());
 
         clientTable.getColumns().addAll(nom, prenom, tel);
     }
 
     private void setupHistoryTable() {
-        TableColumn<Vente, String> date = new TableColumn<>("Date");
-        date.setCellValueFactory(cell -> new javafx.beans.property.SimpleStringProperty(
-                cell.getValue().getDateVente().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"))));
+        TableColumn<VenteRow, String> date = new TableColumn<>("Date");
+        date.setCellValueFactory(cell -> cell.getValue().dateProperty());
 
-        TableColumn<Vente, String> total = new TableColumn<>("Total");
-        total.setCellValueFactory(cell -> new javafx.beans.property.SimpleStringProperty(
-                cell.getValue().getTotal().toString() + " €"));
+        TableColumn<VenteRow, String> total = new TableColumn<>("Total");
+        total.setCellValueFactory(cell -> cell.getValue().totalProperty().asString("%s €"));
 
         historyTable.getColumns().addAll(date, total);
     }
@@ -147,6 +168,14 @@ public class ClientView {
         controller.loadClients(clientTable);
     }
 
+    /**
+     * Cancels the loads still running, e.g. when the user leaves the
+     * screen.
+     */
+    public void cancelPending() {
+        controller.cancelPending();
+    }
+
     public Parent getView() {
         return layout;
     }
@@ -0,0 +1,109 @@
+package pharmacie.view;
+
+import javafx.collections.ObservableList;
+import javafx.scene.control.TableView;
+import pharmacie.view.model.ModelRow;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Brings a displayed list of rows up to date with freshly loaded model
+ * objects by applying only the differences, matched by key: rows gone are
+ * removed, rows still present get the fresh object through
+ * ModelRow.update() (only their changed cells are redrawn, no list event
+ * is fired), new objects are wrapped and inserted. Contiguous removals and
+ * insertions are applied as one change each, so the first load of a large
+ * list is a single event. The list stays the same object, so a table keeps
+ * its scroll position and selection.
+ */
+public final class ListDiff {
+    private ListDiff() {
+    }
+
+    /**
+     * Updates the table's rows and keeps the user's column sort.
+     *
+     * @param key  identity of a model object, e.g. Produit::getId
+     * @param wrap makes the row showing a new object, e.g. ProduitRow::new
+     */
+    public static <M, R extends ModelRow<M>> void updateRows(TableView<R> table, List<M> fresh,
+            Function<M, ?> key, Function<M, R> wrap) {
+        boolean changed = updateRows(table.getItems(), fresh, key, wrap);
+        // Rows are updated in place, the selection stays on them
+        if (changed && !table.getSortOrder().isEmpty())
+            table.sort();
+    }
+
+    /**
+     * Updates {@code rows} to show the objects of {@code fresh}. Rows already
+     * shown keep their position; new rows are inserted at their position in
+     * {@code fresh} (at the top for lists sorted newest first).
+     *
+     * @return whether anything changed, including a value in a row kept
+     */
+    public static <M, R extends ModelRow<M>> boolean updateRows(ObservableList<R> rows, List<M> fresh,
+            Function<M, ?> key, Function<M, R> wrap) {
+        if (rows.isEmpty()) {
+            List<R> all = new ArrayList<>(fresh.size());
+            for (M m : fresh) {
+                all.add(wrap.apply(m));
+            }
+            rows.setAll(all);
+            return !all.isEmpty();
+        }
+
+        Map<Object, M> freshByKey = new HashMap<>();
+        for (M m : fresh) {
+            freshByKey.put(key.apply(m), m);
+        }
+
+        boolean changed = false;
+        Set<Object> kept = new HashSet<>();
+        // Backwards, so removals do not shift the rows still to visit.
+        // removeEnd is the exclusive end of the run of rows to remove, or -1.
+        int removeEnd = -1;
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            R row = rows.get(i);
+            Object k = key.apply(row.getModel());
+            M m = freshByKey.get(k);
+            if (m == null || !kept.add(k)) {
+                if (removeEnd < 0)
+                    removeEnd = i + 1;
+                continue;
+            }
+            if (removeEnd >= 0) {
+                rows.remove(i + 1, removeEnd);
+                removeEnd = -1;
+                changed = true;
+            }
+            changed |= row.update(m);
+        }
+        if (removeEnd >= 0) {
+            rows.remove(0, removeEnd);
+            changed = true;
+        }
+
+        int i = 0;
+        while (i < fresh.size()) {
+            if (kept.contains(key.apply(fresh.get(i)))) {
+                i++;
+                continue;
+            }
+            int at = Math.min(i, rows.size());
+            List<R> run = new ArrayList<>();
+            while (i < fresh.size() && !kept.contains(key.apply(fresh.get(i)))) {
+                run.add(wrap.apply(fresh.get(i)));
+                i++;
+            }
+            rows.addAll(at, run);
+            changed = true;
+        }
+        return changed;
+    }
+}
@@ -4,7 +4,6 @@ import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.scene.Parent;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
@@ -15,17 +14,19 @@ import pharmacie.model.Commande;
 import pharmacie.model.Fournisseur;
 import pharmacie.model.LigneCommande;
 import pharmacie.model.Produit;
+import pharmacie.model.StatutCommande;
+import pharmacie.view.model.CommandeRow;
+import pharmacie.view.model.ProduitRow;
 
 import java.util.Optional;
-import java.time.format.DateTimeFormatter;
 
 public class OrderView {
     private BorderPane layout;
     private OrderController controller;
     private ComboBox<Fournisseur> supplierCombo;
-    private TableView<Produit> productTable;
+    private TableView<ProduitRow> productTable;
     private TableView<LigneCommande> orderTable;
-    private TableView<Commande> historyTable;
+    private TableView<CommandeRow> historyTable;
 
     public OrderView() {
         this.controller = new OrderController(this);
@@ -63,7 +64,7 @@ public class OrderView {
 
         Label supplierLbl = new Label("Fournisseur:");
         supplierCombo = new ComboBox<>();
-        supplierCombo.getItems().addAll(controller.getAllSuppliers());
+        controller.loadSuppliers(supplierCombo);
         supplierCombo.setConverter(new StringConverter<Fournisseur>() {
             @Override
             public String toString(Fournisseur f) {
@@ -89,14 +90,13 @@ public class OrderView {
 
         productTable = new TableView<>();
         setupProductTable();
-        controller.loadProducts(productTable);
 
         Button addBtn = new Button("Ajouter à la commande");
         addBtn.setMaxWidth(Double.MAX_VALUE);
         addBtn.setOnAction(e -> {
-            Produit p = productTable.getSelectionModel().getSelectedItem();
-            if (p != null)
-                askQtyAndAdd(p);
+            ProduitRow row = productTable.getSelectionModel().getSelectedItem();
+            if (row != null)
+                askQtyAndAdd(row.getModel());
         });
 
         left.getChildren().addAll(productTable, addBtn);
@@ -140,24 +140,25 @@ public class OrderView {
         Button receiveBtn = new Button("Réceptionner (Mise en stock)");
         receiveBtn.setStyle("-fx-background-color: #5cb85c; -fx-text-fill: white;");
         receiveBtn.setOnAction(e -> {
-            Commande c = historyTable.getSelectionModel().getSelectedItem();
-            if (c != null)
-                controller.receiveOrder(c);
+            CommandeRow row = historyTable.getSelectionModel().getSelectedItem();
+            if (row != null)
+                controller.receiveOrder(row.getModel());
         });
 
         Button cancelBtn = new Button("Annuler");
         cancelBtn.setStyle("-fx-background-color: #d9534f; -fx-text-fill: white;");
         cancelBtn.setOnAction(e -> {
-            Commande c = historyTable.getSelectionModel().getSelectedItem();
-            if (c != null)
-                controller.cancelOrder(c);
+            CommandeRow row = historyTable.getSelectionModel().getSelectedItem();
+            if (row != null)
+                controller.cancelOrder(row.getModel());
         });
 
         Button editBtn = new Button("Modifier");
         editBtn.setStyle("-fx-background-color: #f0ad4e; -fx-text-fill: white;");
         editBtn.setOnAction(e -> {
-            Commande c = historyTable.getSelectionModel().getSelectedItem();
-            if (c != null) {
+            CommandeRow row = historyTable.getSelectionModel().getSelectedItem();
+            if (row != null) {
+                Commande c = row.getModel();
                 if (c.getStatut() == pharmacie.model.StatutCommande.EN_ATTENTE) {
                     showEditOrderDialog(c);
                 } else {
@@ -177,10 +178,10 @@ public class OrderView {
     }
 
     private void setupProductTable() {
-        TableColumn<Produit, String> nameCol = new TableColumn<>("Produit");
-        nameCol.setCellValueFactory(new PropertyValueFactory<>("nom"));
-        TableColumn<Produit, Integer> stockCol = new TableColumn<>("Stock Actuel");
-        stockCol.setCellValueFactory(new PropertyValueFactory<>("stockActuel"));
+        TableColumn<ProduitRow, String> nameCol = new TableColumn<>("Produit");
+        nameCol.setCellValueFactory(cell -> cell.getValue().nomProperty());
+        TableColumn<ProduitRow, Integer> stockCol = new TableColumn<>("Stock Actuel");
+        stockCol.setCellValueFactory(cell -> cell.getValue().stockActuelProperty());
         productTable.getColumns().addAll(nameCol, stockCol);
     }
 
@@ -190,25 +191,24 @@ public class OrderView {
                 cell -> new javafx.beans.property.SimpleStringProperty(cell.getValue().getProduit().getNom()));
 
         TableColumn<LigneCommande, Integer> qCol = new TableColumn<>("Quantité");
-        qCol.setCellValueFactory(new PropertyValueFactory<>("quantite"));
+        qCol.setCellValueFactory(
+                cell -> new javafx.beans.property.SimpleObjectProperty<>(cell.getValue().getQuantite()));
 
         orderTable.getColumns().addAll(pCol, qCol);
     }
 
     private void setupHistoryTable() {
-        TableColumn<Commande, Long> idCol = new TableColumn<>("ID");
-        idCol.setCellValueFactory(new PropertyValueFactory<>("id"));
+        TableColumn<CommandeRow, Long> idCol = new TableColumn<>("ID");
+        idCol.setCellValueFactory(cell -> cell.getValue().idProperty());
 
-        TableColumn<Commande, String> dateCol = new TableColumn<>("Date");
-        dateCol.setCellValueFactory(cell -> new javafx.beans.property.SimpleStringProperty(
-                cell.getValue().getDateCreation().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))));
+        TableColumn<CommandeRow, String> dateCol = new TableColumn<>("Date");
+        dateCol.setCellValueFactory(cell -> cell.getValue().dateProperty());
 
-        TableColumn<Commande, String> fourCol = new TableColumn<>("Fournisseur");
-        fourCol.setCellValueFactory(cell -> new javafx.beans.property.SimpleStringProperty(
-                cell.getValue().getFournisseur() != null ? cell.getValue().getFournisseur().getNom() : "?"));
+        TableColumn<CommandeRow, String> fourCol = new TableColumn<>("Fournisseur");
+        fourCol.setCellValueFactory(cell -> cell.getValue().fournisseurProperty());
 
-        TableColumn<Commande, String> statusCol = new TableColumn<>("Statut");
-        statusCol.setCellValueFactory(new PropertyValueFactory<>("statut"));
+        TableColumn<CommandeRow, StatutCommande> statusCol = new TableColumn<>("Statut");
+        statusCol.setCellValueFactory(cell -> cell.getValue().statutProperty());
 
         historyTable.getColumns().addAll(idCol, dateCol, fourCol, statusCol);
     }
@@ -233,8 +233,7 @@ public class OrderView {
         if (orderTable != null)
             orderTable.refresh();
         if (historyTable != null) {
-            historyTable.setItems(FXCollections.observableArrayList(controller.getOrderHistory()));
-            historyTable.refresh();
+            controller.loadOrderHistory(historyTable);
         }
         if (productTable != null && controller != null) {
             controller.loadProducts(productTable);
@@ -276,9 +275,7 @@ public class OrderView {
                 p.setSeuilMin(5); // Default
                 p.setCodeBarre(bar.getText());
 
-                new pharmacie.service.StockService().saveProduit(p);
-                refreshTables();
-                new Alert(Alert.AlertType.INFORMATION, "Produit créé.").show();
+                controller.createProduct(p);
             } catch (Exception e) {
                 new Alert(Alert.AlertType.ERROR, "Erreur: " + e.getMessage()).show();
             }
@@ -303,7 +300,8 @@ public class OrderView {
         pCol.setCellValueFactory(
                 cell -> new javafx.beans.property.SimpleStringProperty(cell.getValue().getProduit().getNom()));
         TableColumn<LigneCommande, Integer> qCol = new TableColumn<>("Quantité");
-        qCol.setCellValueFactory(new PropertyValueFactory<>("quantite"));
+        qCol.setCellValueFactory(
+                cell -> new javafx.beans.property.SimpleObjectProperty<>(cell.getValue().getQuantite()));
         editTable.getColumns().addAll(pCol, qCol);
         editTable.setItems(FXCollections.observableArrayList(c.getLignes()));
 
@@ -338,6 +336,14 @@ public class OrderView {
         }
     }
 
+    /**
+     * Cancels the loads still running, e.g. when the user leaves the
+     * screen.
+     */
+    public void cancelPending() {
+        controller.cancelPending();
+    }
+
     public Parent getView() {
         return layout;
     }
@@ -5,11 +5,11 @@ import javafx.scene.Parent;
 import javafx.scene.control.Button;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import pharmacie.controller.ProductController;
 import pharmacie.model.Produit;
+import pharmacie.view.model.ProduitRow;
 
 import java.util.Optional;
 import java.math.BigDecimal;
@@ -19,7 +19,7 @@ import javafx.scene.control.ButtonBar.ButtonData;
 
 public class ProductView {
     private BorderPane layout;
-    private TableView<Produit> table;
+    private TableView<ProduitRow> table;
     private ProductController controller;
 
     public ProductView() {
@@ -44,17 +44,17 @@ public class ProductView {
 
         Button editBtn = new Button("Modifier Produit");
         editBtn.setOnAction(e -> {
-            Produit p = table.getSelectionModel().getSelectedItem();
-            if (p != null) {
-                showEditProductDialog(p);
+            ProduitRow row = table.getSelectionModel().getSelectedItem();
+            if (row != null) {
+                showEditProductDialog(row.getModel());
             }
         });
 
         Button delBtn = new Button("Supprimer Produit");
         delBtn.setStyle("-fx-background-color: #e74c3c; -fx-text-fill: white;");
         delBtn.setOnAction(e -> {
-            Produit p = table.getSelectionModel().getSelectedItem();
-            controller.deleteProduct(p);
+            ProduitRow row = table.getSelectionModel().getSelectedItem();
+            controller.deleteProduct(row != null ? row.getModel() : null);
         });
 
         toolbar.getChildren().addAll(refreshBtn, addBtn, editBtn, delBtn);
@@ -63,28 +63,36 @@ public class ProductView {
         // Table
         table = new TableView<>();
 
-        TableColumn<Produit, Long> idCol = new TableColumn<>("ID");
-        idCol.setCellValueFactory(new PropertyValueFactory<>("id"));
+        TableColumn<ProduitRow, Long> idCol = new TableColumn<>("ID");
+        idCol.setCellValueFactory(cell -> cell.getValue().idProperty());
 
-        TableColumn<Produit, String> nomCol = new TableColumn<>("Nom");
-        nomCol.setCellValueFactory(new PropertyValueFactory<>("nom"));
+        TableColumn<ProduitRow, String> nomCol = new TableColumn<>("Nom");
+        nomCol.setCellValueFactory(cell -> cell.getValue().nomProperty());
 
-        TableColumn<Produit, Integer> stockCol = new TableColumn<>("Stock");
-        stockCol.setCellValueFactory(new PropertyValueFactory<>("stockActuel"));
+        TableColumn<ProduitRow, Integer> stockCol = new TableColumn<>("Stock");
+        stockCol.setCellValueFactory(cell -> cell.getValue().stockActuelProperty());
 
-        TableColumn<Produit, Double> prixCol = new TableColumn<>("Prix Vente");
-        prixCol.setCellValueFactory(new PropertyValueFactory<>("prixVente"));
+        TableColumn<ProduitRow, BigDecimal> prixCol = new TableColumn<>("Prix Vente");
+        prixCol.setCellValueFactory(cell -> cell.getValue().prixVenteProperty());
 
         table.getColumns().addAll(idCol, nomCol, stockCol, prixCol);
 
         layout.setCenter(table);
     }
 
+    /**
+     * Cancels the loads still running, e.g. when the user leaves the
+     * screen.
+     */
+    public void cancelPending() {
+        controller.cancelPending();
+    }
+
     public Parent getView() {
         return layout;
     }
 
-    public TableView<Produit> getTable() {
+    public TableView<ProduitRow> getTable() {
         return table;
     }
 
@@ -1,30 +1,43 @@
 package pharmacie.view;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.*;
 import pharmacie.model.Produit;
+import pharmacie.service.BestSeller;
+import pharmacie.service.ExpenditureReport;
+import pharmacie.service.ReportRequest;
 import pharmacie.service.ReportService;
+import pharmacie.service.ReportType;
+import pharmacie.service.SupplierPerformanceReport;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 public class ReportView {
+    private static final int BEST_SELLERS_DAYS = 30;
+
     private BorderPane layout;
     private ReportService reportService;
     private TableView<Produit> stockTable;
     private TableView<Map<String, Object>> supplierPerformanceTable;
+    private TableView<BestSeller> bestSellersTable;
     private Label totalRevenueLabel;
     private Label totalSalesLabel;
     private Label totalExpenditureLabel;
+    private ReportService.ReportBatch pending;
 
     public ReportView() {
         this.reportService = new ReportService();
@@ -91,7 +104,13 @@ public class ReportView {
         setupSupplierPerformanceTable();
         Node perfPane = createTableContainer("⭐ Performance et Dépenses par Fournisseur", supplierPerformanceTable);
 
-        rowPanels.getChildren().addAll(stockPane, perfPane);
+        // c. Meilleures ventes
+        bestSellersTable = new TableView<>();
+        setupBestSellersTable();
+        Node bestPane = createTableContainer("🏆 Meilleures Ventes (" + BEST_SELLERS_DAYS + " derniers jours)",
+                bestSellersTable);
+
+        rowPanels.getChildren().addAll(stockPane, perfPane, bestPane);
         content.getChildren().addAll(kpiRow, rowPanels);
         scrollPane.setContent(content);
         layout.setCenter(scrollPane);
@@ -117,13 +136,15 @@ public class ReportView {
 
     private void setupStockTable() {
         TableColumn<Produit, String> nameCol = new TableColumn<>("Produit");
-        nameCol.setCellValueFactory(new PropertyValueFactory<>("nom"));
+        nameCol.setCellValueFactory(cell -> new javafx.beans.property.SimpleStringProperty(cell.getValue().getNom()));
 
         TableColumn<Produit, Integer> stockCol = new TableColumn<>("Stock Actuel");
-        stockCol.setCellValueFactory(new PropertyValueFactory<>("stockActuel"));
+        stockCol.setCellValueFactory(
+                cell -> new javafx.beans.property.SimpleObjectProperty<>(cell.getValue().getStockActuel()));
 
         TableColumn<Produit, Integer> thresholdCol = new TableColumn<>("Seuil Min");
-        thresholdCol.setCellValueFactory(new PropertyValueFactory<>("seuilMin"));
+        thresholdCol.setCellValueFactory(
+                cell -> new javafx.beans.property.SimpleObjectProperty<>(cell.getValue().getSeuilMin()));
 
         TableColumn<Produit, String> statusCol = new TableColumn<>("Statut");
         statusCol.setCellValueFactory(cell -> {
@@ -176,6 +197,23 @@ public class ReportView {
         supplierPerformanceTable.setPrefHeight(250);
     }
 
+    private void setupBestSellersTable() {
+        TableColumn<BestSeller, String> nameCol = new TableColumn<>("Produit");
+        nameCol.setCellValueFactory(cell -> new javafx.beans.property.SimpleStringProperty(cell.getValue().getNom()));
+
+        TableColumn<BestSeller, Long> qtyCol = new TableColumn<>("Quantité Vendue");
+        qtyCol.setCellValueFactory(
+                cell -> new javafx.beans.property.SimpleObjectProperty<>(cell.getValue().getQuantite()));
+
+        TableColumn<BestSeller, String> caCol = new TableColumn<>("Chiffre d'Affaires (€)");
+        caCol.setCellValueFactory(cell -> new javafx.beans.property.SimpleStringProperty(
+                String.format("%.2f €", cell.getValue().getChiffreAffaires())));
+
+        bestSellersTable.getColumns().addAll(nameCol, qtyCol, caCol);
+        bestSellersTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        bestSellersTable.setPrefHeight(250);
+    }
+
     private VBox createTableContainer(String title, Node table) {
         VBox container = new VBox(10);
         container.setPadding(new Insets(20));
@@ -191,50 +229,100 @@ public class ReportView {
     }
 
     public void refresh() {
+        // Strategies run concurrently off the FX thread; each panel is
+        // filled as soon as its own report is ready
+        cancelPending();
+        ReportService.ReportBatch batch = reportService.getReportsAsync(List.of(
+                ReportRequest.of(ReportType.STOCK), ReportRequest.of(ReportType.REVENUE),
+                ReportRequest.of(ReportType.EXPENDITURE), ReportRequest.of(ReportType.PERFORMANCE),
+                // Whole days, so the request (and its cache entry) is stable for the day
+                ReportRequest.of(ReportType.BEST_SELLERS)
+                        .between(LocalDate.now().minusDays(BEST_SELLERS_DAYS - 1).atStartOfDay(), null)));
+        pending = batch;
+
         // 1. Stock Data
-        Map<String, Object> stockData = reportService.getReportData("STOCK");
-        if (stockData.get("produits") instanceof List) {
-            @SuppressWarnings("unchecked")
-            List<Produit> produits = (List<Produit>) stockData.get("produits");
-            stockTable.setItems(FXCollections.observableArrayList(produits));
-        }
+        onFxThread(batch, batch.get(ReportType.STOCK),
+                stock -> stockTable.setItems(FXCollections.observableArrayList(stock.getProduits())));
 
         // 2. Revenue Data
-        Map<String, Object> revenueData = reportService.getReportData("REVENUE");
-        if (revenueData.containsKey("totalRevenue")) {
-            BigDecimal rev = (BigDecimal) revenueData.get("totalRevenue");
-            totalRevenueLabel.setText(String.format("%.2f €", rev));
-        }
-        if (revenueData.containsKey("transactionCount")) {
-            Integer count = (Integer) revenueData.get("transactionCount");
-            totalSalesLabel.setText(count.toString());
-        }
+        onFxThread(batch, batch.get(ReportType.REVENUE), revenue -> {
+            totalRevenueLabel.setText(String.format("%.2f €", revenue.getTotal()));
+            totalSalesLabel.setText(String.valueOf(revenue.getNombreVentes()));
+        });
 
         // 3. Expenditure & Performance Data merged for table
-        Map<String, Object> expData = reportService.getReportData("EXPENDITURE");
-        Map<String, Object> perfData = reportService.getReportData("PERFORMANCE");
+        onFxThread(batch, batch.get(ReportType.EXPENDITURE),
+                expenditure -> totalExpenditureLabel.setText(String.format("%.2f €", expenditure.getTotal())));
+
+        onFxThread(batch,
+                batch.get(ReportType.EXPENDITURE).thenCombine(batch.get(ReportType.PERFORMANCE),
+                        this::mergeSupplierData),
+                combinedSupplierData -> supplierPerformanceTable
+                        .setItems(FXCollections.observableArrayList(combinedSupplierData)));
+
+        // 4. Best sellers by units
+        onFxThread(batch, batch.get(ReportType.BEST_SELLERS),
+                best -> bestSellersTable.setItems(FXCollections.observableArrayList(best.getParQuantite())));
+
+        batch.all().whenComplete((v, error) -> {
+            if (error != null && !batch.all().isCancelled()) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error;
+                Platform.runLater(() -> {
+                    if (pending == batch) {
+                        showError("Erreur lors du chargement des rapports: " + cause.getMessage());
+                    }
+                });
+            }
+        });
+    }
 
-        if (expData.containsKey("totalExpenditure")) {
-            BigDecimal totalExp = (BigDecimal) expData.get("totalExpenditure");
-            totalExpenditureLabel.setText(String.format("%.2f €", totalExp));
+    private List<Map<String, Object>> mergeSupplierData(ExpenditureReport expenditure,
+            SupplierPerformanceReport performance) {
+        List<Map<String, Object>> combinedSupplierData = new ArrayList<>();
+        Map<String, BigDecimal> expenditures = expenditure.getTotalParFournisseur();
+        Map<String, Integer> performances = performance.getScores();
+
+        for (String supplierName : expenditures.keySet()) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("name", supplierName);
+            row.put("total", expenditures.get(supplierName));
+            row.put("score", performances.getOrDefault(supplierName, 0));
+            combinedSupplierData.add(row);
         }
+        return combinedSupplierData;
+    }
 
-        List<Map<String, Object>> combinedSupplierData = new ArrayList<>();
-        if (expData.containsKey("supplierBreakdown") && perfData.containsKey("performanceBreakdown")) {
-            @SuppressWarnings("unchecked")
-            Map<String, BigDecimal> expenditures = (Map<String, BigDecimal>) expData.get("supplierBreakdown");
-            @SuppressWarnings("unchecked")
-            Map<String, Integer> performances = (Map<String, Integer>) perfData.get("performanceBreakdown");
-
-            for (String supplierName : expenditures.keySet()) {
-                Map<String, Object> row = new HashMap<>();
-                row.put("name", supplierName);
-                row.put("total", expenditures.get(supplierName));
-                row.put("score", performances.getOrDefault(supplierName, 0));
-                combinedSupplierData.add(row);
+    /**
+     * Runs {@code render} on the FX thread once {@code future} succeeds,
+     * unless a newer refresh (or cancelPending) replaced {@code batch}.
+     */
+    private <T> void onFxThread(ReportService.ReportBatch batch, CompletableFuture<T> future, Consumer<T> render) {
+        future.thenAccept(value -> Platform.runLater(() -> {
+            if (pending == batch) {
+                render.accept(value);
             }
+        }));
+    }
+
+    /**
+     * Cancels the reports still being computed, e.g. when the user leaves
+     * the report screen.
+     */
+    public void cancelPending() {
+        if (pending != null) {
+            pending.cancel();
+            pending = null;
         }
-        supplierPerformanceTable.setItems(FXCollections.observableArrayList(combinedSupplierData));
+    }
+
+    private void showError(String message) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Erreur");
+        alert.setHeaderText(null);
+        alert.setContentText(message);
+        alert.showAndWait();
     }
 
     public Parent getView() {
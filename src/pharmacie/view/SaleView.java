@@ -4,7 +4,6 @@ import javafx.geometry.Insets;
 import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
@@ -12,16 +11,27 @@ import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import pharmacie.controller.SaleController;
 import pharmacie.model.*;
+import pharmacie.view.model.LigneVenteRow;
+import pharmacie.view.model.ProduitRow;
+import pharmacie.view.model.VenteRow;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 public class SaleView {
     private BorderPane layout;
     private SaleController controller;
-    private TableView<Produit> productTable;
-    private TableView<LigneVente> cartTable;
-    private TableView<Vente> historyTable;
+    private TableView<ProduitRow> productTable;
+    private TextField searchField;
+    private TextField scanField;
+    private Label scanStatus;
+    private TableView<LigneVenteRow> cartTable;
+    private TableView<VenteRow> historyTable;
+    private TableView<LigneVenteRow> saleLinesTable;
+    private String historyCursor;
+    private boolean historyRequested;
     private Label totalLabel;
     private ComboBox<Client> clientComboBox;
 
@@ -43,6 +53,11 @@ public class SaleView {
         Tab historyTab = new Tab("Historique Global des Ventes");
         historyTab.setClosable(false);
         historyTab.setContent(createHistoryPane());
+        // The history is read when first shown, not with the till
+        historyTab.setOnSelectionChanged(e -> {
+            if (historyTab.isSelected() && !historyRequested)
+                loadHistoryPage(true);
+        });
 
         tabs.getTabs().addAll(posTab, historyTab);
         layout.setCenter(tabs);
@@ -61,19 +76,36 @@ public class SaleView {
         Label catalogLabel = new Label("Catalogue Produits");
         catalogLabel.setStyle("-fx-font-weight: bold; -fx-font-size: 14px;");
 
+        // Keyboard-wedge scanners type the code then Enter
+        scanField = new TextField();
+        scanField.setPromptText("Scanner un code barre...");
+        scanField.setOnAction(e -> {
+            controller.scan(scanField.getText());
+            scanField.clear();
+            scanField.requestFocus();
+        });
+        HBox.setHgrow(scanField, Priority.ALWAYS);
+        scanStatus = new Label();
+        HBox scanRow = new HBox(5, new Label("Scan:"), scanField, scanStatus);
+        scanRow.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
+
+        searchField = new TextField();
+        searchField.setPromptText("Rechercher (nom, code barre, description)...");
+        searchField.textProperty().addListener((obs, oldVal, newVal) -> controller.filterProducts(productTable, newVal));
+
         productTable = new TableView<>();
         setupProductTable();
 
         Button addToCartBtn = new Button("Ajouter au Panier");
         addToCartBtn.setMaxWidth(Double.MAX_VALUE);
         addToCartBtn.setOnAction(e -> {
-            Produit selected = productTable.getSelectionModel().getSelectedItem();
+            ProduitRow selected = productTable.getSelectionModel().getSelectedItem();
             if (selected != null) {
-                askQuantityAndAdd(selected);
+                askQuantityAndAdd(selected.getModel());
             }
         });
 
-        leftPane.getChildren().addAll(catalogLabel, productTable, addToCartBtn);
+        leftPane.getChildren().addAll(catalogLabel, scanRow, searchField, productTable, addToCartBtn);
 
         // RIGHT: Cart
         VBox rightPane = new VBox(10);
@@ -119,6 +151,8 @@ public class SaleView {
         splitPane.setDividerPositions(0.6);
 
         posLayout.setCenter(splitPane);
+        // Ready to scan as soon as the till is shown
+        javafx.application.Platform.runLater(scanField::requestFocus);
         return posLayout;
     }
 
@@ -132,67 +166,137 @@ public class SaleView {
         historyTable = new TableView<>();
         setupHistoryTable();
 
-        Button refreshBtn = new Button("Actualiser l'historique");
-        refreshBtn.setOnAction(e -> controller.loadSalesHistory(historyTable));
-
-        historyLayout.getChildren().addAll(title, historyTable, refreshBtn);
+        Label linesLabel = new Label("Détail de la vente sélectionnée");
+        linesLabel.setStyle("-fx-font-weight: bold;");
+
+        saleLinesTable = new TableView<>();
+        saleLinesTable.setPrefHeight(150);
+        setupSaleLinesTable();
+
+        // Lines are read for the selected sale only
+        historyTable.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
+            saleLinesTable.getItems().clear();
+            if (newVal != null) {
+                Vente v = newVal.getModel();
+                controller.loadSaleLines(v, () -> {
+                    if (historyTable.getSelectionModel().getSelectedItem() == newVal)
+                        saleLinesTable.getItems().setAll(toRows(v.getLignes()));
+                });
+            }
+        });
 
-        // Initial load
-        controller.loadSalesHistory(historyTable);
+        Button refreshBtn = new Button("Actualiser l'historique");
+        refreshBtn.setOnAction(e -> loadHistoryPage(true));
 
+        historyLayout.getChildren().addAll(title, historyTable, linesLabel, saleLinesTable, refreshBtn);
         return historyLayout;
     }
 
-    private void setupHistoryTable() {
-        TableColumn<Vente, String> dateCol = new TableColumn<>("Date");
-        dateCol.setCellValueFactory(cell -> new javafx.beans.property.SimpleStringProperty(
-                cell.getValue().getDateVente()
-                        .format(java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"))));
-
-        TableColumn<Vente, String> clientCol = new TableColumn<>("Client");
-        clientCol.setCellValueFactory(cell -> {
-            Client c = cell.getValue().getClient();
-            return new javafx.beans.property.SimpleStringProperty(
-                    c != null ? c.getNom() + " " + c.getPrenom() : "Anonyme");
+    /**
+     * First page (reset) or the page after the last one shown. The next
+     * page is requested when the last row is displayed.
+     */
+    private void loadHistoryPage(boolean reset) {
+        if (!reset && historyCursor == null)
+            return;
+        historyRequested = true;
+        controller.loadHistoryPage(reset ? null : historyCursor, page -> {
+            List<VenteRow> rows = new ArrayList<>();
+            for (Vente v : page.getItems()) {
+                rows.add(new VenteRow(v));
+            }
+            if (reset) {
+                historyTable.getItems().setAll(rows);
+            } else {
+                historyTable.getItems().addAll(rows);
+            }
+            historyCursor = page.getNextCursor();
         });
+    }
+
+    private void setupHistoryTable() {
+        TableColumn<VenteRow, String> dateCol = new TableColumn<>("Date");
+        dateCol.setCellValueFactory(cell -> cell.getValue().dateProperty());
 
-        TableColumn<Vente, String> userCol = new TableColumn<>("Vendeur");
-        userCol.setCellValueFactory(cell -> new javafx.beans.property.SimpleStringProperty(
-                cell.getValue().getUtilisateur() != null ? cell.getValue().getUtilisateur().getNom() : "-"));
+        TableColumn<VenteRow, String> clientCol = new TableColumn<>("Client");
+        clientCol.setCellValueFactory(cell -> cell.getValue().clientProperty());
 
-        TableColumn<Vente, BigDecimal> totalCol = new TableColumn<>("Total");
-        totalCol.setCellValueFactory(new PropertyValueFactory<>("total"));
+        TableColumn<VenteRow, String> userCol = new TableColumn<>("Vendeur");
+        userCol.setCellValueFactory(cell -> cell.getValue().vendeurProperty());
+
+        TableColumn<VenteRow, BigDecimal> totalCol = new TableColumn<>("Total");
+        totalCol.setCellValueFactory(cell -> cell.getValue().totalProperty());
 
         historyTable.getColumns().addAll(dateCol, clientCol, userCol, totalCol);
+
+        historyTable.setRowFactory(table -> new TableRow<VenteRow>() {
+            @Override
+            public void updateIndex(int i) {
+                super.updateIndex(i);
+                if (i >= 0 && i == table.getItems().size() - 1)
+                    loadHistoryPage(false);
+            }
+        });
+    }
+
+    private void setupSaleLinesTable() {
+        TableColumn<LigneVenteRow, String> nomCol = new TableColumn<>("Produit");
+        nomCol.setCellValueFactory(cellData -> cellData.getValue().produitProperty());
+
+        TableColumn<LigneVenteRow, Integer> qtyCol = new TableColumn<>("Qte");
+        qtyCol.setCellValueFactory(cellData -> cellData.getValue().quantiteProperty());
+
+        TableColumn<LigneVenteRow, BigDecimal> prixCol = new TableColumn<>("Prix Unitaire");
+        prixCol.setCellValueFactory(cellData -> cellData.getValue().prixUnitaireProperty());
+
+        TableColumn<LigneVenteRow, BigDecimal> totalCol = new TableColumn<>("Sous-total");
+        totalCol.setCellValueFactory(cellData -> cellData.getValue().sousTotalProperty());
+
+        saleLinesTable.getColumns().addAll(nomCol, qtyCol, prixCol, totalCol);
+    }
+
+    private static List<LigneVenteRow> toRows(List<LigneVente> lignes) {
+        List<LigneVenteRow> rows = new ArrayList<>();
+        for (LigneVente l : lignes) {
+            rows.add(new LigneVenteRow(l));
+        }
+        return rows;
     }
 
     public void refreshClientList() {
-        clientComboBox.setItems(javafx.collections.FXCollections.observableArrayList(controller.getAllClients()));
+        refreshClientList(null);
+    }
+
+    private void refreshClientList(Client toSelect) {
+        controller.loadClients(clients -> {
+            clientComboBox.setItems(javafx.collections.FXCollections.observableArrayList(clients));
+            if (toSelect != null)
+                clientComboBox.getSelectionModel().select(toSelect);
+        });
     }
 
     private void setupProductTable() {
-        TableColumn<Produit, String> nomCol = new TableColumn<>("Nom");
-        nomCol.setCellValueFactory(new PropertyValueFactory<>("nom"));
+        TableColumn<ProduitRow, String> nomCol = new TableColumn<>("Nom");
+        nomCol.setCellValueFactory(cellData -> cellData.getValue().nomProperty());
 
-        TableColumn<Produit, Integer> stockCol = new TableColumn<>("Stock");
-        stockCol.setCellValueFactory(new PropertyValueFactory<>("stockActuel"));
+        TableColumn<ProduitRow, Integer> stockCol = new TableColumn<>("Stock");
+        stockCol.setCellValueFactory(cellData -> cellData.getValue().stockActuelProperty());
 
-        TableColumn<Produit, BigDecimal> prixCol = new TableColumn<>("Prix");
-        prixCol.setCellValueFactory(new PropertyValueFactory<>("prixVente"));
+        TableColumn<ProduitRow, BigDecimal> prixCol = new TableColumn<>("Prix");
+        prixCol.setCellValueFactory(cellData -> cellData.getValue().prixVenteProperty());
 
         productTable.getColumns().addAll(nomCol, stockCol, prixCol);
     }
 
     private void setupCartTable() {
-        TableColumn<LigneVente, String> nomCol = new TableColumn<>("Produit");
-        nomCol.setCellValueFactory(
-                cellData -> new javafx.beans.property.SimpleStringProperty(cellData.getValue().getProduit().getNom()));
+        TableColumn<LigneVenteRow, String> nomCol = new TableColumn<>("Produit");
+        nomCol.setCellValueFactory(cellData -> cellData.getValue().produitProperty());
 
-        TableColumn<LigneVente, Integer> qtyCol = new TableColumn<>("Qte");
-        qtyCol.setCellValueFactory(new PropertyValueFactory<>("quantite"));
+        TableColumn<LigneVenteRow, Integer> qtyCol = new TableColumn<>("Qte");
+        qtyCol.setCellValueFactory(cellData -> cellData.getValue().quantiteProperty());
 
-        TableColumn<LigneVente, BigDecimal> totalCol = new TableColumn<>("Total");
-        totalCol.setCellValueFactory(new PropertyValueFactory<>("sousTotal"));
+        TableColumn<LigneVenteRow, BigDecimal> totalCol = new TableColumn<>("Total");
+        totalCol.setCellValueFactory(cellData -> cellData.getValue().sousTotalProperty());
 
         cartTable.getColumns().addAll(nomCol, qtyCol, totalCol);
         cartTable.setItems(controller.getCartItems());
@@ -272,34 +376,44 @@ public class SaleView {
             return null;
         });
 
-        dialog.showAndWait().ifPresent(client -> {
-            try {
-                controller.saveClient(client);
-                refreshClientList();
-                // Select the new client in the combo box
-                // Since we implemented equals(), it should find it based on the ID set by
-                // saveClient
-                clientComboBox.getSelectionModel().select(client);
-            } catch (Exception e) {
-                Alert alert = new Alert(Alert.AlertType.ERROR, "Erreur: " + e.getMessage());
-                alert.showAndWait();
-            }
-        });
+        dialog.showAndWait().ifPresent(client -> controller.saveClient(client, () -> {
+            // Select the new client in the combo box
+            // Since we implemented equals(), it should find it based on the ID set by
+            // saveClient
+            refreshClientList(client);
+        }));
     }
 
     public void refreshCart() {
-        cartTable.refresh();
-        // Recalculate Total
+        // Recalculate Total (the rows redraw their own changed cells)
         BigDecimal total = BigDecimal.ZERO;
-        for (LigneVente item : controller.getCartItems()) {
-            total = total.add(item.getSousTotal());
+        for (LigneVenteRow item : controller.getCartItems()) {
+            total = total.add(item.getModel().getSousTotal());
         }
         totalLabel.setText("Total: " + total.toString() + " €");
     }
 
+    /**
+     * Last product scanned, next to the scan field.
+     */
+    public void showScanStatus(String message) {
+        scanStatus.setStyle("-fx-text-fill: #2c3e50;");
+        scanStatus.setText(message);
+    }
+
+    /**
+     * A scan that added nothing: shown in red next to the scan field,
+     * without a dialog, so the focus stays on the field for the next scan.
+     */
+    public void showScanError(String message) {
+        scanStatus.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+        scanStatus.setText(message);
+    }
+
     public void refreshProductList() {
         controller.loadProducts(productTable);
-        controller.loadSalesHistory(historyTable);
+        if (historyRequested)
+            loadHistoryPage(true);
     }
 
     private void doCheckout() {
@@ -312,6 +426,14 @@ public class SaleView {
         clientComboBox.getSelectionModel().clearSelection();
     }
 
+    /**
+     * Cancels the loads still running, e.g. when the user leaves the
+     * screen.
+     */
+    public void cancelPending() {
+        controller.cancelPending();
+    }
+
     public Parent getView() {
         return layout;
     }
@@ -4,19 +4,19 @@ import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Parent;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import pharmacie.controller.SupplierController;
 import pharmacie.model.Fournisseur;
+import pharmacie.view.model.FournisseurRow;
 
 import java.util.Optional;
 
 public class SupplierView {
     private BorderPane layout;
     private SupplierController controller;
-    private TableView<Fournisseur> table;
+    private TableView<FournisseurRow> table;
 
     public SupplierView() {
         this.controller = new SupplierController(this);
@@ -59,20 +59,20 @@ public class SupplierView {
     }
 
     private void setupTable() {
-        TableColumn<Fournisseur, Long> idCol = new TableColumn<>("ID");
-        idCol.setCellValueFactory(new PropertyValueFactory<>("id"));
+        TableColumn<FournisseurRow, Long> idCol = new TableColumn<>("ID");
+        idCol.setCellValueFactory(cell -> cell.getValue().idProperty());
 
-        TableColumn<Fournisseur, String> nomCol = new TableColumn<>("Nom");
-        nomCol.setCellValueFactory(new PropertyValueFactory<>("nom"));
+        TableColumn<FournisseurRow, String> nomCol = new TableColumn<>("Nom");
+        nomCol.setCellValueFactory(cell -> cell.getValue().nomProperty());
 
-        TableColumn<Fournisseur, String> emailCol = new TableColumn<>("Email");
-        emailCol.setCellValueFactory(new PropertyValueFactory<>("email"));
+        TableColumn<FournisseurRow, String> emailCol = new TableColumn<>("Email");
+        emailCol.setCellValueFactory(cell -> cell.getValue().emailProperty());
 
-        TableColumn<Fournisseur, String> telCol = new TableColumn<>("Téléphone");
-        telCol.setCellValueFactory(new PropertyValueFactory<>("telephone"));
+        TableColumn<FournisseurRow, String> telCol = new TableColumn<>("Téléphone");
+        telCol.setCellValueFactory(cell -> cell.getValue().telephoneProperty());
 
-        TableColumn<Fournisseur, String> adrCol = new TableColumn<>("Adresse");
-        adrCol.setCellValueFactory(new PropertyValueFactory<>("adresse"));
+        TableColumn<FournisseurRow, String> adrCol = new TableColumn<>("Adresse");
+        adrCol.setCellValueFactory(cell -> cell.getValue().adresseProperty());
 
         table.getColumns().addAll(idCol, nomCol, emailCol, telCol, adrCol);
     }
@@ -115,14 +115,15 @@ public class SupplierView {
     }
 
     private void confirmDelete() {
-        Fournisseur selected = table.getSelectionModel().getSelectedItem();
-        if (selected == null) {
+        FournisseurRow row = table.getSelectionModel().getSelectedItem();
+        if (row == null) {
             new Alert(Alert.AlertType.WARNING, "Sélectionnez un fournisseur.").show();
             return;
         }
 
         Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
         alert.setTitle("Suppression");
+        Fournisseur selected = row.getModel();
         alert.setHeaderText("Supprimer " + selected.getNom() + " ?");
         alert.setContentText("Cette action est irréversible.");
 
@@ -135,6 +136,14 @@ public class SupplierView {
         controller.loadData(table);
     }
 
+    /**
+     * Cancels the loads still running, e.g. when the user leaves the
+     * screen.
+     */
+    public void cancelPending() {
+        controller.cancelPending();
+    }
+
     public Parent getView() {
         return layout;
     }
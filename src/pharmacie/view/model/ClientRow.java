@@ -0,0 +1,45 @@
+package pharmacie.view.model;
+
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import pharmacie.model.Client;
+
+/**
+ * A Client as shown in the client list.
+ */
+public final class ClientRow extends ModelRow<Client> {
+    private final ReadOnlyObjectWrapper<String> nom = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyObjectWrapper<String> prenom = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyObjectWrapper<String> email = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyObjectWrapper<String> telephone = new ReadOnlyObjectWrapper<>();
+
+    public ClientRow(Client c) {
+        super(c);
+        read(c);
+    }
+
+    @Override
+    protected boolean read(Client c) {
+        boolean changed = set(nom, c.getNom());
+        changed |= set(prenom, c.getPrenom());
+        changed |= set(email, c.getEmail());
+        changed |= set(telephone, c.getTelephone());
+        return changed;
+    }
+
+    public ReadOnlyObjectProperty<String> nomProperty() {
+        return nom.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<String> prenomProperty() {
+        return prenom.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<String> emailProperty() {
+        return email.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<String> telephoneProperty() {
+        return telephone.getReadOnlyProperty();
+    }
+}
@@ -0,0 +1,63 @@
+package pharmacie.view.model;
+
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import pharmacie.model.Commande;
+import pharmacie.model.StatutCommande;
+
+import java.math.BigDecimal;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * A Commande as shown in the order history.
+ */
+public final class CommandeRow extends ModelRow<Commande> {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final ReadOnlyObjectWrapper<Long> id = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyObjectWrapper<String> date = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyObjectWrapper<String> fournisseur = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyObjectWrapper<StatutCommande> statut = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyObjectWrapper<BigDecimal> totalMontant = new ReadOnlyObjectWrapper<>();
+
+    public CommandeRow(Commande c) {
+        super(c);
+        read(c);
+    }
+
+    @Override
+    protected boolean read(Commande c) {
+        boolean changed = set(id, c.getId());
+        changed |= set(date, c.getDateCreation() != null ? c.getDateCreation().format(DATE_FORMAT) : "");
+        changed |= set(fournisseur, c.getFournisseur() != null ? c.getFournisseur().getNom() : "?");
+        changed |= set(statut, c.getStatut());
+        changed |= set(totalMontant, c.getTotalMontant());
+        return changed;
+    }
+
+    public ReadOnlyObjectProperty<Long> idProperty() {
+        return id.getReadOnlyProperty();
+    }
+
+    /**
+     * The creation date as yyyy-MM-dd HH:mm.
+     */
+    public ReadOnlyObjectProperty<String> dateProperty() {
+        return date.getReadOnlyProperty();
+    }
+
+    /**
+     * Name of the supplier, or "?".
+     */
+    public ReadOnlyObjectProperty<String> fournisseurProperty() {
+        return fournisseur.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<StatutCommande> statutProperty() {
+        return statut.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<BigDecimal> totalMontantProperty() {
+        return totalMontant.getReadOnlyProperty();
+    }
+}
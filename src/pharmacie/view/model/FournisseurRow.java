@@ -0,0 +1,51 @@
+package pharmacie.view.model;
+
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import pharmacie.model.Fournisseur;
+
+/**
+ * A Fournisseur as shown in the supplier list.
+ */
+public final class FournisseurRow extends ModelRow<Fournisseur> {
+    private final ReadOnlyObjectWrapper<Long> id = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyObjectWrapper<String> nom = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyObjectWrapper<String> email = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyObjectWrapper<String> telephone = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyObjectWrapper<String> adresse = new ReadOnlyObjectWrapper<>();
+
+    public FournisseurRow(Fournisseur f) {
+        super(f);
+        read(f);
+    }
+
+    @Override
+    protected boolean read(Fournisseur f) {
+        boolean changed = set(id, f.getId());
+        changed |= set(nom, f.getNom());
+        changed |= set(email, f.getEmail());
+        changed |= set(telephone, f.getTelephone());
+        changed |= set(adresse, f.getAdresse());
+        return changed;
+    }
+
+    public ReadOnlyObjectProperty<Long> idProperty() {
+        return id.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<String> nomProperty() {
+        return nom.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<String> emailProperty() {
+        return email.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<String> telephoneProperty() {
+        return telephone.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<String> adresseProperty() {
+        return adresse.getReadOnlyProperty();
+    }
+}
@@ -0,0 +1,50 @@
+package pharmacie.view.model;
+
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import pharmacie.model.LigneVente;
+
+import java.math.BigDecimal;
+
+/**
+ * A LigneVente as shown in the cart and in the detail of a sale.
+ */
+public final class LigneVenteRow extends ModelRow<LigneVente> {
+    private final ReadOnlyObjectWrapper<String> produit = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyObjectWrapper<Integer> quantite = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyObjectWrapper<BigDecimal> prixUnitaire = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyObjectWrapper<BigDecimal> sousTotal = new ReadOnlyObjectWrapper<>();
+
+    public LigneVenteRow(LigneVente l) {
+        super(l);
+        read(l);
+    }
+
+    @Override
+    protected boolean read(LigneVente l) {
+        boolean changed = set(produit, l.getProduit() != null ? l.getProduit().getNom() : "?");
+        changed |= set(quantite, l.getQuantite());
+        changed |= set(prixUnitaire, l.getPrixUnitaire());
+        changed |= set(sousTotal, l.getSousTotal());
+        return changed;
+    }
+
+    /**
+     * Name of the product.
+     */
+    public ReadOnlyObjectProperty<String> produitProperty() {
+        return produit.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<Integer> quantiteProperty() {
+        return quantite.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<BigDecimal> prixUnitaireProperty() {
+        return prixUnitaire.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<BigDecimal> sousTotalProperty() {
+        return sousTotal.getReadOnlyProperty();
+    }
+}
@@ -0,0 +1,60 @@
+package pharmacie.view.model;
+
+import javafx.beans.property.ReadOnlyObjectWrapper;
+
+import java.util.Objects;
+
+/**
+ * A table row showing one model object through JavaFX properties. Columns
+ * read the properties directly (no getter looked up by reflection) and
+ * listen to them, so update() with a fresh copy of the object redraws only
+ * the cells whose value changed, without touching the table's items.
+ */
+public abstract class ModelRow<M> {
+    private M model;
+
+    protected ModelRow(M model) {
+        this.model = model;
+    }
+
+    /**
+     * The object shown, as last passed to update(). Changes made to it are
+     * not shown until refresh().
+     */
+    public M getModel() {
+        return model;
+    }
+
+    /**
+     * Shows {@code fresh} instead of the current object.
+     *
+     * @return whether a displayed value changed
+     */
+    public boolean update(M fresh) {
+        this.model = fresh;
+        return read(fresh);
+    }
+
+    /**
+     * Shows the changes made to the current object.
+     */
+    public boolean refresh() {
+        return read(model);
+    }
+
+    /**
+     * Copies the displayed values of {@code m} into the properties.
+     */
+    protected abstract boolean read(M m);
+
+    /**
+     * Sets the property only if the value differs, so an unchanged cell
+     * is not redrawn.
+     */
+    protected static <T> boolean set(ReadOnlyObjectWrapper<T> property, T value) {
+        if (Objects.equals(property.get(), value))
+            return false;
+        property.set(value);
+        return true;
+    }
+}
@@ -0,0 +1,59 @@
+package pharmacie.view.model;
+
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import pharmacie.model.Produit;
+
+import java.math.BigDecimal;
+
+/**
+ * A Produit as shown in the product, till and order tables.
+ */
+public final class ProduitRow extends ModelRow<Produit> {
+    private final ReadOnlyObjectWrapper<Long> id = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyObjectWrapper<String> nom = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyObjectWrapper<Integer> stockActuel = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyObjectWrapper<Integer> seuilMin = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyObjectWrapper<BigDecimal> prixVente = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyObjectWrapper<String> codeBarre = new ReadOnlyObjectWrapper<>();
+
+    public ProduitRow(Produit p) {
+        super(p);
+        read(p);
+    }
+
+    @Override
+    protected boolean read(Produit p) {
+        boolean changed = set(id, p.getId());
+        changed |= set(nom, p.getNom());
+        changed |= set(stockActuel, p.getStockActuel());
+        changed |= set(seuilMin, p.getSeuilMin());
+        changed |= set(prixVente, p.getPrixVente());
+        changed |= set(codeBarre, p.getCodeBarre());
+        return changed;
+    }
+
+    public ReadOnlyObjectProperty<Long> idProperty() {
+        return id.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<String> nomProperty() {
+        return nom.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<Integer> stockActuelProperty() {
+        return stockActuel.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<Integer> seuilMinProperty() {
+        return seuilMin.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<BigDecimal> prixVenteProperty() {
+        return prixVente.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<String> codeBarreProperty() {
+        return codeBarre.getReadOnlyProperty();
+    }
+}
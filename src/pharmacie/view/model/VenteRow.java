@@ -0,0 +1,58 @@
+package pharmacie.view.model;
+
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import pharmacie.model.Client;
+import pharmacie.model.Vente;
+
+import java.math.BigDecimal;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * A Vente as shown in the sales and client histories.
+ */
+public final class VenteRow extends ModelRow<Vente> {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    private final ReadOnlyObjectWrapper<String> date = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyObjectWrapper<String> client = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyObjectWrapper<String> vendeur = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyObjectWrapper<BigDecimal> total = new ReadOnlyObjectWrapper<>();
+
+    public VenteRow(Vente v) {
+        super(v);
+        read(v);
+    }
+
+    @Override
+    protected boolean read(Vente v) {
+        Client c = v.getClient();
+        boolean changed = set(date, v.getDateVente() != null ? v.getDateVente().format(DATE_FORMAT) : "");
+        changed |= set(client, c != null ? c.getNom() + " " + c.getPrenom() : "Anonyme");
+        changed |= set(vendeur, v.getUtilisateur() != null ? v.getUtilisateur().getNom() : "-");
+        changed |= set(total, v.getTotal());
+        return changed;
+    }
+
+    /**
+     * The date as dd/MM/yyyy HH:mm.
+     */
+    public ReadOnlyObjectProperty<String> dateProperty() {
+        return date.getReadOnlyProperty();
+    }
+
+    /**
+     * "Nom Prénom" of the client, or "Anonyme".
+     */
+    public ReadOnlyObjectProperty<String> clientProperty() {
+        return client.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<String> vendeurProperty() {
+        return vendeur.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<BigDecimal> totalProperty() {
+        return total.getReadOnlyProperty();
+    }
+}